@@ -0,0 +1,36 @@
+/**
+ * BenchmarkRunner Class Documentation
+ *
+ * The `BenchmarkRunner` class is the entry point of benchmarks.jar. It runs the JMH benchmarks selected by the
+ * command line exactly like the default JMH main class, but always adds the gc profiler (`-prof gc`), so every
+ * result also reports the allocation rate and the bytes allocated per operation. Comparing those numbers between
+ * builds shows allocation regressions that the timings alone may hide.
+ */
+
+package ds.project3task1;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+public class BenchmarkRunner {
+
+    /**
+     * Run the benchmarks with the gc profiler enabled.
+     *
+     * @param args The usual JMH command line options, for example a benchmark name pattern or -rf json.
+     * @throws CommandLineOptionException if the command line options are invalid.
+     * @throws RunnerException if a benchmark fails to run.
+     */
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * BlockBenchmark Class Documentation
+ *
+ * JMH benchmarks for a single `Block`: the cost of one `calculateHash()` call and of a whole `proofOfWork()` at
+ * difficulties 1 to 6, for a `Block.LEGACY` block hashed as a string and a `Block.BINARY` block hashed as its binary
+ * header. The block has a fixed timestamp and data, so every invocation does exactly the same work
+ * (the same nonces are tried) and the results can be compared release to release.
+ */
+
+package ds.project3task1;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@Fork(1)
+public class BlockBenchmark {
+    // the timestamp of every benchmarked block
+    static final long BASE_TIME = 1698364800000L;
+
+    @Param({"1", "2", "3", "4", "5", "6"})
+    int difficulty;
+
+    @Param({"1", "3"})
+    int version;
+
+    // the block hashed and mined by the benchmarks
+    Block block;
+
+    /**
+     * Create the block, linked to a fixed previous hash like a block in the middle of a chain.
+     */
+    @Setup
+    public void setUp() {
+        block = new Block(1, new Timestamp(BASE_TIME), "Yi Guo pays Marty 100 DSCoin", difficulty, version);
+        block.setPreviousHash(Hash.fromHex("00B2D1F3C2D4E8AF6E5A6B0E4E2C8D1A9F3B7C6D5E4F3A2B1C0D9E8F7A6B5C4D"));
+        block.setNonce(java.math.BigInteger.valueOf(12345));
+    }
+
+    /**
+     * Hash the block once. The difficulty does not change the cost, only the last characters of the message.
+     *
+     * @return The hash, consumed by JMH.
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public Hash calculateHash() throws NoSuchAlgorithmException {
+        return block.calculateHash();
+    }
+
+    /**
+     * Mine the block from nonce 0 on the benchmark thread.
+     *
+     * @return The hash found, consumed by JMH.
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2, time = 2)
+    @Measurement(iterations = 3, time = 5)
+    public Hash proofOfWork() throws NoSuchAlgorithmException {
+        return block.proofOfWork();
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * ChainBenchmark Class Documentation
+ *
+ * JMH benchmarks for a whole `BlockChain` of 1k, 10k and 100k blocks: `isChainValid()`, `toString()`, streaming
+ * with `ChainWriter` and the aggregates of a status request (`repairChain()` is in `RepairChainBenchmark`). The chains are built from blocks with fixed timestamps and data at
+ * difficulty 1, so they are identical on every run and only the size of the chain drives the cost.
+ */
+
+package ds.project3task1;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 5)
+public class ChainBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    int chainLength;
+
+    // the chain used by all benchmarks
+    BlockChain bc;
+
+    /**
+     * Build a chain of the requested length.
+     *
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    @Setup(Level.Trial)
+    public void buildChain() throws NoSuchAlgorithmException {
+        bc = buildChain(chainLength);
+    }
+
+    /**
+     * Build a reproducible chain: genesis at difficulty 2 like the server, then blocks at difficulty 1.
+     *
+     * @param length The number of blocks, genesis included.
+     * @return The mined chain.
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    static BlockChain buildChain(int length) throws NoSuchAlgorithmException {
+        BlockChain chain = new BlockChain();
+        chain.addBlock(new Block(0, new Timestamp(BlockBenchmark.BASE_TIME), "Genesis", 2));
+        for (int i = 1; i < length; i++) {
+            Timestamp t = new Timestamp(BlockBenchmark.BASE_TIME + i * 1000L);
+            chain.addBlock(new Block(i, t, "Transaction " + i + ": Yi Guo pays Marty " + i + " DSCoin", 1));
+        }
+        return chain;
+    }
+
+    /**
+     * Validate the whole chain.
+     *
+     * @return The validation result, consumed by JMH.
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    @Benchmark
+    public String isChainValid() throws NoSuchAlgorithmException {
+        return bc.isChainValid();
+    }
+
+    /**
+     * Serialize the whole chain to JSON.
+     *
+     * @return The JSON string, consumed by JMH.
+     */
+    @Benchmark
+    public String chainToString() {
+        return bc.toString();
+    }
+
+    /**
+     * Read the aggregates the server sends for a status request; they should cost the same at every chain length.
+     *
+     * @return The total expected hashes plus the other aggregates, consumed by JMH.
+     */
+    @Benchmark
+    public double status() {
+        return bc.getTotalExpectedHashes() + bc.getTotalDifficulty() + bc.getDifficultyHistogram().size()
+                + bc.getAverageBlockMillis() + bc.getMiningMillis();
+    }
+
+    /**
+     * Stream the whole chain as JSON to a writer that discards it, as the server does to its socket.
+     *
+     * @throws IOException never, the writer discards its input.
+     */
+    @Benchmark
+    public void chainToWriter() throws IOException {
+        new ChainWriter(bc).write(Writer.nullWriter());
+    }
+}
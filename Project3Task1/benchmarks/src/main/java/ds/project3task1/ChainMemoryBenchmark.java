@@ -0,0 +1,154 @@
+/**
+ * ChainMemoryBenchmark Class Documentation
+ *
+ * JMH benchmarks of the two `BlockStorage` backends of a `BlockChain` of 100k and 1M BINARY blocks: one `Block`
+ * object per block (`objects`) against primitive parallel arrays and a byte arena (`columnar`). `buildChain` builds the
+ * chain once per iteration and reports the heap it retains per block in the `bytesPerBlock` counter, measured after a
+ * full collection before and after the build, in a single measured iteration since JMH sums the counter over
+ * iterations. The chain holds its index and aggregates too, so the difference between the two backends is what the
+ * storage saves. `isChainValid` shows what the views of the columnar storage cost a
+ * full validation, which reads every block.
+ */
+
+package ds.project3task1;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class ChainMemoryBenchmark {
+
+    @Param({"100000", "1000000"})
+    int chainLength;
+
+    @Param({"objects", "columnar"})
+    String storage;
+
+    // the chain validated by isChainValid
+    BlockChain bc;
+
+    /**
+     * The heap retained per block by the chain built in an iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Memory {
+        // the heap used before the chain was built
+        long before;
+        // the chain built in the iteration, kept until its size is measured
+        BlockChain chain;
+        // reported by JMH
+        public long bytesPerBlock;
+
+        /**
+         * Drop the last chain and measure the heap before the next one is built.
+         */
+        @Setup(Level.Iteration)
+        public void measureBefore() {
+            chain = null;
+            before = usedHeap();
+        }
+
+        /**
+         * Measure the heap retained by the chain built in the iteration.
+         */
+        @TearDown(Level.Iteration)
+        public void measureAfter() {
+            if (chain != null) {
+                bytesPerBlock = (usedHeap() - before) / chain.getChainSize();
+            }
+        }
+    }
+
+    /**
+     * Build the chain validated by `isChainValid`.
+     *
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    @Setup(Level.Trial)
+    public void buildValidatedChain() throws NoSuchAlgorithmException {
+        bc = buildChain(chainLength, storage);
+    }
+
+    /**
+     * Build a reproducible chain of BINARY blocks at difficulty 1 in the given storage.
+     *
+     * @param length The number of blocks, genesis included.
+     * @param storage `objects` or `columnar`.
+     * @return The mined chain.
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    static BlockChain buildChain(int length, String storage) throws NoSuchAlgorithmException {
+        BlockChain chain = new BlockChain("columnar".equals(storage) ? new ColumnarBlockStorage()
+                : new ObjectBlockStorage());
+        chain.addBlock(new Block(0, new Timestamp(BlockBenchmark.BASE_TIME), "[\"Genesis\"]", 1, Block.BINARY));
+        for (int i = 1; i < length; i++) {
+            Timestamp t = new Timestamp(BlockBenchmark.BASE_TIME + i * 1000L);
+            chain.addBlock(new Block(i, t, "[\"Transaction " + i + ": Yi Guo pays Marty " + i + " DSCoin\"]", 1,
+                    Block.BINARY));
+        }
+        return chain;
+    }
+
+    /**
+     * Get the heap used after a full collection.
+     *
+     * @return The used heap in bytes.
+     */
+    static long usedHeap() {
+        MemoryMXBean bean = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return bean.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Build a chain, kept until the end of the iteration so that its size can be measured.
+     *
+     * @param memory The counters of the iteration, filled at its end.
+     * @return The chain hash, consumed by JMH.
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Measurement(iterations = 1)
+    public Hash buildChain(Memory memory) throws NoSuchAlgorithmException {
+        memory.chain = buildChain(chainLength, storage);
+        return memory.chain.getChainHash();
+    }
+
+    /**
+     * Validate the whole chain, reading every block.
+     *
+     * @return The validation result, consumed by JMH.
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public String isChainValid() throws NoSuchAlgorithmException {
+        return bc.isChainValid(ValidationMode.FULL);
+    }
+}
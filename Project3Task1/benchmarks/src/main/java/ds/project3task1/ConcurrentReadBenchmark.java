@@ -0,0 +1,105 @@
+/**
+ * ConcurrentReadBenchmark Class Documentation
+ *
+ * JMH stress benchmark of concurrent reads of a `BlockChain` during continuous block production: in one group, four
+ * threads read the head of the chain and three read random blocks, while one writer thread mines and adds blocks at
+ * difficulty 1 without pause. Every read checks that what it saw is consistent (the chain hash is the hash of the
+ * latest block, which sits at position size - 1, and a block read by index has that index) and fails the benchmark
+ * with an `IllegalStateException` if a read was torn. The reader scores show that reads do not wait for mining.
+ * The chain starts again from its genesis block at every iteration, so it does not grow through the whole run.
+ */
+
+package ds.project3task1;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Group)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 5)
+public class ConcurrentReadBenchmark {
+
+    // the chain read and extended by the group
+    BlockChain bc;
+
+    /**
+     * Start a new chain with its genesis block.
+     *
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    @Setup(Level.Iteration)
+    public void newChain() throws NoSuchAlgorithmException {
+        bc = new BlockChain();
+        bc.addBlock(new Block(0, new Timestamp(BlockBenchmark.BASE_TIME), "Genesis", 1, Block.BINARY));
+    }
+
+    /**
+     * Mine and add the next block.
+     *
+     * @return The new chain hash, consumed by JMH.
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    @Benchmark
+    @Group("readDuringMining")
+    @GroupThreads(1)
+    public Hash addBlock() throws NoSuchAlgorithmException {
+        int i = bc.getChainSize();
+        bc.addBlock(new Block(i, new Timestamp(BlockBenchmark.BASE_TIME + i * 1000L),
+                "Transaction " + i + ": Yi Guo pays Marty " + i + " DSCoin", 1, Block.BINARY));
+        return bc.getChainHash();
+    }
+
+    /**
+     * Read the head of the chain and check that its parts belong together.
+     *
+     * @return The latest block, consumed by JMH.
+     */
+    @Benchmark
+    @Group("readDuringMining")
+    @GroupThreads(4)
+    public Block readHead() {
+        BlockChain.Head head = bc.getHead();
+        Block latest = head.getLatestBlock();
+        if (latest.getIndex() != head.getSize() - 1 || !head.getChainHash().equals(latest.getVerifiedHash())) {
+            throw new IllegalStateException("Torn read: size " + head.getSize() + ", latest block "
+                    + latest.getIndex() + ", chain hash " + head.getChainHash());
+        }
+        return latest;
+    }
+
+    /**
+     * Read a random block of the chain and check that it is the block at that position.
+     *
+     * @return The block, consumed by JMH.
+     */
+    @Benchmark
+    @Group("readDuringMining")
+    @GroupThreads(3)
+    public Block readBlock() {
+        int i = ThreadLocalRandom.current().nextInt(bc.getChainSize());
+        Block block = bc.getBlock(i);
+        if (block.getIndex() != i) {
+            throw new IllegalStateException("Torn read: block " + block.getIndex() + " at position " + i);
+        }
+        return block;
+    }
+}
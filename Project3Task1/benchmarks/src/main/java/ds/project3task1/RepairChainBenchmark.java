@@ -0,0 +1,73 @@
+/**
+ * RepairChainBenchmark Class Documentation
+ *
+ * JMH benchmark for `BlockChain.repairChain()` on chains of 1k, 10k and 100k blocks. Before every invocation the
+ * block in the middle of the chain gets new data, so every repair starts from a corrupted chain. Each invocation is
+ * timed on its own (single shot), since a repair changes the state the next one starts from.
+ */
+
+package ds.project3task1;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, batchSize = 1)
+@Measurement(iterations = 5, batchSize = 1)
+public class RepairChainBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    int chainLength;
+
+    // the chain corrupted and repaired by the benchmark
+    BlockChain bc;
+    // the number of corruptions so far, so that every corruption changes the data
+    int corruptions;
+
+    /**
+     * Build the chain once per trial.
+     *
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    @Setup(Level.Trial)
+    public void buildChain() throws NoSuchAlgorithmException {
+        bc = ChainBenchmark.buildChain(chainLength);
+    }
+
+    /**
+     * Corrupt the block in the middle of the chain.
+     */
+    @Setup(Level.Invocation)
+    public void corrupt() {
+        corruptions++;
+        bc.getBlock(chainLength / 2).setData("Corruption " + corruptions);
+    }
+
+    /**
+     * Repair the corrupted chain.
+     *
+     * @return The repaired chain hash, consumed by JMH.
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    @Benchmark
+    public Hash repairChain() throws NoSuchAlgorithmException {
+        bc.repairChain();
+        return bc.getChainHash();
+    }
+}
@@ -0,0 +1,113 @@
+/**
+ * VectorMinerBenchmark Class Documentation
+ *
+ * JMH benchmarks of the hashing rate of the `NonceScanner`s: the scalar `BlockHasher` against the SIMD
+ * `VectorBlockHasher` with 4, 8 and 16 lanes of 32 bits, each shape in its own fork whose vectors are limited with
+ * `-XX:MaxVectorSize`. Every invocation scans the same `RANGE` nonces of a `Block.BINARY` block whose difficulty is
+ * too high for any of them to be valid, so the score, in operations per microsecond, is millions of hashes per
+ * second.
+ */
+
+package ds.project3task1;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigInteger;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class VectorMinerBenchmark {
+    // the nonces scanned per invocation
+    static final int RANGE = 1 << 16;
+
+    // the scalar scanner, in every fork
+    BlockHasher scalar;
+    // the vector scanner, only in the forks started with the Vector API module
+    NonceScanner vector;
+
+    /**
+     * Create the block and prepare both scanners for it.
+     *
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    @Setup
+    public void setUp() throws NoSuchAlgorithmException {
+        Block block = new Block(1, new Timestamp(BlockBenchmark.BASE_TIME), "Yi Guo pays Marty 100 DSCoin", 16,
+                Block.BINARY);
+        block.setPreviousHash(Hash.fromHex("00B2D1F3C2D4E8AF6E5A6B0E4E2C8D1A9F3B7C6D5E4F3A2B1C0D9E8F7A6B5C4D"));
+        block.setNonce(BigInteger.ZERO);
+        scalar = new BlockHasher();
+        scalar.reset(block);
+        try {
+            vector = MiningEngine.newVectorScanner();
+            vector.reset(block);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // the scalar fork has no Vector API
+            vector = null;
+        }
+    }
+
+    /**
+     * Scan the range one nonce at a time.
+     *
+     * @return -1, consumed by JMH.
+     */
+    @Benchmark
+    @Fork(1)
+    @OperationsPerInvocation(RANGE)
+    public long scalar() {
+        return scalar.scan(0, RANGE);
+    }
+
+    /**
+     * Scan the range 4 nonces per step (SSE, NEON).
+     *
+     * @return -1, consumed by JMH.
+     */
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector", "-XX:MaxVectorSize=16"})
+    @OperationsPerInvocation(RANGE)
+    public long vector4() {
+        return vector.scan(0, RANGE);
+    }
+
+    /**
+     * Scan the range 8 nonces per step (AVX2).
+     *
+     * @return -1, consumed by JMH.
+     */
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector", "-XX:MaxVectorSize=32"})
+    @OperationsPerInvocation(RANGE)
+    public long vector8() {
+        return vector.scan(0, RANGE);
+    }
+
+    /**
+     * Scan the range 16 nonces per step (AVX-512).
+     *
+     * @return -1, consumed by JMH.
+     */
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector", "-XX:MaxVectorSize=64"})
+    @OperationsPerInvocation(RANGE)
+    public long vector16() {
+        return vector.scan(0, RANGE);
+    }
+}
@@ -0,0 +1,100 @@
+#!/bin/bash
+# Starts three servers that gossip blocks to each other, adds blocks, kills the third server, adds more blocks on the
+# other two, restarts the third on its stored chain and checks that it catches up to the same chain hash.
+# Run from anywhere: scripts/peer-restart-test.sh [base port, default 16800]. Exits 1 if the nodes do not agree.
+
+set -u
+cd "$(dirname "$0")/.."
+mvn -B -q compile || exit 1
+GSON=$(find ~/.m2 -name 'gson-*.jar' | head -n 1)
+CP=target/classes:$GSON
+BASE=${1:-16800}
+WORK=$(mktemp -d)
+declare -a PIDS
+
+# start node N (1..3) on its stored chain, with the other two as peers
+start() {
+    local peers=""
+    for m in 1 2 3; do
+        if [ "$m" != "$1" ]; then
+            peers="$peers${peers:+,}localhost:$((BASE + 100 + m))"
+        fi
+    done
+    java -cp "$CP" ds.project3task1.EchoServerTCP "$WORK/node$1" --port $((BASE + $1)) \
+        --peer-port $((BASE + 100 + $1)) --peers "$peers" >> "$WORK/node$1.log" 2>&1 &
+    PIDS[$1]=$!
+}
+
+stop() {
+    kill "${PIDS[$1]}" 2> /dev/null
+    wait "${PIDS[$1]}" 2> /dev/null
+}
+
+cleanup() {
+    for n in 1 2 3; do
+        stop $n
+    done
+    rm -rf "$WORK"
+}
+trap cleanup EXIT
+
+# the chain hash of node N, empty while it does not answer
+hash() {
+    printf '0\n6\n' | timeout 20 java -cp "$CP" ds.project3task1.EchoClientTCP $((BASE + $1)) 2> /dev/null \
+        | sed -n 's/^Chain hash: //p'
+}
+
+# add a block with a transaction to node N at a difficulty
+add() {
+    printf '1\n%s\n%s\n6\n' "$2" "$3" | timeout 60 java -cp "$CP" ds.project3task1.EchoClientTCP $((BASE + $1)) \
+        > /dev/null 2>&1
+}
+
+# wait until the listed nodes answer with the same chain hash
+agree() {
+    local first h
+    for _ in $(seq 60); do
+        first=$(hash "$1")
+        if [ -n "$first" ]; then
+            for n in "$@"; do
+                h=$(hash "$n")
+                [ "$h" = "$first" ] || continue 2
+            done
+            echo "nodes $* agree on $first"
+            return 0
+        fi
+        sleep 1
+    done
+    for n in "$@"; do
+        echo "node $n: $(hash "$n")"
+    done
+    return 1
+}
+
+fail() {
+    echo "FAIL: $1"
+    for n in 1 2 3; do
+        echo "--- node $n"
+        cat "$WORK/node$n.log"
+    done
+    exit 1
+}
+
+start 1
+sleep 3
+start 2
+start 3
+agree 1 2 3 || fail "the nodes did not start on the same chain"
+
+add 1 2 "alice pays bob"
+add 2 2 "bob pays carol"
+agree 1 2 3 || fail "the nodes did not agree after the first blocks"
+
+stop 3
+add 1 2 "carol pays dave"
+add 2 3 "dave pays erin"
+agree 1 2 || fail "the running nodes did not agree while node 3 was down"
+
+start 3
+agree 1 2 3 || fail "node 3 did not catch up after its restart"
+echo PASS
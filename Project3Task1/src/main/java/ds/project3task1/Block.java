@@ -0,0 +1,595 @@
+/**
+ * Author: Yi Guo (Andrew ID:yiguo)
+ * Last Modified: Oct 27th, 2023
+ *
+ * The `Block` class represents a block in a blockchain.
+ * Each block contains information about transactions and is linked to the previous block in the chain.
+ *
+ * Class Fields:
+ * - `index` (int): The index of the block within the blockchain.
+ * - `timestamp` (java.sql.Timestamp): The timestamp indicating when the block was created.
+ * - `data` (String): Transactions stored in the block.
+ * - `previousHash` (Hash): The hash of the previous block in the blockchain, `Hash.ZERO` for the genesis block.
+ * - `nonce` (BigInteger): A BigInteger value determined by a proof of work routine.
+ * - `difficulty` (int): The difficulty level of the proof-of-work algorithm: leading hex zeroes, or leading zero bits
+ *   for a `TARGET` block.
+ * - `owner` (BlockChain): The chain this block was added to, told about every change of a hashed field.
+ * - `position` (int): The position of the block in its chain (unlike `index`, it can not be corrupted).
+ * - `verifiedHash` (Hash): The hash of the block when it was last mined or verified.
+ * - `version` (int): How the block is hashed: `LEGACY` hashes the data, `MERKLE` hashes the Merkle root of the transactions,
+ *   `BINARY` hashes the binary `BlockHeader`, which holds the Merkle root of the transactions, and `TARGET` hashes it
+ *   too but counts its difficulty in bits.
+ * - `transactions` (List<String>): The transactions of the data of a `MERKLE` block, parsed once.
+ * - `merkleRoot` (Hash): The Merkle root of the transactions of a `MERKLE` block, computed once.
+ *
+ * A `MERKLE` block holds a JSON array of transactions as its data. Its hash covers the Merkle root of the
+ * transactions in place of the data, so every mining attempt hashes a short header, and one transaction can be proved
+ * to be in the block with `proveTransaction` without sending the whole block.
+ *
+ * `LEGACY` and `MERKLE` blocks hash a comma-joined string that holds `Timestamp.toString()`, so their hash depends on
+ * the time zone of the JVM that computes it; they are kept so that existing chains still validate. A `BINARY` block
+ * holds its transactions like a `MERKLE` block, but hashes the fixed-layout `BlockHeader`, with the timestamp in
+ * nanoseconds since the epoch, so its hash is the same everywhere and costs no string building.
+ *
+ * The difficulty of every other version counts leading hex zeroes, so one step multiplies the expected work by 16. A
+ * `TARGET` block is a `BINARY` block whose difficulty counts leading zero bits instead: its hash, read as a 256-bit
+ * number, must be below the target 2^(256 - difficulty), and one step doubles the work. Both kinds are checked
+ * through `getZeroBits()`, 4 bits per hex zero, so blocks of every version validate side by side.
+ *
+ * Constructors:
+ * - `Block(int index, java.sql.Timestamp timestamp, String data, int difficulty)`: Creates a new block with the specified index, timestamp, data, and difficulty.
+ * - `Block(int index, java.sql.Timestamp timestamp, String data, int difficulty, int version)`: Creates a new block of the given version.
+ *
+ * Methods:
+ * - `calculateHash()`: Calculate and return the hash of the concatenation of the index, timestamp, data, previousHash, nonce, and difficulty,
+ *   or of the binary header of a `BINARY` or `TARGET` block.
+ * - `getNonce()`: Get the nonce value of the block. The nonce is a number that has been found to cause the hash of this block to have the correct number of leading hexadecimal zeroes.
+ * - `proofOfWork() throws NoSuchAlgorithmException`: Perform a proof-of-work algorithm to find a valid hash for the block.
+ * - `proofOfWork(MiningProgress progress) throws NoSuchAlgorithmException`: Perform the proof of work with progress and cancellation.
+ * - `proofOfWork(ParallelMiner miner) throws NoSuchAlgorithmException`: Perform the proof of work on several threads.
+ * - `getDifficulty()`: Get the difficulty level of the proof-of-work algorithm.
+ * - `setDifficulty(int difficulty)`: Set the difficulty level of the proof-of-work algorithm.
+ * - `getZeroBits()`: Get the number of leading zero bits the hash must have.
+ * - `zeroBits(int version, int difficulty)`: Convert a difficulty to leading zero bits.
+ * - `expectedHashes(int version, int difficulty)`: Get the average number of hashes needed to mine a difficulty.
+ * - `toString()`: Convert the block's information into a JSON-formatted string.
+ * - `setPreviousHash(Hash previousHash)`: Set the previous block's hash.
+ * - `getPreviousHash()`: Get the hash of the previous block.
+ * - `getIndex()`: Get the index of the block.
+ * - `setIndex(int index)`: Set the index of the block.
+ * - `setTimestamp(java.sql.Timestamp timestamp)`: Set the timestamp of the block.
+ * - `getTimestamp()`: Get the timestamp of the block.
+ * - `getData()`: Get the data stored in the block.
+ * - `setData(String data)`: Set the data stored in the block.
+ * - `getVerifiedHash()`: Get the hash of the block when it was last mined or verified.
+ * - `getVersion()`: Get how the block is hashed.
+ * - `isBinary()`: Check whether the block is hashed as its binary header.
+ * - `getTransactions()`: Get the transactions of the block.
+ * - `getMerkleRoot()`: Get the Merkle root of the transactions of a `MERKLE`, `BINARY` or `TARGET` block.
+ * - `proveTransaction(int position)`: Build the inclusion proof of one transaction of a block that is not `LEGACY`.
+ *
+ * Every setter of a hashed field (and the proof of work, which changes the nonce) marks the block dirty in its chain,
+ * so that the chain can re-verify only the blocks that changed since they were last verified. A new difficulty is
+ * also reported to the chain, which keeps the total difficulty of its blocks up to date. The chain also writes every
+ * change and every verification back to its storage, which matters when the block is a view of a columnar storage.
+ *
+ */
+
+package ds.project3task1;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.List;
+
+public class Block {
+    // the version of blocks whose hash covers their data
+    public static final int LEGACY = 1;
+    // the version of blocks whose hash covers the Merkle root of their transactions
+    public static final int MERKLE = 2;
+    // the version of blocks whose hash covers their binary header, with the Merkle root of their transactions
+    public static final int BINARY = 3;
+    // the version of blocks hashed like BINARY blocks, whose difficulty counts leading zero bits
+    public static final int TARGET = 4;
+
+    // The position of the block on the chain. The first block (the so called Genesis block) has an index of 0.
+    private int index;
+    // a Java Timestamp object, it holds the time of the block's creation.
+    private java.sql.Timestamp timestamp;
+    // a String holding the block's single transaction details.
+    private java.lang.String data;
+    // the SHA256 hash of a block's parent. This is also called a hash pointer.
+    private Hash previousHash;
+    //  a BigInteger value determined by a proof of work routine. This has to be found by the proof of work logic.
+    //  It has to be found so that this block has a hash of the proper difficulty.
+    private BigInteger nonce;
+    // a small integer representing the minimum number of leading hex zeroes the hash must have,
+    // or of leading zero bits for a TARGET block.
+    private int difficulty;
+    // the chain this block was added to, null until it is added
+    private BlockChain owner;
+    // the position of the block in its chain
+    private int position;
+    // the hash of the block when it was last mined or verified, null if it never was
+    private Hash verifiedHash;
+    // how the block is hashed, LEGACY, MERKLE, BINARY or TARGET
+    private final int version;
+    // the parsed transactions of a MERKLE block, null until needed
+    private List<String> transactions;
+    // the Merkle root of a MERKLE block, null until needed
+    private Hash merkleRoot;
+
+    /**
+     * Constructor to create a new block with the specified properties.
+     *
+     * @param index The index of the block within the blockchain.
+     * @param timestamp The timestamp indicating when the block was created.
+     * @param data Transactions stored in the block.
+     * @param difficulty The difficulty level of the proof-of-work algorithm.
+     */
+    public Block(int index,
+                 java.sql.Timestamp timestamp,
+                 java.lang.String data,
+                 int difficulty) {
+        this(index, timestamp, data, difficulty, LEGACY);
+    }
+
+    /**
+     * Constructor to create a new block of the given version.
+     *
+     * @param index The index of the block within the blockchain.
+     * @param timestamp The timestamp indicating when the block was created.
+     * @param data Transactions stored in the block; a JSON array of strings for a `MERKLE`, `BINARY` or `TARGET` block.
+     * @param difficulty The difficulty level of the proof-of-work algorithm.
+     * @param version `LEGACY` to hash the data, `MERKLE` to hash the Merkle root of the transactions,
+     *                `BINARY` to hash the binary header, `TARGET` to hash it with a difficulty in bits.
+     */
+    public Block(int index,
+                 java.sql.Timestamp timestamp,
+                 java.lang.String data,
+                 int difficulty,
+                 int version) {
+        if (version < LEGACY || version > TARGET) {
+            throw new IllegalArgumentException("Unknown block version " + version);
+        }
+
+        // assign values to the instance variable
+        this.index = index;
+        this.timestamp = timestamp;
+        this.data = data;
+        this.difficulty = difficulty;
+        this.version = version;
+    }
+
+    /**
+     * Calculate and return the hash of the block based on its properties.
+     * This method computes a hash of the concatenation of the index, timestamp, data, previousHash, nonce, and difficulty.
+     * A `BINARY` or `TARGET` block is hashed as its binary `BlockHeader` instead.
+     *
+     * @return The SHA-256 hash of the block.
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    public Hash calculateHash() throws NoSuchAlgorithmException {
+        return calculateHash(nonce);
+    }
+
+    /**
+     * Calculate the hash the block would have with the given nonce, without changing the block.
+     * This lets several mining threads try different nonces on the same block at once.
+     *
+     * @param nonce The nonce to hash the block with.
+     * @return The SHA-256 hash of the block.
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    Hash calculateHash(BigInteger nonce) throws NoSuchAlgorithmException {
+        if (isBinary()) {
+            byte[] header = new byte[BlockHeader.SIZE];
+            BlockHeader.encode(this, nonce == null ? 0 : nonce.longValue(), header, 0);
+            return Hash.of(MessageDigest.getInstance("SHA-256").digest(header));
+        }
+
+        // concatenation of the index, timestamp, data (or Merkle root), previousHash, nonce, and difficulty
+        String message = index + "," + timestamp.toString() + "," + getHashedData() + "," + previousHash + "," + nonce + "," + difficulty;
+
+        // calculate SHA-256 hash of the concatenation
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        return Hash.of(md.digest(message.getBytes()));
+    }
+
+    /**
+     * Get the part of the hash message that stands for the transactions: the data of a `LEGACY` block,
+     * the Merkle root of the other blocks.
+     *
+     * @return The hashed form of the data.
+     */
+    java.lang.String getHashedData() {
+        return version == LEGACY ? data : getMerkleRoot().toString();
+    }
+
+    /**
+     * Get how the block is hashed.
+     *
+     * @return `LEGACY`, `MERKLE`, `BINARY` or `TARGET`.
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Check whether the block is hashed as its binary `BlockHeader`.
+     *
+     * @return true for a `BINARY` or `TARGET` block.
+     */
+    public boolean isBinary() {
+        return version >= BINARY;
+    }
+
+    /**
+     * Get the transactions of the block. The data of a `MERKLE`, `BINARY` or `TARGET` block is parsed as a JSON array
+     * of strings; data that is not such an array (for example after the block was corrupted) counts as one transaction.
+     * A `LEGACY` block holds a single transaction, its data.
+     *
+     * @return The transactions, in block order; the list can not be modified.
+     */
+    public synchronized List<java.lang.String> getTransactions() {
+        if (version == LEGACY) {
+            return Collections.singletonList(data);
+        }
+        if (transactions == null) {
+            List<String> parsed = null;
+            try {
+                parsed = new Gson().fromJson(data, new TypeToken<List<String>>() { }.getType());
+            } catch (JsonParseException e) {
+                // not a JSON array of strings
+            }
+            transactions = Collections.unmodifiableList(parsed == null || parsed.contains(null)
+                    ? Collections.singletonList(data) : parsed);
+        }
+        return transactions;
+    }
+
+    /**
+     * Get the Merkle root of the transactions of a `MERKLE`, `BINARY` or `TARGET` block, computed once per change of
+     * the data.
+     *
+     * @return The root, or null for a `LEGACY` block.
+     */
+    public synchronized Hash getMerkleRoot() {
+        if (version == LEGACY) {
+            return null;
+        }
+        if (merkleRoot == null) {
+            merkleRoot = MerkleTree.root(getTransactions());
+        }
+        return merkleRoot;
+    }
+
+    /**
+     * Build the proof that one transaction is in this block, checked with `MerkleTree.verify` against
+     * the Merkle root in the block header.
+     *
+     * @param position The position of the transaction in the block.
+     * @return The inclusion proof.
+     */
+    public MerkleTree.Proof proveTransaction(int position) {
+        if (version == LEGACY) {
+            throw new IllegalStateException("Block " + index + " has no Merkle tree");
+        }
+        return MerkleTree.prove(getTransactions(), position);
+    }
+
+    /**
+     * Get the nonce value of the block.
+     *
+     * @return The nonce value.
+     */
+    public java.math.BigInteger getNonce() {
+        return nonce;
+    }
+
+    /**
+     * Set the nonce value of the block. Used by miners that search the nonce space outside the block.
+     *
+     * @param nonce The nonce value found by the proof of work.
+     */
+    void setNonce(java.math.BigInteger nonce) {
+        this.nonce = nonce;
+        changed();
+    }
+
+    /**
+     * The proof of work methods finds a good hash. It increments the nonce until it produces a good hash.
+     * Each attempt computes the same hash as calculateHash(), the hash of the concatenation of the index, timestamp, data, previousHash, nonce, and difficulty,
+     * but through the BlockHasher of the calling thread, which only re-encodes the nonce and checks the leading zeroes on the digest bytes.
+     * When `MiningEngine` uses the Vector API, binary blocks are searched several nonces per step instead; the nonce found and its hash are the same.
+     * If the hash has the appropriate number of leading hex zeroes, it is done and returns that proper hash.
+     * If the hash does not have the appropriate number of leading hex zeroes, it increments the nonce by 1 and tries again.
+     *
+     * @return a hash that has the appropriate number of leading hex zeroes.
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    public Hash proofOfWork() throws NoSuchAlgorithmException {
+        return proofOfWork((MiningProgress) null);
+    }
+
+    /**
+     * The proof of work on the calling thread, reporting the nonces tried and stopping when cancelled.
+     *
+     * @param progress The progress to report to and check for cancellation, or null.
+     * @return a hash that has the appropriate number of leading hex zeroes.
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     * @throws java.util.concurrent.CancellationException if the progress was cancelled; the block is unchanged.
+     */
+    public Hash proofOfWork(MiningProgress progress) throws NoSuchAlgorithmException {
+        // encode the parts of the block that do not change with the nonce
+        NonceScanner scanner = MiningEngine.forCurrentThread();
+        scanner.reset(this);
+
+        // start with nonce 0 and search the nonces in order, REPORT_INTERVAL at a time, until one gives the
+        // hash the appropriate number of leading hex zeros
+        long from = 0;
+        long n;
+        while ((n = scanner.scan(from, from + MiningProgress.REPORT_INTERVAL)) < 0) {
+            from += MiningProgress.REPORT_INTERVAL;
+            if (progress != null) {
+                progress.addNonces(MiningProgress.REPORT_INTERVAL);
+                progress.checkCancelled();
+            }
+        }
+        if (progress != null) {
+            progress.addNonces(n - from + 1);
+        }
+        nonce = BigInteger.valueOf(n);
+        changed();
+        // return the hash with the appropriate number of leading hex zeros
+        return scanner.getHash();
+
+    }
+
+    /**
+     * The proof of work done by a multi-threaded miner. The nonce space is searched by the miner's worker
+     * threads and the nonce found is stored in this block, just like `proofOfWork()` does.
+     *
+     * @param miner The miner used to search the nonce space.
+     * @return a hash that has the appropriate number of leading hex zeroes.
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    public Hash proofOfWork(ParallelMiner miner) throws NoSuchAlgorithmException {
+        return miner.mine(this, null);
+    }
+
+    /**
+     * Get the difficulty level of the proof-of-work algorithm.
+     *
+     * @return The current difficulty level.
+     */
+    public int getDifficulty() {
+        return difficulty;
+    }
+
+    /**
+     * Set the difficulty level of the proof-of-work algorithm.
+     *
+     * @param difficulty The new difficulty level to set.
+     */
+    public void setDifficulty(int difficulty) {
+        int old = this.difficulty;
+        this.difficulty = difficulty;
+        if (owner != null) {
+            owner.difficultyChanged(position, version, old, difficulty);
+        }
+        changed();
+    }
+
+    /**
+     * Get the number of leading zero bits the hash of the block must have.
+     *
+     * @return The difficulty of a `TARGET` block, 4 bits per hex zero for the other blocks.
+     */
+    public int getZeroBits() {
+        return zeroBits(version, difficulty);
+    }
+
+    /**
+     * Convert a difficulty to the number of leading zero bits it requires.
+     *
+     * @param version The version of the block.
+     * @param difficulty The difficulty, in bits for a `TARGET` block and in hex zeroes otherwise.
+     * @return The number of leading zero bits.
+     */
+    public static int zeroBits(int version, int difficulty) {
+        return version == TARGET ? difficulty : difficulty * 4;
+    }
+
+    /**
+     * Get the average number of hashes needed to mine a block of the given difficulty: every hash has the same
+     * 2^-bits chance to have enough leading zero bits.
+     *
+     * @param version The version of the block.
+     * @param difficulty The difficulty, in bits for a `TARGET` block and in hex zeroes otherwise.
+     * @return 2^bits, that is 16^difficulty for a block counted in hex zeroes.
+     */
+    public static double expectedHashes(int version, int difficulty) {
+        return Math.pow(2, zeroBits(version, difficulty));
+    }
+
+
+    /**
+     * Convert the block's information into a JSON-formatted string.
+     *
+     * @return A JSON-formatted string representing the block's data.
+     */
+    public java.lang.String toString() {
+        // create a new JSON object
+        // add new properties to it and pass the value
+        JsonObject message = new JsonObject();
+        message.addProperty("index", index);
+        message.addProperty("time stamp", timestamp.toString());
+        message.addProperty("Tx", data);
+        message.addProperty("PrevHash", previousHash == null ? null : previousHash.toString());
+        message.addProperty("nonce", nonce);
+        message.addProperty("difficulty", difficulty);
+        if (version != LEGACY) {
+            message.addProperty("version", version);
+            message.addProperty("MerkleRoot", getMerkleRoot().toString());
+        }
+
+        return message.toString().replace("\\", "");
+    }
+
+    /**
+     * Set the previous block's hash for linking.
+     *
+     * @param previousHash The hash of the previous block to set.
+     */
+    public void setPreviousHash(Hash previousHash) {
+        this.previousHash = previousHash;
+        changed();
+    }
+
+    /**
+     * Get the hash of the previous block.
+     *
+     * @return The hash of the previous block in the blockchain.
+     */
+    public Hash getPreviousHash() {
+        return previousHash;
+    }
+
+    /**
+     * Get the index of the block.
+     *
+     * @return The index of the block within the blockchain.
+     */
+
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Set the index of the block.
+     *
+     * @param index The new index to set for the block.
+     */
+    public void setIndex(int index) {
+        this.index = index;
+        changed();
+    }
+
+    /**
+     * Set the timestamp of the block.
+     *
+     * @param timestamp The new timestamp to set for the block.
+     */
+    public void setTimestamp(java.sql.Timestamp timestamp) {
+        this.timestamp = timestamp;
+        changed();
+    }
+
+    /**
+     * Get the timestamp of the block.
+     *
+     * @return The timestamp indicating when the block was created.
+     */
+    public java.sql.Timestamp getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Get the data stored in the block.
+     *
+     * @return The data or transactions stored in the block.
+     */
+    public java.lang.String getData() {
+        return data;
+    }
+
+    /**
+     * Set the data stored in the block.
+     *
+     * @param data The new data to set for the block.
+     */
+    public void setData(java.lang.String data) {
+        synchronized (this) {
+            this.data = data;
+            // the transactions and their root are computed again from the new data
+            transactions = null;
+            merkleRoot = null;
+        }
+        changed();
+    }
+
+    /**
+     * Get the hash of the block when it was last mined or verified.
+     * It is only the current hash of the block if the block is not dirty in its chain.
+     *
+     * @return The last verified hash, or null if the block was never mined or verified.
+     */
+    public Hash getVerifiedHash() {
+        return verifiedHash;
+    }
+
+    /**
+     * Record the hash of the block after it was mined or verified, and mark it clean in its chain.
+     *
+     * @param hash The current hash of the block.
+     */
+    void markVerified(Hash hash) {
+        verifiedHash = hash;
+        if (owner != null) {
+            owner.blockVerified(position, this);
+        }
+    }
+
+    /**
+     * Set the Merkle root of the transactions when it is already known, so that it is not computed again.
+     * Used by `ColumnarBlockStorage`, which keeps the root of every block.
+     *
+     * @param root The Merkle root of the current data.
+     */
+    synchronized void setMerkleRoot(Hash root) {
+        merkleRoot = root;
+    }
+
+    /**
+     * Attach the block to the chain it is added to. A block that was never verified starts dirty.
+     *
+     * @param owner The chain the block is added to.
+     * @param position The position of the block in that chain.
+     */
+    void attach(BlockChain owner, int position) {
+        this.owner = owner;
+        this.position = position;
+        if (verifiedHash == null) {
+            owner.markDirty(position);
+        }
+    }
+
+    /**
+     * Detach the block from its chain, after the chain dropped it for the block of a peer at the same position.
+     * Later changes to the block are not reported to the chain any more.
+     */
+    void detach() {
+        owner = null;
+    }
+
+    /**
+     * Tell the chain that a hashed field of this block changed.
+     */
+    private void changed() {
+        if (owner != null) {
+            owner.blockChanged(position, this);
+        }
+    }
+
+    // Main method (not used in this class)
+    public static void main(java.lang.String[] args) {
+    }
+
+
+}
@@ -0,0 +1,1345 @@
+/**
+ * Author: Yi Guo (Andrew ID:yiguo)
+ * Last Modified: Oct 27th, 2023
+ * BlockChain Class Documentation
+ *
+ * The `BlockChain` class represents a simple blockchain and provides methods for managing and interacting with the blockchain.
+ *
+ * Class Fields:
+ * - `storage` (BlockStorage): The blocks in the blockchain; an empty position is a stored block that was not read yet.
+ * - `chainHash` (Hash): The SHA256 hash of the most recently added Block, `Hash.ZERO` for an empty chain.
+ * - `lock` (StampedLock): Guards `storage` and `chainHash`.
+ * - `hashesPerSecond` (int): The approximate number of hashes per second on this computer.
+ * - `miner` (Miner): The miner used for proof of work, threads or a pool of workers, or null to mine on the calling
+ *   thread.
+ * - `validator` (ChainValidator): The validator that hashes each block once to check the chain.
+ * - `dirtyBlocks` (BitSet): The positions of the blocks changed since they were last mined or verified.
+ * - `store` (BlockStore): The on-disk store of the mined blocks, or null for a chain kept in memory only.
+ * - `producer` (ExecutorService): The thread mining the blocks added with `addBlockAsync`, created on first use.
+ * - `index` (ChainIndex): The hash and transaction indexes of the blocks, used by `findBlock` and `searchTransactions`.
+ * - `stats` (ChainStats): The running aggregates of the blocks: total difficulty, difficulty histogram, mining time.
+ * - `checkpoints` (Checkpoints): The trusted checkpoints a CHECKPOINT validation starts from.
+ * - `checkpointPolicy` (CheckpointPolicy): When a checkpoint is recorded, or null to only record them on request.
+ * - `retargetPolicy` (RetargetPolicy): Chooses the difficulty of the `Block.TARGET` blocks added, or null.
+ * - `lastCheckpointMillis` (long): The time of the last checkpoint, or the time the chain was created or opened.
+ * - `verifiedSize` (int): The number of blocks from the Genesis block on that are known to be valid.
+ * - `headListeners` (List<Consumer<Head>>): Told about every new head of the chain, such as a `PeerNode`.
+ * - `dropListeners` (List<IntConsumer>): Told where blocks were dropped for a peer's fork, such as a `Mempool`.
+ *
+ * Blocks are mined outside of any lock and added under the chain's monitor, so reads of the chain go on while a block
+ * is mined. A block whose previous block changed while it was mined (another block was added, or the chain was
+ * repaired) is mined again on the new last block. Validation and repairs hold the monitor for their whole run.
+ * Readers never take the monitor: the blocks, their number and the chain hash are guarded by a `StampedLock` whose
+ * write lock is only held for the few assignments that publish a mined block (the block, the size and the chain hash
+ * at once) or a repaired chain hash. Reads are optimistic and lock-free; a read that overlapped such an assignment is
+ * done again under the read lock. `getHead()` gives the size, the latest block and the chain hash of the same moment.
+ * The blocks of a running repair change in place; a reader sees them as they are re-mined.
+ *
+ * The blocks are kept by a `BlockStorage`: by default one `Block` object per block, or, for chains of millions of
+ * blocks, a `ColumnarBlockStorage` that keeps their fields in primitive arrays and gives a new `Block` view at every
+ * read. A view is attached to its position like any block, and every change made to it is written back to the
+ * storage under the write lock.
+ *
+ * The index follows the chain: every committed block is indexed, and a repair drops the repaired blocks from the
+ * index and indexes them again. A chain opened from a store is indexed on the first lookup, so that opening it
+ * still reads no block. The running aggregates follow the chain the same way, and are also told about every change
+ * of the difficulty of a block, so the status of the chain never loops over its blocks.
+ *
+ * Checkpoints are recorded at the last block, when the checkpoint policy is due after a block is added or the chain is
+ * validated, and only while no block changed since it was last mined or verified, and only over a prefix of the chain
+ * that is known to be valid: blocks mined here or taken verified from a peer, a prefix covered by a stored
+ * checkpoint, or a chain that passed a FULL or CHECKPOINT validation. The other blocks of a chain opened from a store
+ * are read as clean but were never hashed again, so no checkpoint covers them before such a validation. A repair
+ * drops the checkpoints from its first repaired block on. A chain opened from a directory keeps its checkpoints in
+ * the same directory.
+ *
+ * A chain replicated by a `PeerNode` can also give up its last blocks for the heavier fork of a peer: `replaceFrom`
+ * drops them and adds the blocks of the peer in their place, in the storage, the store, the index, the aggregates
+ * and the checkpoints, in one step for readers. Every new head, mined or taken from a peer, is given to the head
+ * listeners, and the position of the first dropped block to the drop listeners, so that the transactions of the
+ * dropped blocks wait for a block again.
+ *
+ * Constructors:
+ * - `BlockChain()`: Initializes an empty blockchain with default values for fields.
+ * - `BlockChain(BlockStorage storage)`: Initializes an empty blockchain whose blocks are kept by the given storage.
+ * - `BlockChain(BlockStore store)`: Continues the blockchain kept in a block store.
+ * - `BlockChain(BlockStore store, Checkpoints checkpoints)`: Continues the blockchain kept in a block store, with
+ *   its checkpoints.
+ * - `BlockChain(BlockStore store, Checkpoints checkpoints, BlockStorage storage)`: Continues the blockchain kept in a
+ *   block store, with its checkpoints, keeping the blocks read in the given storage.
+ *
+ * Public Methods:
+ *
+ * - `open(Path directory)`: Open the blockchain stored in a directory.
+ *
+ * - `getChainHash()`: Get the hash of the most recently added Block.
+ *
+ * - `getTime()`: Get the current timestamp as a `java.sql.Timestamp` object.
+ *
+ * - `getLatestBlock()`: Get the most recent block in the blockchain.
+ *
+ * - `getChainSize()`: Get the current size of the blockchain (number of blocks).
+ *
+ * - `getHead()`: Get the size, the most recent block and the chain hash of the blockchain, read together.
+ *
+ * - `computeHashesPerSecond()`: Compute the number of hash calculations performed per second.
+ *
+ * - `getHashesPerSecond()`: Get the number of hash calculations per second.
+ *
+ * - `setMiner(Miner miner)`: Set the miner used for proof of work.
+ *
+ * - `getMiner()`: Get the miner used for proof of work.
+ *
+ * - `addBlock(Block newBlock)`: Add a new block to the blockchain.
+ *
+ * - `addBlockAsync(Block newBlock)`: Mine a new block in the background and add it to the blockchain.
+ *
+ * - `addBlockAsync(Block newBlock, long timeout, TimeUnit unit)`: Mine a new block in the background, with a time limit.
+ *
+ * - `toString()`: Convert the blockchain's information into a JSON-formatted string.
+ *
+ * - `getBlock(int i)`: Get a specific block from the blockchain by its index.
+ *
+ * - `findBlock(Hash hash)`: Find the height of a block by its hash.
+ *
+ * - `searchTransactions(String query, int limit)`: Find the blocks whose transactions hold every word of a query.
+ *
+ * - `getTotalDifficulty()`: Get the total difficulty of all blocks in the blockchain, in leading zero bits.
+ *
+ * - `getTotalExpectedHashes()`: Get the total expected hashes required for the entire chain.
+ *
+ * - `getDifficultyHistogram()`: Get the number of blocks of every difficulty, in leading zero bits.
+ *
+ * - `getAverageBlockMillis()`: Get the average time between two blocks.
+ *
+ * - `getMiningMillis()`: Get the time spent mining since the chain was created or opened.
+ *
+ * - `isChainValid()`: Check if the blockchain is valid and uncorrupted.
+ *
+ * - `isChainValid(ValidationMode mode)`: Check the chain fully, only the blocks changed since they were verified, or
+ *   only the blocks since the last checkpoint.
+ *
+ * - `getCheckpoints()`: Get the trusted checkpoints of the chain.
+ *
+ * - `setCheckpointPolicy(CheckpointPolicy policy)`: Set when checkpoints are recorded.
+ *
+ * - `setRetargetPolicy(RetargetPolicy policy)`: Set how the difficulty of the `Block.TARGET` blocks added is chosen.
+ *
+ * - `getRetargetPolicy()`: Get how the difficulty of the `Block.TARGET` blocks added is chosen.
+ *
+ * - `checkpoint()`: Record a checkpoint at the last block now.
+ *
+ * - `addHeadListener(Consumer<Head> listener)`: Be told about every new head of the chain.
+ *
+ * - `removeHeadListener(Consumer<Head> listener)`: Stop telling a listener about new heads.
+ *
+ * - `addDropListener(IntConsumer listener)`: Be told the position of the first block dropped for a peer's fork.
+ *
+ * - `replaceFrom(int from, List<Block> blocks, List<Hash> hashes, Hash chainHash)`: Replace the blocks from a position
+ *   on by the verified blocks of a peer.
+ *
+ * - `getDirtyBlocks()`: Get the positions of the blocks changed since they were last mined or verified.
+ *
+ * - `repairChain()`: Repair the blockchain in case of corruption.
+ *
+ * - `repairFromFirstFault(MiningProgress progress)`: Repair the blockchain from its first invalid block only.
+ *
+ * - `public static void main(String[] args) throws NoSuchAlgorithmException`: The main method to run the blockchain application.
+ * - Allows for basic blockchain operations, including viewing, adding, verifying, and manipulating blocks.
+ */
+
+package ds.project3task1;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Scanner;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+
+public class BlockChain {
+    // the Blocks of the chain, an empty position for a stored block not read yet
+    private final BlockStorage storage;
+    // a chain hash to hold a SHA256 hash of the most recently added Block
+    private Hash chainHash;
+    // guards storage and chainHash; readers try an optimistic read first
+    private final StampedLock lock = new StampedLock();
+    // an int to hold the approximate number of hashes per second on this computer
+    private int hashesPerSecond;
+    // the miner, threads or a pool of workers, null to do the proof of work on the calling thread
+    private Miner miner;
+    // the validator used by isChainValid
+    private final ChainValidator validator = new ChainValidator();
+    // the positions of the blocks changed since they were last mined or verified
+    private final BitSet dirtyBlocks = new BitSet();
+    // the on-disk store of the mined blocks, null for a chain kept in memory only
+    private BlockStore store;
+    // the thread mining the blocks added with addBlockAsync, one at a time in the order they were submitted
+    private ExecutorService producer;
+    // the hash and transaction indexes of the blocks
+    private final ChainIndex index = new ChainIndex();
+    // the running aggregates of the blocks
+    private final ChainStats stats = new ChainStats();
+    // the trusted checkpoints, kept in memory for a chain without a store
+    private Checkpoints checkpoints = new Checkpoints();
+    // when a checkpoint is recorded, null to only record them on request
+    private CheckpointPolicy checkpointPolicy;
+    // chooses the difficulty of the TARGET blocks added, null to keep the difficulty they were created with
+    private volatile RetargetPolicy retargetPolicy;
+    // the time of the last checkpoint, or the time the chain was created or opened
+    private long lastCheckpointMillis = System.currentTimeMillis();
+    // the number of blocks from the Genesis block on that are known to be valid; checkpoints are only recorded over them
+    private int verifiedSize;
+    // told about every new head of the chain
+    private final List<Consumer<Head>> headListeners = new CopyOnWriteArrayList<>();
+    // told the position of the first block dropped for a peer's fork
+    private final List<IntConsumer> dropListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * The size, the most recent block and the chain hash of a blockchain at one moment.
+     */
+    public static final class Head {
+        // the number of blocks
+        private final int size;
+        // the most recent block, null for an empty chain
+        private final Block latestBlock;
+        // the hash of the most recent block
+        private final Hash chainHash;
+
+        /**
+         * Constructor used by `getHead`.
+         *
+         * @param size The number of blocks.
+         * @param latestBlock The most recent block, null for an empty chain.
+         * @param chainHash The hash of the most recent block.
+         */
+        Head(int size, Block latestBlock, Hash chainHash) {
+            this.size = size;
+            this.latestBlock = latestBlock;
+            this.chainHash = chainHash;
+        }
+
+        /**
+         * Get the number of blocks.
+         *
+         * @return The size of the chain.
+         */
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * Get the most recent block.
+         *
+         * @return The block at position `getSize() - 1`, or null for an empty chain.
+         */
+        public Block getLatestBlock() {
+            return latestBlock;
+        }
+
+        /**
+         * Get the hash of the most recent block.
+         *
+         * @return The chain hash.
+         */
+        public Hash getChainHash() {
+            return chainHash;
+        }
+    }
+
+    /**
+     * Constructor to initialize an empty blockchain with default values.
+     */
+    public BlockChain() {
+        this(new ObjectBlockStorage());
+    }
+
+    /**
+     * Constructor to initialize an empty blockchain whose blocks are kept by the given storage.
+     *
+     * @param storage The empty storage of the blocks, such as a `ColumnarBlockStorage` for a very long chain.
+     */
+    public BlockChain(BlockStorage storage) {
+        // create a blockchain object
+        this.storage = storage;
+        // set chain hash to ZERO, written "", and hashPerSecond to 0
+        chainHash = Hash.ZERO;
+        hashesPerSecond = 0;
+    }
+
+    /**
+     * Constructor to continue the blockchain kept in a block store. Nothing is re-mined or re-parsed: the blocks
+     * are read from the store the first time they are used, and every block added later is appended to the store.
+     * Stored blocks start clean with their stored hash; a FULL validation checks them again.
+     *
+     * @param store The open block store.
+     */
+    public BlockChain(BlockStore store) {
+        this(store, new Checkpoints());
+    }
+
+    /**
+     * Constructor to continue the blockchain kept in a block store, with the checkpoints recorded for it.
+     *
+     * @param store The open block store.
+     * @param checkpoints The checkpoints of the stored chain.
+     */
+    public BlockChain(BlockStore store, Checkpoints checkpoints) {
+        this(store, checkpoints, new ObjectBlockStorage());
+    }
+
+    /**
+     * Constructor to continue the blockchain kept in a block store, with the checkpoints recorded for it, keeping the
+     * blocks read from the store in the given storage.
+     *
+     * @param store The open block store.
+     * @param checkpoints The checkpoints of the stored chain.
+     * @param storage The empty storage of the blocks in memory.
+     */
+    public BlockChain(BlockStore store, Checkpoints checkpoints, BlockStorage storage) {
+        this(storage);
+        this.store = store;
+        this.checkpoints = checkpoints;
+        // one empty position per stored block, filled by getBlock
+        storage.addEmpty(store.size());
+        if (store.size() > 0) {
+            chainHash = store.readHash(store.size() - 1);
+        }
+        // the stored blocks are trusted up to the last checkpoint, which was recorded over a valid prefix
+        Checkpoints.Checkpoint latest = checkpoints.latest();
+        verifiedSize = latest == null ? 0 : Math.min(store.size(), latest.getHeight() + 1);
+    }
+
+    /**
+     * Open the blockchain stored in a directory, with its checkpoints, creating an empty store if there is none.
+     *
+     * @param directory The directory of the block store.
+     * @return The blockchain, empty or holding the stored blocks.
+     * @throws IOException if the store can not be opened.
+     */
+    public static BlockChain open(Path directory) throws IOException {
+        return new BlockChain(BlockStore.open(directory), Checkpoints.open(directory));
+    }
+
+    /**
+     * Get the hash of the most recently added Block.
+     *
+     * @return The hash of the most recently added Block.
+     */
+    public Hash getChainHash() {
+        long stamp = lock.tryOptimisticRead();
+        Hash hash = chainHash;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                hash = chainHash;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Set the chain hash after a repair.
+     *
+     * @param hash The hash of the most recent block.
+     */
+    private void setChainHash(Hash hash) {
+        long stamp = lock.writeLock();
+        try {
+            chainHash = hash;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Get the current timestamp as a `java.sql.Timestamp` object.
+     *
+     * @return A `java.sql.Timestamp` representing the current time.
+     */
+    public java.sql.Timestamp getTime() {
+        return new java.sql.Timestamp(System.currentTimeMillis());
+    }
+
+    /**
+     * Get the most recent block in the blockchain. It is read with the size, as by `getHead()`: the last blocks can
+     * be dropped for a peer's fork, so a block read at a size read before might no longer be there.
+     *
+     * @return The most recent `Block` in the blockchain, or null if the chain is empty.
+     */
+    public Block getLatestBlock() {
+        return getHead().getLatestBlock();
+    }
+
+    /**
+     * Get the current size of the blockchain (number of blocks).
+     *
+     * @return The current size of the blockchain.
+     */
+    public int getChainSize() {
+        long stamp = lock.tryOptimisticRead();
+        int n = storage.size();
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                n = storage.size();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Get the size, the most recent block and the chain hash of the blockchain, read together, so that the chain
+     * hash is the one of that block even while blocks are being added.
+     *
+     * @return The head of the chain.
+     */
+    public Head getHead() {
+        // the latest block is read in the same section as the size and the chain hash, since a peer's fork can
+        // drop it right after the size is read
+        long stamp = lock.tryOptimisticRead();
+        int n = storage.size();
+        Hash hash = chainHash;
+        Block latest = n == 0 ? null : storage.peek(n - 1);
+        if ((n == 0 || latest != null) && lock.validate(stamp)) {
+            return new Head(n, latest, hash);
+        }
+        stamp = lock.readLock();
+        try {
+            n = storage.size();
+            hash = chainHash;
+            latest = n == 0 ? null : storage.get(n - 1);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        if (n > 0 && latest == null) {
+            // a stored block not read yet: read it under the write lock, with the size and chain hash of that moment
+            stamp = lock.writeLock();
+            try {
+                n = storage.size();
+                hash = chainHash;
+                latest = n == 0 ? null : loadStoredBlock(n - 1);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+        if (latest != null) {
+            // a view of a columnar storage writes its changes back; attaching a block again changes nothing
+            latest.attach(this, n - 1);
+        }
+        return new Head(n, latest, hash);
+    }
+
+    /**
+     * Compute the number of hash calculations performed per second.
+     *
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    public void computeHashesPerSecond() throws NoSuchAlgorithmException {
+        // record start time
+        java.sql.Timestamp t = getTime();
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+
+        // hash "00000000" for 2000000 times
+        for (int i = 0; i < 2000000; i++) {
+            byte[] bytes = md.digest("00000000".getBytes());
+        }
+
+        // record end time
+        java.sql.Timestamp t1 = getTime();
+        // get time gap in between
+        double time = t1.getTime() - t.getTime();
+
+        // calculate the number of hash performed per second
+        hashesPerSecond = (int) (2000000 / (time / 1000));
+    }
+
+    /**
+     * Get the number of hash calculations performed per second.
+     *
+     * @return The number of hash calculations per second.
+     */
+    public int getHashesPerSecond() {
+        return hashesPerSecond;
+    }
+
+    /**
+     * Set the miner used by `addBlock` and `repairChain` for proof of work: a `ParallelMiner` or a `MiningPool`.
+     *
+     * @param miner The miner to use, or null to do the proof of work on the calling thread.
+     */
+    public void setMiner(Miner miner) {
+        this.miner = miner;
+    }
+
+    /**
+     * Get the miner used for proof of work.
+     *
+     * @return The miner, or null if the proof of work is done on the calling thread.
+     */
+    public Miner getMiner() {
+        return miner;
+    }
+
+    /**
+     * Do the proof of work for a block, with the miner if one is set.
+     *
+     * @param block The block to mine.
+     * @return a hash that has the appropriate number of leading hex zeroes.
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    private Hash mine(Block block) throws NoSuchAlgorithmException {
+        return mine(block, null);
+    }
+
+    /**
+     * Do the proof of work for a block, with the miner if one is set, reporting to the given progress.
+     *
+     * @param block The block to mine.
+     * @param progress The progress to report to and check for cancellation, or null.
+     * @return a hash that has the appropriate number of leading hex zeroes.
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    private Hash mine(Block block, MiningProgress progress) throws NoSuchAlgorithmException {
+        long start = System.nanoTime();
+        try {
+            Hash hash = miner == null ? block.proofOfWork(progress) : miner.mine(block, progress);
+            // a freshly mined block is valid by construction
+            block.markVerified(hash);
+            return hash;
+        } finally {
+            stats.addMiningTime(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Add a new block to the blockchain.
+     *
+     * @param newBlock The `Block` to add to the blockchain.
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    public void addBlock(Block newBlock) throws NoSuchAlgorithmException {
+        addBlock(newBlock, null, false);
+    }
+
+    /**
+     * Mine a new block on the block producer thread and add it to the blockchain. The block gets the next index
+     * when its mining starts, so blocks submitted one after the other are added in that order.
+     *
+     * @param newBlock The `Block` to add to the blockchain.
+     * @return The handle of the mining job.
+     */
+    public MiningJob addBlockAsync(Block newBlock) {
+        return submit(new MiningJob(newBlock, new MiningProgress()));
+    }
+
+    /**
+     * Mine a new block on the block producer thread and add it to the blockchain, unless the time limit passes
+     * first. The time limit counts from now, so it includes the time the job waits behind earlier jobs.
+     *
+     * @param newBlock The `Block` to add to the blockchain.
+     * @param timeout The time the job may take.
+     * @param unit The unit of the timeout.
+     * @return The handle of the mining job.
+     */
+    public MiningJob addBlockAsync(Block newBlock, long timeout, TimeUnit unit) {
+        return submit(new MiningJob(newBlock, new MiningProgress(timeout, unit)));
+    }
+
+    /**
+     * Queue a mining job on the block producer thread, creating the thread on first use.
+     *
+     * @param job The job to run.
+     * @return The job.
+     */
+    private MiningJob submit(MiningJob job) {
+        synchronized (this) {
+            if (producer == null) {
+                // a daemon thread so pending jobs never keep the JVM alive
+                producer = Executors.newSingleThreadExecutor(r -> {
+                    Thread t = new Thread(r, "block-producer");
+                    t.setDaemon(true);
+                    return t;
+                });
+            }
+        }
+        producer.execute(() -> job.run(this));
+        return job;
+    }
+
+    /**
+     * Mine a new block outside of the chain's monitor and add it under the monitor. If the chain hash changed while
+     * mining, the block is linked to the new last block and mined again. With a retarget policy, a `Block.TARGET`
+     * block gets the difficulty of the policy, and the time its proof of work took is counted by the policy.
+     *
+     * @param newBlock The `Block` to add to the blockchain.
+     * @param progress The progress to report to and check for cancellation, or null.
+     * @param assignIndex If true, the block gets the index of the position it is added at.
+     * @return The position the block was added at.
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    int addBlock(Block newBlock, MiningProgress progress, boolean assignIndex) throws NoSuchAlgorithmException {
+        RetargetPolicy policy = newBlock.getVersion() == Block.TARGET ? retargetPolicy : null;
+        if (policy != null) {
+            newBlock.setDifficulty(policy.getDifficulty());
+        }
+        while (true) {
+            Hash previous;
+            synchronized (this) {
+                previous = getChainHash();
+                if (assignIndex) {
+                    newBlock.setIndex(getChainSize());
+                }
+            }
+            // set PreviousHash to the hash value of the previous block in the chain
+            newBlock.setPreviousHash(previous);
+            // do proof of work for the new block
+            long start = System.nanoTime();
+            Hash hash = mine(newBlock, progress);
+            long nanos = System.nanoTime() - start;
+            synchronized (this) {
+                if (previous.equals(getChainHash())) {
+                    int position = commit(newBlock, hash);
+                    if (policy != null) {
+                        policy.blockMined(newBlock.getZeroBits(), nanos);
+                    }
+                    return position;
+                }
+            }
+        }
+    }
+
+    /**
+     * Add a mined block at the end of the chain and of the store.
+     *
+     * @param newBlock The mined block.
+     * @param hash The hash of the block, the new chain hash.
+     * @return The position the block was added at.
+     */
+    private int commit(Block newBlock, Hash hash) {
+        int position;
+        // publish the block, the size and the chain hash together
+        long stamp = lock.writeLock();
+        try {
+            position = storage.size();
+            if (verifiedSize == position) {
+                verifiedSize = position + 1;
+            }
+            newBlock.attach(this, position);
+            storage.add(newBlock);
+            chainHash = hash;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        // and to the store, so it survives a restart
+        if (store != null) {
+            try {
+                store.append(newBlock, hash);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        // and to the index, unless the index has not caught up with a stored chain yet
+        synchronized (index) {
+            if (index.size() == position) {
+                index.add(position, hash, newBlock.getTransactions());
+            }
+        }
+        // and to the aggregates, unless they have not caught up with a stored chain yet
+        synchronized (stats) {
+            if (stats.size() == position) {
+                stats.add(position, newBlock.getVersion(), newBlock.getDifficulty());
+            }
+        }
+        checkpointIfDue();
+        headChanged();
+        return position;
+    }
+
+    /**
+     * Be told about every new head of the chain: every block added, and every fork of a peer taken in place of the
+     * last blocks. The listener is called on the thread that changed the chain, while it holds the chain's monitor,
+     * so it must return quickly.
+     *
+     * @param listener The listener.
+     */
+    public void addHeadListener(Consumer<Head> listener) {
+        headListeners.add(listener);
+    }
+
+    /**
+     * Stop telling a listener about the new heads of the chain.
+     *
+     * @param listener The listener given to `addHeadListener`.
+     */
+    public void removeHeadListener(Consumer<Head> listener) {
+        headListeners.remove(listener);
+    }
+
+    /**
+     * Be told the position of the first block dropped whenever `replaceFrom` drops blocks for a peer's fork. The
+     * listener is called on the thread that changed the chain, while it holds the chain's monitor, after the blocks
+     * of the fork are in place and before the head listeners.
+     *
+     * @param listener The listener, given the position of the first dropped block.
+     */
+    public void addDropListener(IntConsumer listener) {
+        dropListeners.add(listener);
+    }
+
+    /**
+     * Give the new head of the chain to the head listeners.
+     */
+    private void headChanged() {
+        if (headListeners.isEmpty()) {
+            return;
+        }
+        Head head = getHead();
+        for (Consumer<Head> listener : headListeners) {
+            listener.accept(head);
+        }
+    }
+
+    /**
+     * Replace the blocks from a position on by the blocks of a peer, whose fork is heavier than the blocks it
+     * replaces. The blocks were verified by the caller: each one links to the one before it (the first one to the
+     * block at `from - 1`), its index is its position, and it has the proof of work of its difficulty and the given
+     * hash. They are added clean. Readers see the old blocks or the new ones, never a mix. A block mined meanwhile
+     * on the old head is mined again on the new one; the drop listeners are told where the dropped blocks started.
+     *
+     * @param from The position of the first block to replace, at most the size of the chain.
+     * @param blocks The blocks of the peer, at least one.
+     * @param hashes The hash of every block.
+     * @param chainHash The chain hash the fork was checked against.
+     * @return false if the chain changed since it was compared with the fork, and nothing was replaced.
+     */
+    public synchronized boolean replaceFrom(int from, List<Block> blocks, List<Hash> hashes, Hash chainHash) {
+        if (blocks.isEmpty() || blocks.size() != hashes.size()) {
+            throw new IllegalArgumentException("A fork needs one hash per block, and at least one block");
+        }
+        int oldSize = getChainSize();
+        if (from > oldSize || !getChainHash().equals(chainHash)) {
+            return false;
+        }
+        dropCheckpointsFrom(from);
+        // the dropped blocks leave the aggregates, last first, and stop reporting to the chain
+        synchronized (stats) {
+            for (int i = Math.min(stats.size(), oldSize) - 1; i >= from; i--) {
+                Block removed = getBlock(i);
+                stats.removeLast(i, removed.getVersion(), removed.getDifficulty());
+            }
+        }
+        for (int i = from; i < oldSize; i++) {
+            Block dropped = loadedBlock(i);
+            if (dropped != null) {
+                dropped.detach();
+            }
+        }
+        synchronized (dirtyBlocks) {
+            dirtyBlocks.clear(from, oldSize);
+        }
+
+        // publish the new blocks and the chain hash together
+        long stamp = lock.writeLock();
+        try {
+            storage.truncate(from);
+            for (int k = 0; k < blocks.size(); k++) {
+                Block block = blocks.get(k);
+                block.markVerified(hashes.get(k));
+                block.attach(this, from + k);
+                storage.add(block);
+            }
+            this.chainHash = hashes.get(hashes.size() - 1);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        // the fork was verified, so it extends a valid prefix that reaches it
+        if (verifiedSize >= from) {
+            verifiedSize = getChainSize();
+        }
+        storeFrom(from);
+        synchronized (index) {
+            boolean current = index.size() >= oldSize;
+            index.truncate(from);
+            if (current) {
+                updateIndex();
+            }
+        }
+        synchronized (stats) {
+            if (stats.size() == from) {
+                updateStats();
+            }
+        }
+        if (from < oldSize) {
+            for (IntConsumer listener : dropListeners) {
+                listener.accept(from);
+            }
+        }
+        headChanged();
+        return true;
+    }
+
+    /**
+     * Index the blocks of the chain that are not indexed yet. A stored block that was never used is read from the
+     * store for the index only, without keeping it in memory.
+     */
+    private void updateIndex() {
+        synchronized (index) {
+            for (int i = index.size(); i < getChainSize(); i++) {
+                Block block = loadedBlock(i);
+                if (block == null) {
+                    index.add(i, store.readHash(i), store.read(i).getTransactions());
+                } else {
+                    index.add(i, block.getVerifiedHash(), block.getTransactions());
+                }
+            }
+        }
+    }
+
+    /**
+     * Index the blocks from the given position again, after they were mined again by a repair.
+     * An index that had not caught up with the chain is left to catch up on its next lookup.
+     *
+     * @param from The position of the first block that changed.
+     */
+    private void reindexFrom(int from) {
+        synchronized (index) {
+            boolean current = index.size() == getChainSize();
+            index.truncate(from);
+            if (current) {
+                updateIndex();
+            }
+        }
+    }
+
+    /**
+     * Find the height of a block by its hash, in O(1).
+     *
+     * @param hash The hash of the block, as it was mined or last repaired.
+     * @return The position of the block in the chain, or -1 if no block has that hash.
+     */
+    public int findBlock(Hash hash) {
+        updateIndex();
+        return index.heightOf(hash);
+    }
+
+    /**
+     * Find the blocks whose transactions hold every word of a query, in any order and case.
+     *
+     * @param query The words to look for.
+     * @param limit The largest number of blocks to return.
+     * @return The positions of the blocks in the chain, ascending.
+     */
+    public int[] searchTransactions(String query, int limit) {
+        updateIndex();
+        return index.search(query, limit);
+    }
+
+    /**
+     * Store the blocks from the given position again, after they were mined again by a repair.
+     *
+     * @param from The position of the first block that changed.
+     */
+    private void storeFrom(int from) {
+        storeFrom(from, getChainSize());
+    }
+
+    /**
+     * Store the blocks of a range again, after they were mined again by a repair that stopped at the end of the
+     * range. The stored blocks after the range are kept as they were mined, not as they are in memory, where the
+     * first of them may be half mined.
+     *
+     * @param from The position of the first block that changed.
+     * @param to The position after the last block mined again.
+     */
+    private void storeFrom(int from, int to) {
+        if (store == null) {
+            return;
+        }
+        try {
+            Block[] kept = new Block[Math.max(0, store.size() - to)];
+            Hash[] keptHashes = new Hash[kept.length];
+            for (int k = 0; k < kept.length; k++) {
+                kept[k] = store.read(to + k);
+                keptHashes[k] = store.readHash(to + k);
+            }
+            store.truncate(from);
+            for (int i = from; i < to; i++) {
+                store.append(getBlock(i), getBlock(i).getVerifiedHash());
+            }
+            for (int k = 0; k < kept.length; k++) {
+                store.append(kept[k], keptHashes[k]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Convert the blockchain's information into a JSON-formatted string.
+     * The text is the same as when the chain was embedded as a string property and the backslashes removed,
+     * but it is built in one pass; use `ChainWriter` to stream the chain as proper JSON instead.
+     *
+     * @return A JSON-formatted string representing the blockchain's data.
+     */
+    public java.lang.String toString() {
+        // the whole chain and the hash of the latest block in chain
+        StringBuilder message = new StringBuilder("{\"ds_chain\":\"[");
+        for (int i = 0; i < getChainSize(); i++) {
+            message.append(i == 0 ? "" : ", ").append(getBlock(i));
+        }
+        return message.append("]\",\"chainHash\":\"").append(getChainHash()).append("\"}").toString();
+    }
+
+    /**
+     * Get a specific block from the blockchain by its index.
+     *
+     * @param i The index of the block to retrieve.
+     * @return The `Block` at the specified index.
+     */
+    public Block getBlock(int i) {
+        // get the i th block from the storage, without locking unless a block was added meanwhile
+        long stamp = lock.tryOptimisticRead();
+        int n = storage.size();
+        Block block = i >= 0 && i < n ? storage.peek(i) : null;
+        if (block != null && lock.validate(stamp)) {
+            return block;
+        }
+        block = loadedBlock(i);
+        if (block == null) {
+            return readStoredBlock(i);
+        }
+        // a view of a columnar storage writes its changes back; attaching a block again changes nothing
+        block.attach(this, i);
+        return block;
+    }
+
+    /**
+     * Get a block of the chain if it is in memory, under the read lock. A view of a columnar storage is not
+     * attached to the chain yet.
+     *
+     * @param i The index of the block.
+     * @return The block, or null for a stored block that was not read yet.
+     */
+    private Block loadedBlock(int i) {
+        long stamp = lock.readLock();
+        try {
+            if (i < 0 || i >= storage.size()) {
+                throw new IndexOutOfBoundsException("Index " + i + " out of bounds for length " + storage.size());
+            }
+            return storage.get(i);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Read a stored block the first time it is used, under the write lock so that it is read only once.
+     * It was verified when it was mined.
+     *
+     * @param i The index of the block.
+     * @return The block.
+     */
+    private Block readStoredBlock(int i) {
+        long stamp = lock.writeLock();
+        try {
+            return loadStoredBlock(i);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Read a stored block the first time it is used; the caller holds the write lock.
+     *
+     * @param i The index of the block, below the size of the storage.
+     * @return The block.
+     */
+    private Block loadStoredBlock(int i) {
+        Block block = storage.get(i);
+        if (block == null) {
+            block = store.read(i);
+            block.markVerified(store.readHash(i));
+            block.attach(this, i);
+            storage.set(i, block);
+        } else {
+            block.attach(this, i);
+        }
+        return block;
+    }
+
+    /**
+     * Count the blocks of the chain that are not counted in the aggregates yet. A stored block that was never used is
+     * read from the store for its difficulty only, without keeping it in memory.
+     */
+    private void updateStats() {
+        synchronized (stats) {
+            for (int i = stats.size(); i < getChainSize(); i++) {
+                Block block = loadedBlock(i);
+                Block counted = block == null ? store.read(i) : block;
+                stats.add(i, counted.getVersion(), counted.getDifficulty());
+            }
+        }
+    }
+
+    /**
+     * Move a block to its new difficulty in the aggregates, called by `Block.setDifficulty`.
+     *
+     * @param position The position of the block.
+     * @param version The version of the block.
+     * @param from The old difficulty.
+     * @param to The new difficulty.
+     */
+    void difficultyChanged(int position, int version, int from, int to) {
+        stats.changeDifficulty(position, version, from, to);
+    }
+
+    /**
+     * Get the total difficulty of all blocks in the blockchain, kept up to date as blocks are added and changed. It is
+     * counted in leading zero bits, 4 per hex zero, so that blocks of every version add up in one unit.
+     *
+     * @return The total difficulty of all blocks in the blockchain, in leading zero bits.
+     */
+    public int getTotalDifficulty() {
+        updateStats();
+        return (int) stats.getTotalDifficulty();
+    }
+
+    /**
+     * Get the total expected hashes required for the entire chain: 2^bits per block (16^difficulty for a difficulty
+     * in hex zeroes), computed once per distinct number of leading zero bits.
+     *
+     * @return The total expected hashes required for the entire chain.
+     */
+    public double getTotalExpectedHashes() {
+        updateStats();
+        return stats.getTotalExpectedHashes();
+    }
+
+    /**
+     * Get the number of blocks of every difficulty, counted in leading zero bits like the total difficulty.
+     *
+     * @return The number of blocks by leading zero bits, in ascending order.
+     */
+    public TreeMap<Integer, Integer> getDifficultyHistogram() {
+        updateStats();
+        return stats.getHistogram();
+    }
+
+    /**
+     * Get the average time between two blocks, from the timestamps of the Genesis block and the most recent block.
+     *
+     * @return The average time in milliseconds, 0 for a chain of fewer than two blocks.
+     */
+    public double getAverageBlockMillis() {
+        Head head = getHead();
+        if (head.getSize() < 2) {
+            return 0;
+        }
+        long span = head.getLatestBlock().getTimestamp().getTime() - getBlock(0).getTimestamp().getTime();
+        return (double) span / (head.getSize() - 1);
+    }
+
+    /**
+     * Get the time spent on proof of work since the chain was created or opened, repairs included.
+     *
+     * @return The time in milliseconds.
+     */
+    public long getMiningMillis() {
+        return stats.getMiningMillis();
+    }
+
+    /**
+     * Check if the blockchain is valid and uncorrupted.
+     * Every block is hashed exactly once, in parallel for long chains, and the first failure in chain order is reported.
+     *
+     * @return "TRUE" if the chain is valid, or an error message if it's corrupted.
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    public java.lang.String isChainValid() throws NoSuchAlgorithmException {
+        return isChainValid(ValidationMode.FULL);
+    }
+
+    /**
+     * Check if the blockchain is valid and uncorrupted, from the Genesis block, only where it changed, or from the
+     * last checkpoint. FULL and INCREMENTAL report the same first failure; the incremental mode only hashes the dirty
+     * blocks and CHECKPOINT the blocks since the last checkpoint. FULL forces a validation of every block. A chain found
+     * valid by FULL or CHECKPOINT is known to be valid up to its last block, and a valid chain records a checkpoint if
+     * the checkpoint policy is due.
+     *
+     * @param mode FULL to check every block, INCREMENTAL to check only the blocks changed since they were verified,
+     *             CHECKPOINT to check the blocks since the last checkpoint.
+     * @return "TRUE" if the chain is valid, or an error message if it's corrupted.
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    public synchronized java.lang.String isChainValid(ValidationMode mode) throws NoSuchAlgorithmException {
+        ChainValidator.Result result = validator.validate(this, mode);
+        if (result.isValid()) {
+            // INCREMENTAL takes the clean blocks as valid, even the stored ones that were never hashed again
+            if (mode != ValidationMode.INCREMENTAL) {
+                verifiedSize = getChainSize();
+            }
+            checkpointIfDue();
+        }
+        return result.getMessage();
+    }
+
+    /**
+     * Get the trusted checkpoints of the chain, in ascending height order.
+     *
+     * @return The checkpoints.
+     */
+    public Checkpoints getCheckpoints() {
+        return checkpoints;
+    }
+
+    /**
+     * Set when checkpoints are recorded: after a block is added or the chain is validated, once the policy is due.
+     *
+     * @param policy The checkpoint policy, or null to only record checkpoints with `checkpoint()`.
+     */
+    public synchronized void setCheckpointPolicy(CheckpointPolicy policy) {
+        this.checkpointPolicy = policy;
+    }
+
+    /**
+     * Set how the difficulty of the `Block.TARGET` blocks added is chosen. Blocks of the other versions keep the
+     * difficulty they were created with.
+     *
+     * @param policy The retarget policy, or null to keep the difficulty of every block.
+     */
+    public void setRetargetPolicy(RetargetPolicy policy) {
+        this.retargetPolicy = policy;
+    }
+
+    /**
+     * Get how the difficulty of the `Block.TARGET` blocks added is chosen.
+     *
+     * @return The retarget policy, or null.
+     */
+    public RetargetPolicy getRetargetPolicy() {
+        return retargetPolicy;
+    }
+
+    /**
+     * Record a checkpoint at the last block now. Nothing is recorded while a block changed since it was last
+     * mined or verified, or while the chain is not known to be valid up to its last block, since its prefix would
+     * not be known to be valid; a FULL or CHECKPOINT validation marks the blocks verified.
+     *
+     * @return The checkpoint, or null if none was recorded.
+     */
+    public synchronized Checkpoints.Checkpoint checkpoint() {
+        int last = getChainSize() - 1;
+        Checkpoints.Checkpoint latest = checkpoints.latest();
+        if (last < 0 || (latest != null && latest.getHeight() >= last) || verifiedSize <= last
+                || !getDirtyBlocks().isEmpty()) {
+            return null;
+        }
+        try {
+            Checkpoints.Checkpoint checkpoint = checkpoints.add(last, getChainHash());
+            lastCheckpointMillis = checkpoint.getCreatedMillis();
+            return checkpoint;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Record a checkpoint at the last block if the checkpoint policy is due.
+     */
+    private void checkpointIfDue() {
+        if (checkpointPolicy == null) {
+            return;
+        }
+        Checkpoints.Checkpoint latest = checkpoints.latest();
+        int blocksSince = getChainSize() - 1 - (latest == null ? -1 : latest.getHeight());
+        if (checkpointPolicy.isDue(blocksSince, System.currentTimeMillis() - lastCheckpointMillis)) {
+            checkpoint();
+        }
+    }
+
+    /**
+     * Drop the checkpoints from the given position on, before the blocks there are mined again by a repair.
+     *
+     * @param from The position of the first block that changes.
+     */
+    private void dropCheckpointsFrom(int from) {
+        try {
+            checkpoints.truncate(from);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Get the positions of the blocks changed since they were last mined or verified.
+     *
+     * @return A copy of the dirty positions.
+     */
+    BitSet getDirtyBlocks() {
+        synchronized (dirtyBlocks) {
+            return (BitSet) dirtyBlocks.clone();
+        }
+    }
+
+    /**
+     * Mark the block at the given position as changed since it was last verified.
+     *
+     * @param position The position of the block.
+     */
+    void markDirty(int position) {
+        synchronized (dirtyBlocks) {
+            dirtyBlocks.set(position);
+        }
+    }
+
+    /**
+     * Mark the block at the given position as verified.
+     *
+     * @param position The position of the block.
+     */
+    void markClean(int position) {
+        synchronized (dirtyBlocks) {
+            dirtyBlocks.clear(position);
+        }
+    }
+
+    /**
+     * Record that a hashed field of the block at the given position changed, called by the block's setters.
+     *
+     * @param position The position of the block.
+     * @param block The block.
+     */
+    void blockChanged(int position, Block block) {
+        markDirty(position);
+        updateStorage(position, block);
+    }
+
+    /**
+     * Record that the block at the given position was mined or verified, called by `Block.markVerified`.
+     *
+     * @param position The position of the block.
+     * @param block The block.
+     */
+    void blockVerified(int position, Block block) {
+        updateStorage(position, block);
+        markClean(position);
+    }
+
+    /**
+     * Write the fields of a block back to the storage, under the write lock.
+     *
+     * @param position The position of the block.
+     * @param block The block.
+     */
+    private void updateStorage(int position, Block block) {
+        long stamp = lock.writeLock();
+        try {
+            storage.update(position, block);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Repair the blockchain in case of corruption.
+     *
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    public synchronized void repairChain() throws NoSuchAlgorithmException {
+        Hash hash = Hash.ZERO;
+        dropCheckpointsFrom(0);
+
+        // loop through the chain and fix the proof of work as well as the previous hash
+        for (int i = 0; i < getChainSize(); i++) {
+            getBlock(i).setPreviousHash(hash);
+            hash = mine(getBlock(i));
+        }
+
+        // fix the chainHash
+        setChainHash(hash);
+        verifiedSize = getChainSize();
+        storeFrom(0);
+        reindexFrom(0);
+    }
+
+    /**
+     * Repair the blockchain from its first invalid block only. The valid prefix of the chain is kept untouched,
+     * so corrupting a block near the end of a long chain only costs the proof of work of the last blocks.
+     * The progress shows the blocks remaining and the nonces tried, and cancelling it stops the repair between
+     * two nonce reports; the blocks repaired until then are kept, also in the store and the index, and a later repair
+     * continues from there, even after a restart. Clean blocks are only trusted within the prefix known to be valid:
+     * past it, the chain is validated from its last checkpoint to find the first fault.
+     *
+     * @param progress The progress to report to and check for cancellation.
+     * @return The number of blocks that were mined again.
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     * @throws java.util.concurrent.CancellationException if the progress was cancelled.
+     */
+    public synchronized int repairFromFirstFault(MiningProgress progress) throws NoSuchAlgorithmException {
+        // only the blocks changed since they were verified need to be hashed to find the first fault, unless clean
+        // blocks may be unverified: stored ones, or those after a repair that was cancelled
+        ValidationMode mode = verifiedSize < getChainSize() ? ValidationMode.CHECKPOINT : ValidationMode.INCREMENTAL;
+        ChainValidator.Result result = validator.validate(this, mode);
+        int first = result.getFailedIndex();
+        if (result.isValid()) {
+            verifiedSize = getChainSize();
+            progress.setBlocksRemaining(0);
+            return 0;
+        }
+        if (mode == ValidationMode.CHECKPOINT) {
+            // the blocks up to the checkpoint are trusted and those after it were validated up to the fault
+            verifiedSize = Math.max(verifiedSize, first);
+        }
+        if (first == getChainSize()) {
+            // every block is fine, only the chain hash is wrong
+            setChainHash(getLatestBlock().calculateHash());
+            progress.setBlocksRemaining(0);
+            return 0;
+        }
+
+        // the block before the first fault passed all its checks, so its current hash is the link to keep
+        Hash hash = first == 0 ? Hash.ZERO : getBlock(first - 1).calculateHash();
+        dropCheckpointsFrom(first);
+        int i = first;
+        try {
+            for (; i < getChainSize(); i++) {
+                progress.setBlocksRemaining(getChainSize() - i);
+                progress.checkCancelled();
+                getBlock(i).setPreviousHash(hash);
+                hash = mine(getBlock(i), progress);
+            }
+            // fix the chainHash
+            setChainHash(hash);
+        } finally {
+            // keep the blocks mined again, also when the repair was cancelled; they extend a valid prefix that
+            // reaches them
+            if (verifiedSize >= first) {
+                verifiedSize = i;
+            }
+            if (i > first) {
+                storeFrom(first, i);
+                reindexFrom(first);
+            }
+        }
+        progress.setBlocksRemaining(0);
+        return getChainSize() - first;
+    }
+
+
+}
@@ -0,0 +1,398 @@
+/**
+ * BlockHasher Class Documentation
+ *
+ * The `BlockHasher` class is the hashing engine used by the proof of work. It computes exactly the same hash as
+ * `Block.calculateHash()`, but without allocating anything per attempt:
+ * - the part of the hashed message that comes before the nonce (index, timestamp, data and previousHash) is
+ *   encoded to bytes once per block,
+ * - each attempt only writes the decimal digits of the nonce (and the difficulty after them) into a reused buffer,
+ * - the digest is written into a reused array and the leading zero check is done directly on the digest bytes.
+ * A `Hash` is only made for the winning hash.
+ *
+ * Blocks of version `Block.BINARY` and `Block.TARGET` are hashed as their `BlockHeader` instead: the 78 bytes before
+ * the nonce are encoded and absorbed once, and each attempt only writes the 8 nonce bytes, so there are no digits to
+ * write and every attempt hashes the same length. The proof of work is checked in leading zero bits, 4 per hex zero.
+ *
+ * Since the nonce comes after index, timestamp, data and previousHash in the hashed message, the prefix is the
+ * same for every attempt. When it is at least one SHA-256 block (64 bytes) long, for example for blocks holding long
+ * transaction strings, it is absorbed into a second digest once (the midstate) and each attempt clones that digest
+ * and only feeds the `nonce,difficulty` suffix, so the cost of an attempt no longer grows with the data length.
+ *
+ * A `BlockHasher` is not thread safe. Each thread gets its own instance from `forCurrentThread()`, so the
+ * `MessageDigest` and the buffers are reused across all the blocks mined on that thread. It is the scalar
+ * `NonceScanner`, trying one nonce per step; `VectorBlockHasher` is the vector one.
+ *
+ * Class Fields:
+ * - `md` (MessageDigest): The reusable SHA-256 digest.
+ * - `midstate` (MessageDigest): A digest that has absorbed the prefix of the current block.
+ * - `useMidstate` (boolean): Whether attempts start from the midstate instead of hashing the whole message.
+ * - `buffer` (byte[]): The message of the current attempt: prefix, nonce digits and suffix.
+ * - `prefixLength` (int): The number of prefix bytes at the start of `buffer`.
+ * - `suffix` (byte[]): The encoded part of the message after the nonce.
+ * - `digest` (byte[]): The hash of the last attempt.
+ * - `zeroBits` (int): The number of leading zero bits the hash of the current block must have.
+ * - `binary` (boolean): Whether the current block is hashed as a binary `BlockHeader`.
+ * - `header` (byte[]): The header of the block hashed by `hashBlock`, for binary blocks.
+ *
+ * Methods:
+ * - `forCurrentThread()`: Get the hasher of the calling thread.
+ * - `reset(Block block)`: Prepare the hasher for mining the given block.
+ * - `tryNonce(long nonce)`: Hash the block with the given nonce and check the proof of work.
+ * - `scan(long from, long to)`: Find the lowest valid nonce of a range.
+ * - `getLanes()`: Get the number of nonces tried per step, 1.
+ * - `getHash()`: Get the hash of the last attempt.
+ * - `lastHashHasLeadingZeroBits(int bits)`: Check the hash of the last attempt against another difficulty.
+ * - `hashBlock(Block block, byte[] output, int offset)`: Hash a block once, with its own nonce.
+ * - `hasLeadingZeroes(byte[] hash, int offset, int zeroes)`: Check the number of leading hex zeroes of a hash.
+ * - `hasLeadingZeroBits(byte[] hash, int offset, int bits)`: Check the number of leading zero bits of a hash.
+ * - `toHex(byte[] bytes)`: Convert bytes to an uppercase hexadecimal string.
+ * - `fromHex(String hex)`: Convert a hexadecimal string to bytes.
+ */
+
+package ds.project3task1;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+public class BlockHasher implements NonceScanner {
+    // the hasher of each thread
+    private static final ThreadLocal<BlockHasher> CURRENT = new ThreadLocal<>();
+    // the characters used for hexadecimal strings, uppercase like the hashes
+    private static final char[] HEX_ARRAY = "0123456789ABCDEF".toCharArray();
+    // a long has at most 19 decimal digits
+    private static final int MAX_NONCE_DIGITS = 19;
+    // the size of a SHA-256 block; shorter prefixes are never compressed before the last block, so a midstate saves nothing
+    private static final int MIDSTATE_MIN_BYTES = 64;
+
+    // the reusable SHA-256 digest
+    private final MessageDigest md;
+    // a digest that has absorbed the prefix of the current block, null if the digest can not be cloned
+    private final MessageDigest midstate;
+    // whether attempts start from the midstate instead of hashing the whole message
+    private boolean useMidstate;
+    // the message of the current attempt: prefix, nonce digits and suffix
+    private byte[] buffer = new byte[256];
+    // the number of prefix bytes at the start of the buffer
+    private int prefixLength;
+    // the encoded part of the message after the nonce
+    private byte[] suffix;
+    // the hash of the last attempt
+    private final byte[] digest = new byte[32];
+    // the number of leading zero bits the hash of the current block must have
+    private int zeroBits;
+    // whether the current block is hashed as a binary header
+    private boolean binary;
+    // the header of the block hashed by hashBlock, kept apart from the mining buffer
+    private final byte[] header = new byte[BlockHeader.SIZE];
+
+    /**
+     * Constructor to create a hasher with its own SHA-256 digest.
+     *
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    public BlockHasher() throws NoSuchAlgorithmException {
+        md = MessageDigest.getInstance("SHA-256");
+        midstate = cloneable(md) ? MessageDigest.getInstance("SHA-256") : null;
+    }
+
+    /**
+     * Check whether a digest supports `clone()`, which the midstate needs.
+     *
+     * @param digest The digest to check.
+     * @return true if the digest can be cloned.
+     */
+    private static boolean cloneable(MessageDigest digest) {
+        try {
+            digest.clone();
+            return true;
+        } catch (CloneNotSupportedException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Get the hasher of the calling thread, creating it on first use.
+     *
+     * @return The hasher owned by the calling thread.
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    public static BlockHasher forCurrentThread() throws NoSuchAlgorithmException {
+        BlockHasher hasher = CURRENT.get();
+        if (hasher == null) {
+            hasher = new BlockHasher();
+            CURRENT.set(hasher);
+        }
+        return hasher;
+    }
+
+    /**
+     * Prepare the hasher for mining the given block. The parts of the message that do not depend on the nonce
+     * are encoded here, once, the same way `Block.calculateHash()` encodes them.
+     *
+     * @param block The block to mine.
+     */
+    @Override
+    public void reset(Block block) {
+        zeroBits = block.getZeroBits();
+        binary = block.isBinary();
+        if (binary) {
+            // the header is written whole; each attempt overwrites its last 8 bytes
+            BlockHeader.encode(block, 0, buffer, 0);
+            prefixLength = BlockHeader.NONCE_OFFSET;
+            useMidstate = midstate != null;
+            if (useMidstate) {
+                midstate.reset();
+                midstate.update(buffer, 0, prefixLength);
+            }
+            return;
+        }
+
+        byte[] prefix = (block.getIndex() + "," + block.getTimestamp().toString() + "," + block.getHashedData() + ","
+                + block.getPreviousHash() + ",").getBytes();
+        suffix = ("," + block.getDifficulty()).getBytes();
+
+        prefixLength = prefix.length;
+        int capacity = prefixLength + MAX_NONCE_DIGITS + suffix.length;
+        if (buffer.length < capacity) {
+            buffer = new byte[capacity];
+        }
+        System.arraycopy(prefix, 0, buffer, 0, prefixLength);
+
+        // absorb a long prefix once, attempts then only hash the suffix
+        useMidstate = midstate != null && prefixLength >= MIDSTATE_MIN_BYTES;
+        if (useMidstate) {
+            midstate.reset();
+            midstate.update(prefix);
+        }
+    }
+
+    /**
+     * Hash the current block with the given nonce and check that the hash has the appropriate number of
+     * leading zero bits. The hash is kept until the next attempt and can be read with `getHash()`.
+     *
+     * @param nonce The nonce to try (not negative).
+     * @return true if the hash satisfies the proof of work.
+     */
+    public boolean tryNonce(long nonce) {
+        int length;
+        if (binary) {
+            BlockHeader.putNonce(nonce, buffer, 0);
+            length = BlockHeader.SIZE;
+        } else {
+            length = writeNonce(nonce);
+        }
+        try {
+            if (useMidstate) {
+                MessageDigest d = (MessageDigest) midstate.clone();
+                d.update(buffer, prefixLength, length - prefixLength);
+                d.digest(digest, 0, digest.length);
+            } else {
+                md.update(buffer, 0, length);
+                md.digest(digest, 0, digest.length);
+            }
+        } catch (DigestException | CloneNotSupportedException e) {
+            // the digest array always has room for a SHA-256 hash and cloning was checked in the constructor
+            throw new IllegalStateException(e);
+        }
+        return hasLeadingZeroBits(digest, 0, zeroBits);
+    }
+
+    /**
+     * Try the nonces of a range one after the other, until one is valid.
+     *
+     * @param from The first nonce to try (not negative).
+     * @param to The nonce after the last one to try.
+     * @return The nonce, or -1 if no nonce of the range is valid; its hash can then be read with `getHash()`.
+     */
+    @Override
+    public long scan(long from, long to) {
+        for (long nonce = from; nonce < to; nonce++) {
+            if (tryNonce(nonce)) {
+                return nonce;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Get the number of nonces tried per step.
+     *
+     * @return 1, one nonce at a time.
+     */
+    @Override
+    public int getLanes() {
+        return 1;
+    }
+
+    /**
+     * Write the decimal digits of the nonce followed by the suffix into the buffer.
+     *
+     * @param nonce The nonce to write.
+     * @return The length of the whole message in the buffer.
+     */
+    private int writeNonce(long nonce) {
+        // count the digits, then fill them in from the last one
+        int digits = 1;
+        for (long n = nonce; n >= 10; n /= 10) {
+            digits++;
+        }
+        int end = prefixLength + digits;
+        long n = nonce;
+        for (int i = end - 1; i >= prefixLength; i--) {
+            buffer[i] = (byte) ('0' + (n % 10));
+            n /= 10;
+        }
+        System.arraycopy(suffix, 0, buffer, end, suffix.length);
+        return end + suffix.length;
+    }
+
+    /**
+     * Get the hash of the last attempt.
+     *
+     * @return The hash, as `Block.calculateHash()` returns it.
+     */
+    @Override
+    public Hash getHash() {
+        return Hash.of(digest, 0);
+    }
+
+    /**
+     * Check the hash of the last attempt against a number of leading zero bits other than the block's, as a
+     * mining pool does for the shares of its workers.
+     *
+     * @param bits The number of leading zero bits required.
+     * @return true if the hash of the last attempt has at least that many leading zero bits.
+     */
+    public boolean lastHashHasLeadingZeroBits(int bits) {
+        return hasLeadingZeroBits(digest, 0, bits);
+    }
+
+    /**
+     * Hash a block once with its own nonce, as `Block.calculateHash()` does, but write the hash bytes
+     * into the given array instead of building a hex string. Used to validate blocks, where every block is
+     * hashed exactly once and the prefix of the message can not be reused.
+     *
+     * @param block The block to hash.
+     * @param output The array to write the 32-byte hash to.
+     * @param offset The position of the first byte of the hash.
+     * @return true if the hash has the number of leading zero bits required by the block's difficulty.
+     */
+    public boolean hashBlock(Block block, byte[] output, int offset) {
+        if (block.isBinary()) {
+            BlockHeader.encode(block, block.getNonce() == null ? 0 : block.getNonce().longValue(), header, 0);
+            md.update(header);
+        } else {
+            String message = block.getIndex() + "," + block.getTimestamp().toString() + ","
+                    + block.getHashedData() + "," + block.getPreviousHash() + "," + block.getNonce() + ","
+                    + block.getDifficulty();
+            md.update(message.getBytes());
+        }
+        try {
+            md.digest(output, offset, 32);
+        } catch (DigestException e) {
+            throw new IllegalStateException(e);
+        }
+        return hasLeadingZeroBits(output, offset, block.getZeroBits());
+    }
+
+    /**
+     * Check that a hash starts with the given number of hex zeroes, that is zero nibbles.
+     *
+     * @param hash The hash to check.
+     * @param zeroes The number of leading hex zeroes required.
+     * @return true if the hash has at least that many leading hex zeroes.
+     */
+    public static boolean hasLeadingZeroes(byte[] hash, int zeroes) {
+        return hasLeadingZeroes(hash, 0, zeroes);
+    }
+
+    /**
+     * Check that the 32-byte hash at the given position starts with the given number of hex zeroes.
+     *
+     * @param hash The array holding the hash.
+     * @param offset The position of the first byte of the hash.
+     * @param zeroes The number of leading hex zeroes required.
+     * @return true if the hash has at least that many leading hex zeroes.
+     */
+    public static boolean hasLeadingZeroes(byte[] hash, int offset, int zeroes) {
+        if (zeroes > 64) {
+            return false;
+        }
+        // whole zero bytes first
+        int fullBytes = zeroes / 2;
+        for (int i = 0; i < fullBytes; i++) {
+            if (hash[offset + i] != 0) {
+                return false;
+            }
+        }
+        // then the high nibble of the next byte for an odd count
+        return zeroes % 2 == 0 || (hash[offset + fullBytes] & 0xF0) == 0;
+    }
+
+    /**
+     * Check that the 32-byte hash at the given position starts with the given number of zero bits, that is that it is
+     * below the target 2^(256 - bits). A hex zero is 4 zero bits.
+     *
+     * @param hash The array holding the hash.
+     * @param offset The position of the first byte of the hash.
+     * @param bits The number of leading zero bits required.
+     * @return true if the hash has at least that many leading zero bits.
+     */
+    public static boolean hasLeadingZeroBits(byte[] hash, int offset, int bits) {
+        if (bits > 256) {
+            return false;
+        }
+        // whole zero bytes first
+        int fullBytes = bits / 8;
+        for (int i = 0; i < fullBytes; i++) {
+            if (hash[offset + i] != 0) {
+                return false;
+            }
+        }
+        // then the high bits of the next byte
+        int rest = bits % 8;
+        return rest == 0 || (hash[offset + fullBytes] & 0xFF) >>> (8 - rest) == 0;
+    }
+
+    /**
+     * Convert bytes to an uppercase hexadecimal string.
+     *
+     * @param bytes The bytes to convert.
+     * @return The hexadecimal string.
+     */
+    public static String toHex(byte[] bytes) {
+        // Code from stack overflow
+        // https://stackoverflow.com/questions/9655181/how-to-convert-a-byte-array-to-a-hex-string-in-java
+        char[] hexChars = new char[bytes.length * 2];
+        for (int j = 0; j < bytes.length; j++) {
+            int v = bytes[j] & 0xFF;
+            hexChars[j * 2] = HEX_ARRAY[v >>> 4];
+            hexChars[j * 2 + 1] = HEX_ARRAY[v & 0x0F];
+        }
+        return new String(hexChars);
+    }
+
+    /**
+     * Convert a hexadecimal string, in either case, to bytes.
+     *
+     * @param hex The hexadecimal string, two digits per byte.
+     * @return The bytes.
+     * @throws NumberFormatException if the string has an odd length or a character that is not a hex digit.
+     */
+    public static byte[] fromHex(String hex) {
+        if (hex.length() % 2 != 0) {
+            throw new NumberFormatException("Odd number of hex digits: " + hex);
+        }
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int j = 0; j < bytes.length; j++) {
+            int high = Character.digit(hex.charAt(j * 2), 16);
+            int low = Character.digit(hex.charAt(j * 2 + 1), 16);
+            if (high < 0 || low < 0) {
+                throw new NumberFormatException("Not a hex string: " + hex);
+            }
+            bytes[j] = (byte) (high << 4 | low);
+        }
+        return bytes;
+    }
+}
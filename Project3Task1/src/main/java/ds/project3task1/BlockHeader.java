@@ -0,0 +1,150 @@
+/**
+ * BlockHeader Class Documentation
+ *
+ * The `BlockHeader` class is the canonical binary encoding of a block of version `Block.BINARY` or `Block.TARGET`. The
+ * header has a fixed layout of `SIZE` bytes, big-endian, and is both what the proof of work hashes and what
+ * `BlockStore` writes:
+ *
+ *   offset  size  field
+ *        0     1  block version (3, or 4 for a difficulty in bits)
+ *        1     4  index (int)
+ *        5     8  timestamp, in nanoseconds since the epoch (long)
+ *       13    32  previous hash (`Hash.ZERO`, all zero, for the genesis block)
+ *       45    32  Merkle root of the transactions
+ *       77     1  difficulty (unsigned byte): leading hex zeroes, or leading zero bits for version 4
+ *       78     8  nonce (long)
+ *
+ * Unlike the comma-joined string hashed by `LEGACY` and `MERKLE` blocks, the encoding does not depend on
+ * `Timestamp.toString()`, and so on the time zone of the JVM, and needs no string building per hash. The transactions
+ * are committed to with their 32-byte Merkle root, so the header has the same length whatever the data. The nonce
+ * comes last: the 78 bytes before it fill more than one SHA-256 block, which the miner absorbs once per block.
+ *
+ * Methods:
+ * - `encode(Block block)`: Encode the header of a block with its own nonce.
+ * - `encode(Block block, long nonce, byte[] output, int offset)`: Encode the header with the given nonce into an array.
+ * - `putNonce(long nonce, byte[] header, int offset)`: Overwrite the nonce of an encoded header.
+ * - `decode(ByteBuffer header, String data)`: Rebuild a block from its header and its data.
+ * - `epochNanos(Timestamp timestamp)`: Convert a timestamp to nanoseconds since the epoch.
+ * - `timestamp(long epochNanos)`: Convert nanoseconds since the epoch to a timestamp.
+ */
+
+package ds.project3task1;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+
+public final class BlockHeader {
+    // the length of an encoded header
+    public static final int SIZE = 86;
+    // the position of the previous hash in the header
+    public static final int PREVIOUS_HASH_OFFSET = 13;
+    // the position of the Merkle root in the header
+    public static final int ROOT_OFFSET = 45;
+    // the position of the difficulty in the header
+    public static final int DIFFICULTY_OFFSET = 77;
+    // the position of the nonce in the header; everything before it is the same for every nonce
+    public static final int NONCE_OFFSET = 78;
+    // nanoseconds per second
+    private static final long NANOS = 1000000000L;
+
+    /**
+     * No instances, only static methods.
+     */
+    private BlockHeader() {
+    }
+
+    /**
+     * Encode the header of a block with its own nonce; a block that was not mined yet has nonce 0.
+     *
+     * @param block A block of version `Block.BINARY` or `Block.TARGET`.
+     * @return The header.
+     */
+    public static byte[] encode(Block block) {
+        BigInteger nonce = block.getNonce();
+        byte[] header = new byte[SIZE];
+        encode(block, nonce == null ? 0 : nonce.longValue(), header, 0);
+        return header;
+    }
+
+    /**
+     * Encode the header of a block with the given nonce into an array.
+     *
+     * @param block A block of version `Block.BINARY` or `Block.TARGET`.
+     * @param nonce The nonce.
+     * @param output The array to write the header to.
+     * @param offset The position of the first byte of the header.
+     */
+    public static void encode(Block block, long nonce, byte[] output, int offset) {
+        ByteBuffer w = ByteBuffer.wrap(output, offset, SIZE);
+        w.put((byte) block.getVersion());
+        w.putInt(block.getIndex());
+        w.putLong(epochNanos(block.getTimestamp()));
+        // Hash.ZERO, the previous hash of a genesis block, is written as 32 zero bytes
+        block.getPreviousHash().writeTo(w);
+        block.getMerkleRoot().writeTo(w);
+        // the proof of work checks the difficulty of the block itself, so a difficulty above 255 never validates
+        w.put((byte) block.getDifficulty());
+        w.putLong(nonce);
+    }
+
+    /**
+     * Overwrite the nonce of an encoded header, for the next attempt of the proof of work.
+     *
+     * @param nonce The nonce.
+     * @param header The array holding the header.
+     * @param offset The position of the first byte of the header.
+     */
+    public static void putNonce(long nonce, byte[] header, int offset) {
+        for (int i = offset + SIZE - 1; i >= offset + NONCE_OFFSET; i--) {
+            header[i] = (byte) nonce;
+            nonce >>>= 8;
+        }
+    }
+
+    /**
+     * Rebuild a block from its header and its data, as read from the store.
+     *
+     * @param header The header, positioned at its first byte; it is left after the header.
+     * @param data The data of the block, whose Merkle root is in the header.
+     * @return The block; it is not attached to any chain.
+     */
+    public static Block decode(ByteBuffer header, String data) {
+        int version = header.get();
+        int index = header.getInt();
+        Timestamp timestamp = timestamp(header.getLong());
+        Hash previousHash = Hash.read(header);
+        // the root is computed again from the data
+        header.position(header.position() + 32);
+        int difficulty = header.get() & 0xFF;
+        long nonce = header.getLong();
+
+        Block block = new Block(index, timestamp, data, difficulty, version);
+        block.setPreviousHash(previousHash);
+        block.setNonce(BigInteger.valueOf(nonce));
+        return block;
+    }
+
+    /**
+     * Convert a timestamp to nanoseconds since the epoch, in UTC.
+     *
+     * @param timestamp The timestamp.
+     * @return The nanoseconds since 1970-01-01T00:00:00Z.
+     */
+    public static long epochNanos(Timestamp timestamp) {
+        // getTime() already holds the milliseconds that getNanos() holds in full
+        return Math.floorDiv(timestamp.getTime(), 1000) * NANOS + timestamp.getNanos();
+    }
+
+    /**
+     * Convert nanoseconds since the epoch to a timestamp.
+     *
+     * @param epochNanos The nanoseconds since 1970-01-01T00:00:00Z.
+     * @return The timestamp.
+     */
+    public static Timestamp timestamp(long epochNanos) {
+        Timestamp timestamp = new Timestamp(Math.floorDiv(epochNanos, NANOS) * 1000);
+        timestamp.setNanos((int) Math.floorMod(epochNanos, NANOS));
+        return timestamp;
+    }
+}
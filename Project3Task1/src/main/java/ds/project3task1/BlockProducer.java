@@ -0,0 +1,179 @@
+/**
+ * BlockProducer Class Documentation
+ *
+ * The `BlockProducer` class turns the transactions of a `Mempool` into blocks. Its thread waits for a first
+ * transaction, collects up to `maxTransactions` of them or whatever arrived within `maxWaitMillis`, and adds one
+ * `Block.BINARY` block (or `Block.TARGET`, if asked) whose data is the batch as a JSON array of strings, in the order
+ * the transactions were submitted, so that each transaction can be proved to be in the block with its Merkle path.
+ * Once the block is part of the chain the transactions are marked with its height; if the block could not be added,
+ * or a peer's fork dropped it right after it was added, they go back to the pool for the next block.
+ *
+ * Class Fields:
+ * - `chain` (BlockChain): The chain the blocks are added to.
+ * - `mempool` (Mempool): The pool the transactions are taken from.
+ * - `maxTransactions` (int): The largest number of transactions in a block.
+ * - `maxWaitMillis` (long): How long a batch waits for more transactions after its first one.
+ * - `difficulty` (int): The difficulty of the produced blocks.
+ * - `version` (int): The version of the produced blocks.
+ * - `thread` (Thread): The producing thread, null when stopped.
+ * - `blocksProduced` (AtomicLong): The number of blocks added so far.
+ *
+ * Constructors:
+ * - `BlockProducer(BlockChain chain, Mempool mempool, int maxTransactions, long maxWaitMillis, int difficulty)`:
+ *   Creates a producer of `Block.BINARY` blocks.
+ * - `BlockProducer(BlockChain chain, Mempool mempool, int maxTransactions, long maxWaitMillis, int difficulty,
+ *   int version)`: Creates a producer of blocks of the given version.
+ *
+ * Methods:
+ * - `start()`: Start producing blocks on a daemon thread.
+ * - `stop()`: Stop producing blocks, after the block being mined.
+ * - `produce()`: Produce one block from the next batch, on the calling thread.
+ * - `getBlocksProduced()`: Get the number of blocks added so far.
+ */
+
+package ds.project3task1;
+
+import com.google.gson.Gson;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class BlockProducer {
+    // how long the producing thread waits for a first transaction before checking whether it was stopped
+    private static final long POLL_MILLIS = 1000;
+
+    // the chain the blocks are added to
+    private final BlockChain chain;
+    // the pool the transactions are taken from
+    private final Mempool mempool;
+    // the largest number of transactions in a block
+    private final int maxTransactions;
+    // how long a batch waits for more transactions after its first one
+    private final long maxWaitMillis;
+    // the difficulty of the produced blocks
+    private final int difficulty;
+    // the version of the produced blocks, BINARY or TARGET
+    private final int version;
+    // the producing thread, null when stopped
+    private volatile Thread thread;
+    // the number of blocks added so far
+    private final AtomicLong blocksProduced = new AtomicLong();
+
+    /**
+     * Constructor to create a producer.
+     *
+     * @param chain The chain the blocks are added to.
+     * @param mempool The pool the transactions are taken from.
+     * @param maxTransactions The largest number of transactions in a block (at least 1).
+     * @param maxWaitMillis How long a batch waits for more transactions after its first one.
+     * @param difficulty The difficulty of the produced blocks.
+     */
+    public BlockProducer(BlockChain chain, Mempool mempool, int maxTransactions, long maxWaitMillis, int difficulty) {
+        this(chain, mempool, maxTransactions, maxWaitMillis, difficulty, Block.BINARY);
+    }
+
+    /**
+     * Constructor to create a producer of blocks of the given version. A `Block.TARGET` block gets the difficulty of
+     * the chain's retarget policy, if it has one.
+     *
+     * @param chain The chain the blocks are added to.
+     * @param mempool The pool the transactions are taken from.
+     * @param maxTransactions The largest number of transactions in a block (at least 1).
+     * @param maxWaitMillis How long a batch waits for more transactions after its first one.
+     * @param difficulty The difficulty of the produced blocks.
+     * @param version The version of the produced blocks, `Block.BINARY` or `Block.TARGET`.
+     */
+    public BlockProducer(BlockChain chain, Mempool mempool, int maxTransactions, long maxWaitMillis, int difficulty,
+                         int version) {
+        if (maxTransactions < 1) {
+            throw new IllegalArgumentException("maxTransactions must be at least 1");
+        }
+        this.chain = chain;
+        this.mempool = mempool;
+        this.maxTransactions = maxTransactions;
+        this.maxWaitMillis = maxWaitMillis;
+        this.difficulty = difficulty;
+        this.version = version;
+    }
+
+    /**
+     * Start producing blocks on a daemon thread, until `stop()` is called.
+     */
+    public synchronized void start() {
+        if (thread != null) {
+            throw new IllegalStateException("producer already started");
+        }
+        Thread t = new Thread(() -> {
+            while (thread == Thread.currentThread()) {
+                try {
+                    produce();
+                } catch (InterruptedException e) {
+                    return;
+                } catch (Exception e) {
+                    // the batch went back to the pool, try again with the next one
+                    System.out.println("Block production failed: " + e);
+                }
+            }
+        }, "mempool-producer");
+        t.setDaemon(true);
+        thread = t;
+        t.start();
+    }
+
+    /**
+     * Stop producing blocks. The thread ends after the block being mined, or within a second when it is waiting
+     * for transactions; the transactions still in the pool stay there.
+     */
+    public synchronized void stop() {
+        thread = null;
+    }
+
+    /**
+     * Produce one block from the next batch of transactions, on the calling thread.
+     *
+     * @return The height of the block, or -1 if no transaction arrived in time or the block was dropped at once.
+     * @throws InterruptedException if the thread is interrupted while waiting for transactions.
+     * @throws Exception if the block could not be added; its transactions are back in the pool.
+     */
+    public int produce() throws Exception {
+        List<Mempool.Transaction> batch = mempool.take(maxTransactions, maxWaitMillis, POLL_MILLIS);
+        if (batch.isEmpty()) {
+            return -1;
+        }
+        List<String> data = new ArrayList<>(batch.size());
+        for (Mempool.Transaction tx : batch) {
+            data.add(tx.getData());
+        }
+
+        Block block = new Block(chain.getChainSize(), chain.getTime(), new Gson().toJson(data), difficulty, version);
+        int height;
+        try {
+            // mined on this thread, outside of the chain's monitor
+            height = chain.addBlock(block, null, true);
+        } catch (Exception | Error e) {
+            mempool.putBack(batch);
+            throw e;
+        }
+        // under the chain's monitor, so that a peer's fork drops the block either before this check or after the
+        // transactions are recorded in it, when the mempool is told about the drop
+        synchronized (chain) {
+            if (height >= chain.getChainSize()
+                    || !block.calculateHash().equals(chain.getBlock(height).calculateHash())) {
+                mempool.putBack(batch);
+                return -1;
+            }
+            mempool.included(batch, height);
+        }
+        blocksProduced.incrementAndGet();
+        return height;
+    }
+
+    /**
+     * Get the number of blocks added so far.
+     *
+     * @return The number of blocks.
+     */
+    public long getBlocksProduced() {
+        return blocksProduced.get();
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * BlockStorage Interface Documentation
+ *
+ * The `BlockStorage` interface is how a `BlockChain` keeps its blocks in memory. `ObjectBlockStorage`, the default,
+ * keeps every `Block` object; `ColumnarBlockStorage` keeps the fields of the blocks in primitive parallel arrays and
+ * hands out a new `Block` view of a position at every read, which writes every change back to the arrays.
+ *
+ * The chain calls every method under its `StampedLock`: `peek` under an optimistic read, `size` and `get` under an
+ * optimistic read or the read lock, and the methods that change the storage under the write lock. A position can be
+ * empty: it is a block of the chain's `BlockStore` that was not read yet.
+ *
+ * Methods:
+ * - `size()`: Get the number of positions.
+ * - `peek(int position)`: Get the block at a position without any lock, if the storage can.
+ * - `get(int position)`: Get the block at a position.
+ * - `add(Block block)`: Add a block after the last position.
+ * - `addEmpty(int count)`: Add empty positions, for stored blocks that are read later.
+ * - `set(int position, Block block)`: Fill an empty position.
+ * - `update(int position, Block block)`: Record the changed fields of the block at a position.
+ * - `truncate(int size)`: Drop the blocks from a position on.
+ */
+
+package ds.project3task1;
+
+public interface BlockStorage {
+
+    /**
+     * Get the number of positions, empty ones included.
+     *
+     * @return The number of blocks of the chain.
+     */
+    int size();
+
+    /**
+     * Get the block at a position under an optimistic read, which a concurrent write may make inconsistent; the
+     * caller validates the read before using the block. It must not fail on a position below a size it read.
+     *
+     * @param position The position of the block.
+     * @return The block, or null if it can only be read under the read lock or the position is empty.
+     */
+    Block peek(int position);
+
+    /**
+     * Get the block at a position.
+     *
+     * @param position The position of the block, below `size()`.
+     * @return The block, or null if the position is empty.
+     */
+    Block get(int position);
+
+    /**
+     * Add a block after the last position. The block is already attached to the chain at that position.
+     *
+     * @param block The block.
+     */
+    void add(Block block);
+
+    /**
+     * Add empty positions after the last position, for stored blocks that are read the first time they are used.
+     *
+     * @param count The number of positions.
+     */
+    void addEmpty(int count);
+
+    /**
+     * Fill an empty position with a block read from the store.
+     *
+     * @param position The position.
+     * @param block The block, attached to the chain at that position.
+     */
+    void set(int position, Block block);
+
+    /**
+     * Record the fields of the block at a position after one of them changed or the block was verified.
+     *
+     * @param position The position of the block.
+     * @param block The block, as given by `get` or `add`.
+     */
+    void update(int position, Block block);
+
+    /**
+     * Drop the blocks from position `size` on, before the blocks of a heavier fork are added in their place.
+     *
+     * @param size The number of blocks to keep.
+     */
+    void truncate(int size);
+}
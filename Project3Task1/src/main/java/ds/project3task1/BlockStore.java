@@ -0,0 +1,331 @@
+/**
+ * BlockStore Class Documentation
+ *
+ * The `BlockStore` class keeps the mined blocks of a `BlockChain` on disk, so that a restarted server continues
+ * with its chain instead of mining a new one. Blocks are appended to segment files of `SEGMENT_SIZE` bytes that are
+ * memory mapped, and an index file holds the position of every block record, so that block i is read in O(1)
+ * without scanning the segments. Opening a store maps the existing segments and reads the index; no block is parsed
+ * until it is read.
+ *
+ * Files in the store directory:
+ * - `segment-NNNNN.dat`: block records, one after the other. A record is its length (int) followed by the
+ *   format version (byte) and the block:
+ *   - format 3, for `Block.BINARY` and `Block.TARGET` blocks: the `BlockHeader` exactly as it is hashed (it holds the
+ *     block version), block hash (32 bytes) and data (int length + UTF-8);
+ *   - format 2, for `Block.LEGACY` and `Block.MERKLE` blocks: block version (byte), index (int), timestamp in
+ *     milliseconds (long) and nanoseconds (int), difficulty (int), nonce (long), previous hash (short length +
+ *     ASCII), block hash (32 bytes) and data (int length + UTF-8);
+ *   - format 1, written before blocks had versions: format 2 without the block version, read as `Block.LEGACY`.
+ * - `blocks.idx`: one long per block, the segment number in the high 32 bits and the record position in the low
+ *   32 bits. A block is only part of the chain once its index entry is written, so a record interrupted by a crash
+ *   is ignored on the next start.
+ *
+ * Class Fields:
+ * - `directory` (Path): The directory holding the store files.
+ * - `segments` (ArrayList<MappedByteBuffer>): The mapped segment files.
+ * - `index` (FileChannel): The index file.
+ * - `positions` (long[]): The index entries, kept in memory.
+ * - `count` (int): The number of blocks in the store.
+ *
+ * Methods:
+ * - `open(Path directory)`: Open the store in a directory, creating it if needed.
+ * - `size()`: Get the number of blocks in the store.
+ * - `read(int i)`: Read block i.
+ * - `readHash(int i)`: Read the hash of block i.
+ * - `append(Block block, Hash hash)`: Append a mined block.
+ * - `truncate(int size)`: Drop the blocks from position `size`, before storing them again after a repair.
+ * - `close()`: Write everything to disk and close the files.
+ */
+
+package ds.project3task1;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class BlockStore implements Closeable {
+    // the size of a segment file
+    static final int SEGMENT_SIZE = 64 * 1024 * 1024;
+    // the format version of the records of BINARY and TARGET blocks: the binary header as it is hashed
+    private static final byte RECORD_VERSION = 3;
+    // the format version of the records of blocks hashed as a string, field by field
+    private static final byte RECORD_VERSION_FIELDS = 2;
+    // the first format version, without the block version
+    private static final byte RECORD_VERSION_LEGACY = 1;
+    // the name of the index file
+    private static final String INDEX_FILE = "blocks.idx";
+
+    // the directory holding the store files
+    private final Path directory;
+    // the mapped segment files, in order
+    private final ArrayList<MappedByteBuffer> segments = new ArrayList<>();
+    // the index file
+    private final FileChannel index;
+    // the index entries, kept in memory
+    private long[] positions;
+    // the number of blocks in the store
+    private int count;
+
+    /**
+     * Constructor used by `open`.
+     *
+     * @param directory The directory holding the store files.
+     * @param index The open index file.
+     */
+    private BlockStore(Path directory, FileChannel index) {
+        this.directory = directory;
+        this.index = index;
+    }
+
+    /**
+     * Open the store in a directory, creating the directory and the files if needed.
+     * The segments are mapped and the index is read; the block records are not parsed.
+     *
+     * @param directory The directory holding the store files.
+     * @return The open store.
+     * @throws IOException if the files can not be created, read or mapped.
+     */
+    public static BlockStore open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        FileChannel index = FileChannel.open(directory.resolve(INDEX_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        BlockStore store = new BlockStore(directory, index);
+
+        // only whole entries count, a partly written entry is dropped
+        store.count = (int) (index.size() / 8);
+        store.positions = new long[Math.max(16, store.count)];
+        MappedByteBuffer entries = index.map(FileChannel.MapMode.READ_ONLY, 0, store.count * 8L);
+        entries.asLongBuffer().get(store.positions, 0, store.count);
+        index.truncate(store.count * 8L);
+
+        // map every segment the index refers to
+        int lastSegment = store.count == 0 ? 0 : (int) (store.positions[store.count - 1] >>> 32);
+        for (int s = 0; s <= lastSegment; s++) {
+            store.mapSegment(s);
+        }
+        return store;
+    }
+
+    /**
+     * Map a segment file, creating it with its full size if needed.
+     *
+     * @param s The segment number.
+     * @throws IOException if the file can not be created or mapped.
+     */
+    private void mapSegment(int s) throws IOException {
+        Path file = directory.resolve(String.format("segment-%05d.dat", s));
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // the mapping stays valid after the channel is closed
+            segments.add(channel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_SIZE));
+        }
+    }
+
+    /**
+     * Get the number of blocks in the store.
+     *
+     * @return The number of blocks.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Get a read view of the record of block i, positioned after the record length.
+     *
+     * @param i The position of the block.
+     * @return The record, limited to its own bytes.
+     */
+    private ByteBuffer record(int i) {
+        if (i < 0 || i >= count) {
+            throw new IndexOutOfBoundsException("Index " + i + " out of bounds for length " + count);
+        }
+        long entry = positions[i];
+        ByteBuffer r = segments.get((int) (entry >>> 32)).duplicate();
+        int start = (int) entry;
+        r.position(start);
+        int length = r.getInt();
+        r.limit(start + 4 + length);
+        return r;
+    }
+
+    /**
+     * Read block i. The block is new each time; it is not attached to any chain.
+     *
+     * @param i The position of the block.
+     * @return The block as it was stored.
+     */
+    public Block read(int i) {
+        ByteBuffer r = record(i);
+        if (r.get(r.position()) == RECORD_VERSION) {
+            ByteBuffer header = r.slice(r.position() + 1, BlockHeader.SIZE);
+            // skip the format version, the header and the block hash
+            r.position(r.position() + 1 + BlockHeader.SIZE + 32);
+            byte[] data = new byte[r.getInt()];
+            r.get(data);
+            return BlockHeader.decode(header, new String(data, StandardCharsets.UTF_8));
+        }
+        int blockVersion = readBlockVersion(r, i);
+        int blockIndex = r.getInt();
+        java.sql.Timestamp timestamp = new java.sql.Timestamp(r.getLong());
+        timestamp.setNanos(r.getInt());
+        int difficulty = r.getInt();
+        long nonce = r.getLong();
+        byte[] previousHash = new byte[r.getShort()];
+        r.get(previousHash);
+        // skip the block hash
+        r.position(r.position() + 32);
+        byte[] data = new byte[r.getInt()];
+        r.get(data);
+
+        Block block = new Block(blockIndex, timestamp, new String(data, StandardCharsets.UTF_8), difficulty, blockVersion);
+        block.setPreviousHash(Hash.fromHex(new String(previousHash, StandardCharsets.US_ASCII)));
+        block.setNonce(BigInteger.valueOf(nonce));
+        return block;
+    }
+
+    /**
+     * Read the hash of block i, without reading the rest of the block.
+     *
+     * @param i The position of the block.
+     * @return The hash.
+     */
+    public Hash readHash(int i) {
+        ByteBuffer r = record(i);
+        if (r.get(r.position()) == RECORD_VERSION) {
+            r.position(r.position() + 1 + BlockHeader.SIZE);
+        } else {
+            readBlockVersion(r, i);
+            // index, timestamp, nanos, difficulty and nonce come first
+            r.position(r.position() + 4 + 8 + 4 + 4 + 8);
+            int previousHashLength = r.getShort();
+            r.position(r.position() + previousHashLength);
+        }
+        return Hash.read(r);
+    }
+
+    /**
+     * Read the format version of a record written field by field and the block version that follows it.
+     *
+     * @param r The record, positioned at its format version; it is left after the block version.
+     * @param i The position of the block, for the error message.
+     * @return The block version.
+     */
+    private static int readBlockVersion(ByteBuffer r, int i) {
+        byte version = r.get();
+        if (version == RECORD_VERSION_LEGACY) {
+            return Block.LEGACY;
+        }
+        if (version != RECORD_VERSION_FIELDS) {
+            throw new IllegalStateException("Unknown block record version " + version + " at position " + i);
+        }
+        return r.get();
+    }
+
+    /**
+     * Append a mined block to the last segment, or to a new one when it does not fit, then add its index entry.
+     * Both are forced to disk before returning.
+     *
+     * @param block The mined block.
+     * @param hash The hash of the block, as returned by its proof of work.
+     * @throws IOException if the block can not be written.
+     */
+    public void append(Block block, Hash hash) throws IOException {
+        boolean binary = block.isBinary();
+        byte[] header = binary ? BlockHeader.encode(block) : null;
+        byte[] previousHash = block.getPreviousHash().toString().getBytes(StandardCharsets.US_ASCII);
+        byte[] data = block.getData().getBytes(StandardCharsets.UTF_8);
+        int length = binary
+                ? 1 + BlockHeader.SIZE + 32 + 4 + data.length
+                : 1 + 1 + 4 + 8 + 4 + 4 + 8 + 2 + previousHash.length + 32 + 4 + data.length;
+        if (length + 4 > SEGMENT_SIZE) {
+            throw new IllegalArgumentException("Block " + block.getIndex() + " is too large to be stored");
+        }
+
+        // the record goes after the last one, in a new segment if it does not fit
+        int s = 0;
+        int start = 0;
+        if (count > 0) {
+            ByteBuffer last = record(count - 1);
+            s = (int) (positions[count - 1] >>> 32);
+            start = last.limit();
+        }
+        if (start + 4 + length > SEGMENT_SIZE) {
+            s++;
+            start = 0;
+        }
+        if (s == segments.size()) {
+            mapSegment(s);
+        }
+
+        MappedByteBuffer segment = segments.get(s);
+        ByteBuffer w = segment.duplicate();
+        w.position(start);
+        w.putInt(length);
+        if (binary) {
+            w.put(RECORD_VERSION);
+            w.put(header);
+        } else {
+            w.put(RECORD_VERSION_FIELDS);
+            w.put((byte) block.getVersion());
+            w.putInt(block.getIndex());
+            w.putLong(block.getTimestamp().getTime());
+            w.putInt(block.getTimestamp().getNanos());
+            w.putInt(block.getDifficulty());
+            w.putLong(block.getNonce().longValueExact());
+            w.putShort((short) previousHash.length);
+            w.put(previousHash);
+        }
+        hash.writeTo(w);
+        w.putInt(data.length);
+        w.put(data);
+        segment.force();
+
+        // the block is part of the store once its index entry is written
+        long entry = ((long) s << 32) | start;
+        ByteBuffer e = ByteBuffer.allocate(8).putLong(0, entry);
+        index.write(e, count * 8L);
+        index.force(false);
+        if (count == positions.length) {
+            positions = Arrays.copyOf(positions, positions.length * 2);
+        }
+        positions[count++] = entry;
+    }
+
+    /**
+     * Drop the blocks from position `size` on. Used after a repair, before the blocks mined again are appended.
+     * The space of the dropped records is reused by the next appends.
+     *
+     * @param size The number of blocks to keep.
+     * @throws IOException if the index can not be truncated.
+     */
+    public void truncate(int size) throws IOException {
+        if (size < count) {
+            count = size;
+            index.truncate(size * 8L);
+            index.force(false);
+        }
+    }
+
+    /**
+     * Write everything to disk and close the index. The segments are unmapped by the garbage collector.
+     *
+     * @throws IOException if the index can not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+        index.close();
+    }
+}
@@ -0,0 +1,228 @@
+/**
+ * ChainIndex Class Documentation
+ *
+ * The `ChainIndex` class keeps two indexes over the blocks of a `BlockChain`, so that a block is found without
+ * scanning the chain:
+ * - a hash index, from the hash of every block to its height, answered in O(1);
+ * - an inverted index, from every token of the transactions to the ascending heights of the blocks holding it.
+ *   A search intersects the lists of its tokens, walking the shortest one and looking each height up in the others
+ *   with a binary search, so its cost depends on the lists and not on the length of the chain.
+ * A token is a run of letters and digits, lower-cased, so "Alice pays Bob 5 DSCoin" has the tokens alice, pays, bob,
+ * 5 and dscoin.
+ *
+ * Blocks are indexed in chain order, with the hash they were mined with. The chain adds every block it commits, and
+ * drops the blocks from the first repaired one before indexing them again with their new hashes. The data of a block
+ * changed without a repair (a corruption) is not indexed again until the block is repaired.
+ *
+ * Class Fields:
+ * - `heights` (HashMap<Hash, Integer>): The height of every indexed block, by hash.
+ * - `hashes` (Hash[]): The hash of every indexed block, by height.
+ * - `size` (int): The number of indexed blocks.
+ * - `postings` (HashMap<String, Postings>): The heights of the blocks holding each token.
+ *
+ * Nested Classes:
+ * - `Postings`: A growable, ascending list of heights.
+ *
+ * Methods:
+ * - `size()`: Get the number of indexed blocks.
+ * - `add(int height, Hash hash, List<String> transactions)`: Index the next block.
+ * - `truncate(int size)`: Drop the blocks from height `size` on.
+ * - `heightOf(Hash hash)`: Find the height of a block by its hash.
+ * - `search(String query, int limit)`: Find the blocks whose transactions hold every token of a query.
+ * - `tokens(String text)`: Split a text into its distinct tokens.
+ */
+
+package ds.project3task1;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+public class ChainIndex {
+    // what separates two tokens
+    private static final Pattern SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    /**
+     * The ascending heights of the blocks holding a token.
+     */
+    private static class Postings {
+        // the heights, the first `size` are used
+        private int[] heights = new int[4];
+        // the number of heights
+        private int size;
+
+        /**
+         * Add a height, higher than all the others.
+         *
+         * @param height The height.
+         */
+        void add(int height) {
+            if (size == heights.length) {
+                heights = Arrays.copyOf(heights, size * 2);
+            }
+            heights[size++] = height;
+        }
+
+        /**
+         * Drop the heights from the given one on.
+         *
+         * @param height The first height to drop.
+         */
+        void truncate(int height) {
+            while (size > 0 && heights[size - 1] >= height) {
+                size--;
+            }
+        }
+
+        /**
+         * Check whether a height is in the list.
+         *
+         * @param height The height.
+         * @return true if the list holds it.
+         */
+        boolean contains(int height) {
+            return Arrays.binarySearch(heights, 0, size, height) >= 0;
+        }
+    }
+
+    // the height of every indexed block, by hash
+    private final HashMap<Hash, Integer> heights = new HashMap<>();
+    // the hash of every indexed block, by height
+    private Hash[] hashes = new Hash[16];
+    // the number of indexed blocks
+    private int size;
+    // the heights of the blocks holding each token
+    private final HashMap<String, Postings> postings = new HashMap<>();
+
+    /**
+     * Get the number of indexed blocks. They are the first blocks of the chain.
+     *
+     * @return The number of blocks.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Index the next block of the chain.
+     *
+     * @param height The height of the block, equal to the number of indexed blocks.
+     * @param hash The hash of the block.
+     * @param transactions The transactions of the block.
+     */
+    public synchronized void add(int height, Hash hash, List<String> transactions) {
+        if (height != size) {
+            throw new IllegalArgumentException("Block " + height + " indexed after " + size + " blocks");
+        }
+        if (size == hashes.length) {
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        hashes[size++] = hash;
+        heights.put(hash, height);
+
+        // a token is listed once per block, however many transactions hold it
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String transaction : transactions) {
+            tokens.addAll(tokens(transaction));
+        }
+        for (String token : tokens) {
+            postings.computeIfAbsent(token, t -> new Postings()).add(height);
+        }
+    }
+
+    /**
+     * Drop the blocks from height `size` on, before they are indexed again after a repair.
+     *
+     * @param size The number of blocks to keep.
+     */
+    public synchronized void truncate(int size) {
+        if (size >= this.size) {
+            return;
+        }
+        for (int i = size; i < this.size; i++) {
+            heights.remove(hashes[i], i);
+            hashes[i] = null;
+        }
+        this.size = size;
+        // repairs mine blocks again, next to which going through every token once costs nothing
+        Iterator<Postings> it = postings.values().iterator();
+        while (it.hasNext()) {
+            Postings p = it.next();
+            p.truncate(size);
+            if (p.size == 0) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Find the height of a block by its hash.
+     *
+     * @param hash The hash of the block.
+     * @return The height, or -1 if no indexed block has that hash.
+     */
+    public synchronized int heightOf(Hash hash) {
+        Integer height = heights.get(hash);
+        return height == null ? -1 : height;
+    }
+
+    /**
+     * Find the blocks whose transactions hold every token of a query.
+     *
+     * @param query The words to look for, in any order.
+     * @param limit The largest number of heights to return.
+     * @return The heights of the blocks, ascending; empty if the query has no token.
+     */
+    public synchronized int[] search(String query, int limit) {
+        List<Postings> lists = new ArrayList<>();
+        for (String token : tokens(query)) {
+            Postings p = postings.get(token);
+            if (p == null) {
+                return new int[0];
+            }
+            lists.add(p);
+        }
+        if (lists.isEmpty()) {
+            return new int[0];
+        }
+        // walk the shortest list, every other list is only searched
+        lists.sort(Comparator.comparingInt(p -> p.size));
+        Postings shortest = lists.get(0);
+        int[] found = new int[Math.min(limit, shortest.size)];
+        int n = 0;
+        for (int i = 0; i < shortest.size && n < found.length; i++) {
+            int height = shortest.heights[i];
+            boolean all = true;
+            for (int k = 1; k < lists.size() && all; k++) {
+                all = lists.get(k).contains(height);
+            }
+            if (all) {
+                found[n++] = height;
+            }
+        }
+        return Arrays.copyOf(found, n);
+    }
+
+    /**
+     * Split a text into its distinct tokens: runs of letters and digits, lower-cased.
+     *
+     * @param text The text.
+     * @return The tokens, in the order they first appear.
+     */
+    public static Set<String> tokens(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String token : SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
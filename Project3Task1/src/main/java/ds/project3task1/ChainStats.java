@@ -0,0 +1,160 @@
+/**
+ * ChainStats Class Documentation
+ *
+ * The `ChainStats` class keeps running aggregates over the blocks of a `BlockChain`, so that the status of the chain
+ * costs the same at 10 blocks or 10 million: the number of blocks counted, a histogram of their difficulties, their
+ * total difficulty and the time spent mining. The chain counts every block it commits and every change of the
+ * difficulty of a counted block. Difficulties are counted in one unit, the leading zero bits a hash must have
+ * (`Block.zeroBits`: 4 per hex zero, the difficulty itself for a `Block.TARGET` block), so that blocks counted in
+ * hex zeroes and blocks counted in bits can share one chain. The total expected hashes are computed from the
+ * histogram, with one power of 2 per distinct number of bits instead of one per block.
+ *
+ * Blocks are counted in chain order. A chain opened from a store counts its stored blocks on the first status request,
+ * like its index. The mining time covers the proof of work done since the chain was created or opened, repairs and
+ * cancelled jobs included.
+ *
+ * Class Fields:
+ * - `size` (int): The number of blocks counted.
+ * - `totalDifficulty` (long): The sum of the leading zero bits required by the counted blocks.
+ * - `zeroBits` (TreeMap<Integer, Integer>): The number of counted blocks of every number of leading zero bits required.
+ * - `miningNanos` (long): The time spent mining, in nanoseconds.
+ *
+ * Methods:
+ * - `size()`: Get the number of blocks counted.
+ * - `add(int height, int version, int difficulty)`: Count the next block.
+ * - `removeLast(int height, int version, int difficulty)`: Stop counting the last counted block.
+ * - `changeDifficulty(int height, int version, int from, int to)`: Move a counted block to another difficulty.
+ * - `addMiningTime(long nanos)`: Add time spent mining.
+ * - `getTotalDifficulty()`: Get the total difficulty, in leading zero bits.
+ * - `getTotalExpectedHashes()`: Get the total expected hashes.
+ * - `getHistogram()`: Get the number of blocks of every number of leading zero bits.
+ * - `getMiningMillis()`: Get the time spent mining.
+ */
+
+package ds.project3task1;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+public class ChainStats {
+    // the number of blocks counted
+    private int size;
+    // the sum of their difficulties, in leading zero bits
+    private long totalDifficulty;
+    // the number of blocks of every number of leading zero bits required, by bits
+    private final TreeMap<Integer, Integer> zeroBits = new TreeMap<>();
+    // the time spent mining
+    private long miningNanos;
+
+    /**
+     * Get the number of blocks counted. They are the first blocks of the chain.
+     *
+     * @return The number of blocks.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Count the next block of the chain.
+     *
+     * @param height The height of the block, equal to the number of blocks counted.
+     * @param version The version of the block, which tells how its difficulty is counted.
+     * @param difficulty The difficulty of the block.
+     */
+    public synchronized void add(int height, int version, int difficulty) {
+        if (height != size) {
+            throw new IllegalArgumentException("Block " + height + " counted after " + size + " blocks");
+        }
+        int bits = Block.zeroBits(version, difficulty);
+        size++;
+        totalDifficulty += bits;
+        zeroBits.merge(bits, 1, Integer::sum);
+    }
+
+    /**
+     * Stop counting the last counted block, when the chain drops it for the blocks of a peer.
+     *
+     * @param height The height of the block, the number of blocks counted minus one.
+     * @param version The version of the block.
+     * @param difficulty The difficulty of the block.
+     */
+    public synchronized void removeLast(int height, int version, int difficulty) {
+        if (height != size - 1) {
+            throw new IllegalArgumentException("Block " + height + " removed from " + size + " blocks");
+        }
+        int bits = Block.zeroBits(version, difficulty);
+        size--;
+        totalDifficulty -= bits;
+        zeroBits.computeIfPresent(bits, (b, n) -> n == 1 ? null : n - 1);
+    }
+
+    /**
+     * Move a block to another difficulty. A block that is not counted yet is counted with its new difficulty later.
+     *
+     * @param height The height of the block.
+     * @param version The version of the block.
+     * @param from The old difficulty.
+     * @param to The new difficulty.
+     */
+    public synchronized void changeDifficulty(int height, int version, int from, int to) {
+        if (height >= size || from == to) {
+            return;
+        }
+        int fromBits = Block.zeroBits(version, from);
+        int toBits = Block.zeroBits(version, to);
+        totalDifficulty += toBits - fromBits;
+        zeroBits.computeIfPresent(fromBits, (b, n) -> n == 1 ? null : n - 1);
+        zeroBits.merge(toBits, 1, Integer::sum);
+    }
+
+    /**
+     * Add time spent mining.
+     *
+     * @param nanos The time in nanoseconds.
+     */
+    public synchronized void addMiningTime(long nanos) {
+        miningNanos += nanos;
+    }
+
+    /**
+     * Get the total difficulty of the counted blocks, in leading zero bits.
+     *
+     * @return The sum of the leading zero bits they require.
+     */
+    public synchronized long getTotalDifficulty() {
+        return totalDifficulty;
+    }
+
+    /**
+     * Get the total expected hashes of the counted blocks: 2^bits per block, that is 16^difficulty for a difficulty
+     * in hex zeroes, summed per number of bits.
+     *
+     * @return The expected number of hashes to mine every counted block.
+     */
+    public synchronized double getTotalExpectedHashes() {
+        double total = 0;
+        for (Map.Entry<Integer, Integer> e : zeroBits.entrySet()) {
+            total += e.getValue() * Math.pow(2, e.getKey());
+        }
+        return total;
+    }
+
+    /**
+     * Get the number of counted blocks of every difficulty, in leading zero bits.
+     *
+     * @return A copy of the histogram, by ascending number of bits.
+     */
+    public synchronized TreeMap<Integer, Integer> getHistogram() {
+        return new TreeMap<>(zeroBits);
+    }
+
+    /**
+     * Get the time spent mining since the chain was created or opened.
+     *
+     * @return The time in milliseconds.
+     */
+    public synchronized long getMiningMillis() {
+        return miningNanos / 1000000;
+    }
+}
@@ -0,0 +1,361 @@
+/**
+ * ChainValidator Class Documentation
+ *
+ * The `ChainValidator` class checks that a `BlockChain` is valid and uncorrupted. It gives the same answers as the
+ * original `BlockChain.isChainValid()` loop, but hashes every block exactly once: the hashes of all blocks are
+ * computed first, in parallel chunks across the cores, into one flat array. The checks are then done in chain order
+ * on the precomputed hashes, so the link check of block i compares its previousHash with the stored hash of block
+ * i - 1 instead of hashing block i - 1 again, and the first failure reported is always the same.
+ *
+ * In the incremental mode only the dirty blocks (changed since they were last mined or verified) are hashed. A block
+ * that is not dirty still has its last verified hash, its proof of work and its link to a clean predecessor, so the
+ * only checks that can fail are those of the dirty blocks and the links of their successors. These checks are done in
+ * chain order, which gives the same first failure as a full validation. After a successful validation the hashes are
+ * recorded in the blocks and the blocks are marked clean.
+ *
+ * In the checkpoint mode the blocks up to the last checkpoint of the chain are trusted, unless they are dirty. The
+ * blocks from the checkpoint (or from the first dirty block below it) to the last one are validated like in a full
+ * validation; the first of them is linked to the last verified hash of its predecessor, and the checkpointed block
+ * must still have the hash of its checkpoint.
+ *
+ * Class Fields:
+ * - `chunkSize` (int): The number of blocks hashed by one parallel task.
+ *
+ * Nested Classes:
+ * - `Result`: The outcome of a validation: the message, and the position of the first failure.
+ *
+ * Methods:
+ * - `validate(BlockChain chain)`: Validate the whole chain.
+ * - `validate(BlockChain chain, ValidationMode mode)`: Validate the whole chain, only the dirty blocks, or the blocks
+ *   since the last checkpoint.
+ */
+
+package ds.project3task1;
+
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+public class ChainValidator {
+    // chains shorter than this are hashed on the calling thread
+    private static final int DEFAULT_CHUNK_SIZE = 1024;
+
+    // the number of blocks hashed by one parallel task
+    private final int chunkSize;
+
+    /**
+     * Constructor to create a validator with the default chunk size.
+     */
+    public ChainValidator() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructor to create a validator with the given chunk size.
+     *
+     * @param chunkSize The number of blocks hashed by one parallel task.
+     */
+    public ChainValidator(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be at least 1");
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * The outcome of a validation.
+     */
+    public static class Result {
+        // the position of the first failure, -1 if the chain is valid
+        private final int failedIndex;
+        // "TRUE", or "FALSE" followed by the description of the failure
+        private final String message;
+
+        /**
+         * Constructor to create a result.
+         *
+         * @param failedIndex The position of the first failure, -1 if the chain is valid.
+         * @param message The message returned by `BlockChain.isChainValid()`.
+         */
+        Result(int failedIndex, String message) {
+            this.failedIndex = failedIndex;
+            this.message = message;
+        }
+
+        /**
+         * Check whether the chain is valid.
+         *
+         * @return true if no failure was found.
+         */
+        public boolean isValid() {
+            return failedIndex < 0;
+        }
+
+        /**
+         * Get the position of the first failure. A chain hash error is reported at the chain size, after the last block.
+         *
+         * @return The index of the first invalid block, or -1 if the chain is valid.
+         */
+        public int getFailedIndex() {
+            return failedIndex;
+        }
+
+        /**
+         * Get the validation message.
+         *
+         * @return "TRUE" if the chain is valid, or an error message if it's corrupted.
+         */
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    /**
+     * Validate the whole chain: the proof of work of every block, the link of every block to the previous one,
+     * and the chain hash.
+     *
+     * @param chain The chain to validate.
+     * @return The result of the validation.
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    public Result validate(BlockChain chain) throws NoSuchAlgorithmException {
+        return validate(chain, ValidationMode.FULL);
+    }
+
+    /**
+     * Validate the chain in the given mode.
+     *
+     * @param chain The chain to validate.
+     * @param mode FULL to check every block, INCREMENTAL to check only the dirty blocks and their successors' links,
+     *             CHECKPOINT to check the blocks after the last checkpoint.
+     * @return The result of the validation.
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    public Result validate(BlockChain chain, ValidationMode mode) throws NoSuchAlgorithmException {
+        switch (mode) {
+            case INCREMENTAL:
+                return validateDirty(chain);
+            case CHECKPOINT:
+                return validateFromCheckpoint(chain);
+            default:
+                return validateAll(chain);
+        }
+    }
+
+    /**
+     * Validate every block of the chain and record the hashes of a valid chain in its blocks.
+     *
+     * @param chain The chain to validate.
+     * @return The result of the validation.
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    private Result validateAll(BlockChain chain) throws NoSuchAlgorithmException {
+        return validateFrom(chain, 0, null);
+    }
+
+    /**
+     * Validate the blocks from the last checkpoint of the chain, or from its first dirty block if that is lower.
+     *
+     * @param chain The chain to validate.
+     * @return The result of the validation.
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    private Result validateFromCheckpoint(BlockChain chain) throws NoSuchAlgorithmException {
+        Checkpoints.Checkpoint checkpoint = chain.getCheckpoints().latestBelow(chain.getChainSize());
+        int start = checkpoint == null ? 0 : checkpoint.getHeight();
+        // a block changed below the checkpoint is not trusted any more
+        int firstDirty = chain.getDirtyBlocks().nextSetBit(0);
+        if (firstDirty >= 0 && firstDirty < start) {
+            start = firstDirty;
+        }
+        return validateFrom(chain, start, checkpoint);
+    }
+
+    /**
+     * Validate the blocks from the given position to the last one and record the hashes of a valid chain in them.
+     * The block at `start` is linked to the last verified hash of its predecessor, the others to the hash computed
+     * for their predecessor.
+     *
+     * @param chain The chain to validate.
+     * @param start The position of the first block to check.
+     * @param checkpoint The checkpoint the checked block at its height must match, or null.
+     * @return The result of the validation.
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    private Result validateFrom(BlockChain chain, int start, Checkpoints.Checkpoint checkpoint)
+            throws NoSuchAlgorithmException {
+        int size = chain.getChainSize();
+        int count = size - start;
+        byte[] hashes = new byte[count * 32];
+        boolean[] proofs = new boolean[count];
+        forEachChunk(count, (from, to) -> {
+            BlockHasher hasher = BlockHasher.forCurrentThread();
+            for (int k = from; k < to; k++) {
+                proofs[k] = hasher.hashBlock(chain.getBlock(start + k), hashes, k * 32);
+            }
+        });
+
+        // checking in chain order, until we have validated every block from start
+        for (int k = 0; k < count; k++) {
+            int i = start + k;
+            // compare the previous hash with the hash of the previous block; block 0 has no link to check
+            if (i > 0 && !(k == 0 ? linkedToVerified(chain, i)
+                    : chain.getBlock(i).getPreviousHash().equals(hashes, (k - 1) * 32))) {
+                return new Result(i, "FALSE\nBlock " + i + " previous hash error.");
+            } else if (!proofs[k]) {
+                return improperHash(chain, i);
+            } else if (checkpoint != null && i == checkpoint.getHeight()
+                    && !checkpoint.getHash().equals(hashes, k * 32)) {
+                return new Result(i, "FALSE\nBlock " + i + " does not match its checkpoint.");
+            }
+        }
+        // check chainHash
+        if (!chain.getChainHash().equals(hashes, (count - 1) * 32)) {
+            return new Result(size, "FALSE\nChain hash error.");
+        }
+
+        // the checked blocks are verified, only blocks whose hash changed need a new Hash
+        for (int k = 0; k < count; k++) {
+            Block b = chain.getBlock(start + k);
+            if (b.getVerifiedHash() != null && b.getVerifiedHash().equals(hashes, k * 32)) {
+                chain.markClean(start + k);
+            } else {
+                b.markVerified(Hash.of(hashes, k * 32));
+            }
+        }
+        return new Result(-1, "TRUE");
+    }
+
+    /**
+     * Check the link of block i to the last verified hash of block i - 1, which is trusted.
+     *
+     * @param chain The validated chain.
+     * @param i The index of the block whose link is checked (at least 1).
+     * @return true if the previousHash of block i is the verified hash of block i - 1.
+     */
+    private static boolean linkedToVerified(BlockChain chain, int i) {
+        Hash verified = chain.getBlock(i - 1).getVerifiedHash();
+        return verified != null && verified.equals(chain.getBlock(i).getPreviousHash());
+    }
+
+    /**
+     * Validate only the dirty blocks of the chain and the links of their successors, in chain order.
+     * The blocks are marked clean if the chain is valid.
+     *
+     * @param chain The chain to validate.
+     * @return The result of the validation.
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    private Result validateDirty(BlockChain chain) throws NoSuchAlgorithmException {
+        int size = chain.getChainSize();
+        // the dirty positions in ascending order
+        int[] dirty = chain.getDirtyBlocks().stream().filter(p -> p < size).toArray();
+        byte[] hashes = new byte[dirty.length * 32];
+        boolean[] proofs = new boolean[dirty.length];
+        forEachChunk(dirty.length, (from, to) -> {
+            BlockHasher hasher = BlockHasher.forCurrentThread();
+            for (int k = from; k < to; k++) {
+                proofs[k] = hasher.hashBlock(chain.getBlock(dirty[k]), hashes, k * 32);
+            }
+        });
+
+        for (int k = 0; k < dirty.length; k++) {
+            int i = dirty[k];
+            // the link and the proof of work of the dirty block itself
+            if (i > 0 && !linked(chain, dirty, hashes, i)) {
+                return new Result(i, "FALSE\nBlock " + i + " previous hash error.");
+            } else if (!proofs[k]) {
+                return improperHash(chain, i);
+            }
+            // the link of a clean successor, that still points to the old hash of this block
+            int next = i + 1;
+            if (next < size && (k + 1 == dirty.length || dirty[k + 1] != next) && !linked(chain, dirty, hashes, next)) {
+                return new Result(next, "FALSE\nBlock " + next + " previous hash error.");
+            }
+        }
+
+        // check chainHash against the last block
+        int last = size - 1;
+        int slot = Arrays.binarySearch(dirty, last);
+        boolean chainHashOk = slot >= 0
+                ? chain.getChainHash().equals(hashes, slot * 32)
+                : chain.getChainHash().equals(chain.getBlock(last).getVerifiedHash());
+        if (!chainHashOk) {
+            return new Result(size, "FALSE\nChain hash error.");
+        }
+
+        for (int k = 0; k < dirty.length; k++) {
+            chain.getBlock(dirty[k]).markVerified(Hash.of(hashes, k * 32));
+        }
+        return new Result(-1, "TRUE");
+    }
+
+    /**
+     * Check the link of block i to block i - 1, using the new hash of block i - 1 if it is dirty
+     * and its last verified hash otherwise.
+     *
+     * @param chain The validated chain.
+     * @param dirty The dirty positions in ascending order.
+     * @param hashes The hashes of the dirty blocks, in the same order.
+     * @param i The index of the block whose link is checked (at least 1).
+     * @return true if the previousHash of block i is the hash of block i - 1.
+     */
+    private static boolean linked(BlockChain chain, int[] dirty, byte[] hashes, int i) {
+        Hash previousHash = chain.getBlock(i).getPreviousHash();
+        int slot = Arrays.binarySearch(dirty, i - 1);
+        if (slot >= 0) {
+            return previousHash.equals(hashes, slot * 32);
+        }
+        Hash verified = chain.getBlock(i - 1).getVerifiedHash();
+        return verified != null && verified.equals(previousHash);
+    }
+
+    /**
+     * Build the result for a block whose hash does not have the required leading hex zeroes, or leading zero bits
+     * for a `Block.TARGET` block.
+     *
+     * @param chain The validated chain.
+     * @param i The index of the block.
+     * @return The failure result.
+     */
+    private static Result improperHash(BlockChain chain, int i) {
+        Block block = chain.getBlock(i);
+        if (block.getVersion() == Block.TARGET) {
+            return new Result(i, "FALSE\nImproper hash on node " + i + " does not begin with "
+                    + block.getDifficulty() + " zero bits");
+        }
+        String check = "0".repeat(block.getDifficulty());
+        return new Result(i, "FALSE\nImproper hash on node " + i + " does not begin with " + check);
+    }
+
+    /**
+     * The hashing work for the items from `from` (inclusive) to `to` (exclusive).
+     */
+    private interface RangeTask {
+        void run(int from, int to) throws NoSuchAlgorithmException;
+    }
+
+    /**
+     * Run a task over `count` items, on the calling thread for a single chunk and in parallel chunks otherwise.
+     *
+     * @param count The number of items.
+     * @param task The work for a range of items.
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    private void forEachChunk(int count, RangeTask task) throws NoSuchAlgorithmException {
+        if (count <= chunkSize) {
+            task.run(0, count);
+            return;
+        }
+        // fail on the calling thread rather than inside a worker
+        BlockHasher.forCurrentThread();
+        int chunks = (count + chunkSize - 1) / chunkSize;
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            try {
+                task.run(c * chunkSize, Math.min(count, (c + 1) * chunkSize));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+}
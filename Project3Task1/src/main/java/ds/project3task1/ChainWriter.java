@@ -0,0 +1,155 @@
+/**
+ * ChainWriter Class Documentation
+ *
+ * The `ChainWriter` class streams the blocks of a `BlockChain` as JSON to a `Writer` or an `OutputStream` with Gson's
+ * `JsonWriter`. Every block is written field by field straight to the output, so no string of the whole chain (or of
+ * a block) is ever built and the memory used does not grow with the chain. A range of blocks can be written as a page,
+ * so that a server sends a long chain in pieces of bounded size.
+ *
+ * A page is written as one JSON object:
+ * {"from":0,"size":3,"chainHash":"...","ds_chain":[{"index":0,"time stamp":"...","Tx":"...","PrevHash":"...",
+ * "nonce":...,"difficulty":...},...],"next":2}
+ * where `size` is the size of the whole chain, the blocks use the same properties as `Block.toString()` (with
+ * "version" and "MerkleRoot" for a Merkle block), and `next`
+ * is the position of the first block of the following page (absent on the last page).
+ *
+ * A page that starts past the end of the chain is the empty page at the end, and a page whose last blocks are dropped
+ * while it is written (when a `PeerNode` takes a peer's shorter fork) ends at the last block still there, so a reader
+ * paging through a chain that shrinks gets a well-formed page instead of an exception in the middle of it.
+ *
+ * Class Fields:
+ * - `chain` (BlockChain): The chain to write.
+ *
+ * Constructors:
+ * - `ChainWriter(BlockChain chain)`: Create a writer for a chain.
+ *
+ * Methods:
+ * - `write(Writer out)`: Write the whole chain as a single page.
+ * - `write(OutputStream out)`: Write the whole chain as a single page, in UTF-8.
+ * - `writePage(Writer out, int from, int pageSize)`: Write up to `pageSize` blocks starting at position `from`.
+ * - `writePage(JsonWriter writer, int from, int pageSize)`: Write a page as a value of an enclosing JSON document.
+ */
+
+package ds.project3task1;
+
+import com.google.gson.stream.JsonWriter;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+public class ChainWriter {
+    // the chain to write
+    private final BlockChain chain;
+
+    /**
+     * Constructor to create a writer for a chain.
+     *
+     * @param chain The chain to write.
+     */
+    public ChainWriter(BlockChain chain) {
+        this.chain = chain;
+    }
+
+    /**
+     * Write the whole chain as a single page.
+     *
+     * @param out The output. It is flushed, not closed.
+     * @throws IOException if the output can not be written.
+     */
+    public void write(Writer out) throws IOException {
+        writePage(out, 0, Math.max(1, chain.getChainSize()));
+    }
+
+    /**
+     * Write the whole chain as a single page, encoded in UTF-8.
+     *
+     * @param out The output. It is flushed, not closed.
+     * @throws IOException if the output can not be written.
+     */
+    public void write(OutputStream out) throws IOException {
+        write(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Write up to `pageSize` blocks starting at position `from`.
+     *
+     * @param out The output. It is flushed, not closed.
+     * @param from The position of the first block of the page.
+     * @param pageSize The largest number of blocks in the page.
+     * @throws IOException if the output can not be written.
+     */
+    public void writePage(Writer out, int from, int pageSize) throws IOException {
+        JsonWriter writer = new JsonWriter(out);
+        writePage(writer, from, pageSize);
+        // flush without closing, the output belongs to the caller
+        writer.flush();
+    }
+
+    /**
+     * Write up to `pageSize` blocks starting at position `from`, as a value of a JSON document being written,
+     * for example as a property of a response message.
+     *
+     * @param writer The JSON writer.
+     * @param from The position of the first block of the page, at least 0; past the chain size, the page is empty.
+     * @param pageSize The largest number of blocks in the page, at least 1.
+     * @throws IOException if the output can not be written.
+     */
+    public void writePage(JsonWriter writer, int from, int pageSize) throws IOException {
+        if (from < 0) {
+            throw new IllegalArgumentException("from must be at least 0: " + from);
+        }
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize must be at least 1: " + pageSize);
+        }
+        int size = chain.getChainSize();
+        from = Math.min(from, size);
+        int to = (int) Math.min(size, (long) from + pageSize);
+
+        writer.beginObject();
+        writer.name("from").value(from);
+        writer.name("size").value(size);
+        writer.name("chainHash").value(chain.getChainHash().toString());
+        writer.name("ds_chain").beginArray();
+        for (int i = from; i < to; i++) {
+            Block block;
+            try {
+                block = chain.getBlock(i);
+            } catch (IndexOutOfBoundsException e) {
+                // the chain lost its last blocks while the page was written
+                to = i;
+                break;
+            }
+            writeBlock(writer, block);
+        }
+        writer.endArray();
+        if (to < size) {
+            writer.name("next").value(to);
+        }
+        writer.endObject();
+    }
+
+    /**
+     * Write one block with the properties of `Block.toString()`.
+     *
+     * @param writer The JSON writer.
+     * @param block The block to write.
+     * @throws IOException if the output can not be written.
+     */
+    private static void writeBlock(JsonWriter writer, Block block) throws IOException {
+        writer.beginObject();
+        writer.name("index").value(block.getIndex());
+        writer.name("time stamp").value(block.getTimestamp().toString());
+        writer.name("Tx").value(block.getData());
+        writer.name("PrevHash").value(block.getPreviousHash().toString());
+        writer.name("nonce").value(block.getNonce());
+        writer.name("difficulty").value(block.getDifficulty());
+        if (block.getVersion() != Block.LEGACY) {
+            writer.name("version").value(block.getVersion());
+            writer.name("MerkleRoot").value(block.getMerkleRoot().toString());
+        }
+        writer.endObject();
+    }
+}
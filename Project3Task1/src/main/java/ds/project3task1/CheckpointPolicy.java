@@ -0,0 +1,89 @@
+/**
+ * CheckpointPolicy Class Documentation
+ *
+ * The `CheckpointPolicy` class decides when a `BlockChain` records a new trusted checkpoint: once a given number of
+ * blocks were added since the last checkpoint, or once a given time passed since it, whichever comes first. Either
+ * criterion is turned off with 0. A checkpoint is only recorded while no block of the chain changed since it was last
+ * mined or verified, so the chain never trusts a corrupted prefix.
+ *
+ * Class Fields:
+ * - `everyBlocks` (int): The number of blocks added after which a checkpoint is due, 0 for no block criterion.
+ * - `everyMillis` (long): The time after which a checkpoint is due, in milliseconds, 0 for no time criterion.
+ *
+ * Constructors:
+ * - `CheckpointPolicy(int everyBlocks, long every, TimeUnit unit)`: Creates a policy with both criteria.
+ *
+ * Methods:
+ * - `everyBlocks(int blocks)`: Create a policy with the block criterion only.
+ * - `getEveryBlocks()`: Get the block criterion.
+ * - `getEveryMillis()`: Get the time criterion.
+ * - `isDue(int blocksSince, long millisSince)`: Check whether a checkpoint is due.
+ */
+
+package ds.project3task1;
+
+import java.util.concurrent.TimeUnit;
+
+public class CheckpointPolicy {
+    // the number of blocks after which a checkpoint is due, 0 for none
+    private final int everyBlocks;
+    // the time after which a checkpoint is due, 0 for none
+    private final long everyMillis;
+
+    /**
+     * Constructor to create a policy with a block criterion and a time criterion.
+     *
+     * @param everyBlocks The number of blocks added after which a checkpoint is due, 0 for no block criterion.
+     * @param every The time after which a checkpoint is due, 0 for no time criterion.
+     * @param unit The unit of the time.
+     */
+    public CheckpointPolicy(int everyBlocks, long every, TimeUnit unit) {
+        if (everyBlocks < 0 || every < 0) {
+            throw new IllegalArgumentException("A checkpoint interval can not be negative");
+        }
+        this.everyBlocks = everyBlocks;
+        this.everyMillis = unit.toMillis(every);
+    }
+
+    /**
+     * Create a policy that records a checkpoint every given number of blocks.
+     *
+     * @param blocks The number of blocks added after which a checkpoint is due.
+     * @return The policy.
+     */
+    public static CheckpointPolicy everyBlocks(int blocks) {
+        return new CheckpointPolicy(blocks, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Get the number of blocks added after which a checkpoint is due.
+     *
+     * @return The number of blocks, 0 for no block criterion.
+     */
+    public int getEveryBlocks() {
+        return everyBlocks;
+    }
+
+    /**
+     * Get the time after which a checkpoint is due.
+     *
+     * @return The time in milliseconds, 0 for no time criterion.
+     */
+    public long getEveryMillis() {
+        return everyMillis;
+    }
+
+    /**
+     * Check whether a checkpoint is due. No checkpoint is due before a block was added since the last one.
+     *
+     * @param blocksSince The number of blocks added since the last checkpoint.
+     * @param millisSince The time since the last checkpoint, in milliseconds.
+     * @return true if one of the criteria is met.
+     */
+    public boolean isDue(int blocksSince, long millisSince) {
+        if (blocksSince <= 0) {
+            return false;
+        }
+        return (everyBlocks > 0 && blocksSince >= everyBlocks) || (everyMillis > 0 && millisSince >= everyMillis);
+    }
+}
@@ -0,0 +1,273 @@
+/**
+ * Checkpoints Class Documentation
+ *
+ * The `Checkpoints` class records the trusted checkpoints of a `BlockChain`: (height, hash) pairs of blocks whose
+ * whole prefix, from the Genesis block up to and including the block, was known to be valid when the checkpoint was
+ * recorded. A checkpoint validation (`ValidationMode.CHECKPOINT`) starts from the last checkpoint instead of the
+ * Genesis block, so its cost is proportional to the blocks added since then and not to the height of the chain.
+ *
+ * The checkpoints are in ascending height order. A repair mines blocks again and changes their hashes, so the
+ * checkpoints from the first repaired block on are dropped with `truncate`.
+ *
+ * A chain kept in a block store keeps its checkpoints next to the blocks, in the file `checkpoints.dat` of the store
+ * directory: one record of `RECORD_SIZE` bytes per checkpoint, the height (int), the time it was recorded in
+ * milliseconds since the epoch (long) and the block hash (32 bytes). Every record is forced to disk before `add`
+ * returns; a record interrupted by a crash is dropped on the next start.
+ *
+ * Class Fields:
+ * - `heights` (int[]): The height of every checkpoint, ascending.
+ * - `hashes` (Hash[]): The block hash of every checkpoint.
+ * - `times` (long[]): The time every checkpoint was recorded, in milliseconds since the epoch.
+ * - `size` (int): The number of checkpoints.
+ * - `file` (FileChannel): The checkpoint file, or null for checkpoints kept in memory only.
+ *
+ * Nested Classes:
+ * - `Checkpoint`: One checkpoint: its height, its block hash and the time it was recorded.
+ *
+ * Constructors:
+ * - `Checkpoints()`: Creates an empty list kept in memory only.
+ *
+ * Methods:
+ * - `open(Path directory)`: Open the checkpoints kept in a directory, creating the file if needed.
+ * - `size()`: Get the number of checkpoints.
+ * - `latest()`: Get the highest checkpoint.
+ * - `latestBelow(int size)`: Get the highest checkpoint of a chain of the given size.
+ * - `add(int height, Hash hash)`: Record a checkpoint above all the others.
+ * - `truncate(int height)`: Drop the checkpoints from the given height on.
+ * - `close()`: Close the checkpoint file.
+ */
+
+package ds.project3task1;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class Checkpoints implements Closeable {
+    // the length of a record of the checkpoint file
+    static final int RECORD_SIZE = 4 + 8 + Hash.SIZE;
+    // the name of the checkpoint file
+    private static final String CHECKPOINT_FILE = "checkpoints.dat";
+
+    /**
+     * One trusted checkpoint.
+     */
+    public static class Checkpoint {
+        // the height of the block
+        private final int height;
+        // the hash of the block
+        private final Hash hash;
+        // the time the checkpoint was recorded
+        private final long createdMillis;
+
+        /**
+         * Constructor to create a checkpoint.
+         *
+         * @param height The height of the block.
+         * @param hash The hash of the block.
+         * @param createdMillis The time the checkpoint was recorded, in milliseconds since the epoch.
+         */
+        Checkpoint(int height, Hash hash, long createdMillis) {
+            this.height = height;
+            this.hash = hash;
+            this.createdMillis = createdMillis;
+        }
+
+        /**
+         * Get the height of the block.
+         *
+         * @return The position of the block in the chain.
+         */
+        public int getHeight() {
+            return height;
+        }
+
+        /**
+         * Get the hash of the block.
+         *
+         * @return The hash the block had when the checkpoint was recorded.
+         */
+        public Hash getHash() {
+            return hash;
+        }
+
+        /**
+         * Get the time the checkpoint was recorded.
+         *
+         * @return The time in milliseconds since the epoch.
+         */
+        public long getCreatedMillis() {
+            return createdMillis;
+        }
+    }
+
+    // the height of every checkpoint, ascending
+    private int[] heights = new int[16];
+    // the block hash of every checkpoint
+    private Hash[] hashes = new Hash[16];
+    // the time every checkpoint was recorded
+    private long[] times = new long[16];
+    // the number of checkpoints
+    private int size;
+    // the checkpoint file, null for checkpoints kept in memory only
+    private FileChannel file;
+
+    /**
+     * Constructor to create an empty list of checkpoints kept in memory only.
+     */
+    public Checkpoints() {
+    }
+
+    /**
+     * Open the checkpoints kept in a directory, creating the directory and the file if needed.
+     *
+     * @param directory The directory holding the checkpoint file, the directory of the block store.
+     * @return The checkpoints read from the file.
+     * @throws IOException if the file can not be created or read.
+     */
+    public static Checkpoints open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        FileChannel file = FileChannel.open(directory.resolve(CHECKPOINT_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        Checkpoints checkpoints = new Checkpoints();
+
+        // only whole records count, a partly written record is dropped
+        int count = (int) (file.size() / RECORD_SIZE);
+        ByteBuffer records = file.map(FileChannel.MapMode.READ_ONLY, 0, (long) count * RECORD_SIZE);
+        for (int i = 0; i < count; i++) {
+            int height = records.getInt();
+            long created = records.getLong();
+            checkpoints.put(height, Hash.read(records), created);
+        }
+        file.truncate((long) count * RECORD_SIZE);
+        checkpoints.file = file;
+        return checkpoints;
+    }
+
+    /**
+     * Get the number of checkpoints.
+     *
+     * @return The number of checkpoints.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Get the highest checkpoint.
+     *
+     * @return The checkpoint, or null if there is none.
+     */
+    public synchronized Checkpoint latest() {
+        return size == 0 ? null : get(size - 1);
+    }
+
+    /**
+     * Get the highest checkpoint of a chain of the given size, ignoring checkpoints above its last block.
+     *
+     * @param size The number of blocks in the chain.
+     * @return The checkpoint with the highest height below `size`, or null if there is none.
+     */
+    public synchronized Checkpoint latestBelow(int size) {
+        // the insertion point of `size` is just after the last height below it
+        int slot = Arrays.binarySearch(heights, 0, this.size, size);
+        int below = (slot >= 0 ? slot : -slot - 1) - 1;
+        return below < 0 ? null : get(below);
+    }
+
+    /**
+     * Record a checkpoint, above all the others. The checkpoint is written to the file before this returns.
+     *
+     * @param height The height of the block, whose prefix is known to be valid.
+     * @param hash The hash of the block.
+     * @return The checkpoint.
+     * @throws IOException if the checkpoint can not be written.
+     */
+    public synchronized Checkpoint add(int height, Hash hash) throws IOException {
+        if (size > 0 && height <= heights[size - 1]) {
+            throw new IllegalArgumentException("Checkpoint " + height + " recorded after checkpoint "
+                    + heights[size - 1]);
+        }
+        long created = System.currentTimeMillis();
+        if (file != null) {
+            ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+            record.putInt(height).putLong(created);
+            hash.writeTo(record);
+            record.flip();
+            long position = (long) size * RECORD_SIZE;
+            while (record.hasRemaining()) {
+                position += file.write(record, position);
+            }
+            file.force(false);
+        }
+        put(height, hash, created);
+        return get(size - 1);
+    }
+
+    /**
+     * Drop the checkpoints from the given height on, before the blocks there are mined again by a repair.
+     *
+     * @param height The height of the first block that changes.
+     * @throws IOException if the file can not be truncated.
+     */
+    public synchronized void truncate(int height) throws IOException {
+        int slot = Arrays.binarySearch(heights, 0, size, height);
+        int keep = slot >= 0 ? slot : -slot - 1;
+        if (keep == size) {
+            return;
+        }
+        Arrays.fill(hashes, keep, size, null);
+        size = keep;
+        if (file != null) {
+            file.truncate((long) size * RECORD_SIZE);
+            file.force(false);
+        }
+    }
+
+    /**
+     * Close the checkpoint file. The checkpoints can still be read.
+     *
+     * @throws IOException if the file can not be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (file != null) {
+            file.close();
+            file = null;
+        }
+    }
+
+    /**
+     * Add a checkpoint to the lists in memory.
+     *
+     * @param height The height of the block.
+     * @param hash The hash of the block.
+     * @param created The time the checkpoint was recorded.
+     */
+    private void put(int height, Hash hash, long created) {
+        if (size == heights.length) {
+            heights = Arrays.copyOf(heights, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+            times = Arrays.copyOf(times, size * 2);
+        }
+        heights[size] = height;
+        hashes[size] = hash;
+        times[size] = created;
+        size++;
+    }
+
+    /**
+     * Get the checkpoint at a position of the lists.
+     *
+     * @param slot The position, below `size`.
+     * @return The checkpoint.
+     */
+    private Checkpoint get(int slot) {
+        return new Checkpoint(heights[slot], hashes[slot], times[slot]);
+    }
+}
@@ -0,0 +1,275 @@
+/**
+ * ColumnarBlockStorage Class Documentation
+ *
+ * The `ColumnarBlockStorage` class is a `BlockStorage` for chains of millions of blocks. Instead of one `Block` object
+ * per block, with its `Timestamp`, `BigInteger` nonce, hashes and data `String`, it keeps the fields of all blocks in
+ * parallel primitive arrays, one array per field (a struct of arrays), and the data of all blocks in a shared byte
+ * arena. A block costs about 140 bytes plus its UTF-8 data instead of several hundred bytes of objects, headers and
+ * pointers, and the garbage collector has a few large arrays to trace instead of millions of objects.
+ *
+ * A read builds a new `Block` over the arrays: a flyweight view that lives as long as the caller uses it. The chain
+ * attaches the view to its position, so every change made to it (a setter, a proof of work, a verification) is
+ * written back to the arrays, and the next read of the position sees it. Two reads of a position give two views of
+ * the same block. The Merkle root is kept too, so that hashing a view does not parse its transactions again.
+ *
+ * The data arena is a list of chunks of up to `CHUNK_SIZE` bytes; the data of a block is in one chunk, and its
+ * position is the chunk number in the high 32 bits and the offset in the low 32 bits, like the positions of the
+ * `BlockStore` index. Data changed by `setData` is appended; its old bytes, and those of dropped blocks, stay in the
+ * arena unused.
+ *
+ * The blocks of a chain are mined, so their nonce is kept as a long. The difficulty is kept as an int rather than a
+ * byte, so that any difficulty set on a block reads back the same.
+ *
+ * Class Fields:
+ * - `size` (int): The number of positions.
+ * - `indexes` (int[]): The index of every block.
+ * - `timestamps` (long[]): The timestamp of every block, in nanoseconds since the epoch.
+ * - `nonces` (long[]): The nonce of every block.
+ * - `difficulties` (int[]): The difficulty of every block.
+ * - `versions` (byte[]): The version of every block.
+ * - `previousHashes`, `verifiedHashes`, `merkleRoots` (byte[]): 32 bytes per block; a verified hash that is all zero
+ *   means the block was never verified.
+ * - `dataPositions` (long[]): The position of the data of every block in the arena.
+ * - `dataLengths` (int[]): The length of the data of every block in bytes, -1 for an empty position.
+ * - `chunks` (ArrayList<byte[]>): The chunks of the data arena.
+ * - `chunkUsed` (int): The bytes used in the last chunk.
+ *
+ * Constructors:
+ * - `ColumnarBlockStorage()`: Creates an empty storage.
+ */
+
+package ds.project3task1;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class ColumnarBlockStorage implements BlockStorage {
+    // the largest chunk of the data arena, unless a single block has more data
+    static final int CHUNK_SIZE = 16 * 1024 * 1024;
+    // the first chunk of the data arena; every new chunk is twice as large, up to CHUNK_SIZE
+    private static final int FIRST_CHUNK_SIZE = 64 * 1024;
+
+    // the number of positions
+    private int size;
+    // the index of every block
+    private int[] indexes = new int[16];
+    // the timestamp of every block, in nanoseconds since the epoch
+    private long[] timestamps = new long[16];
+    // the nonce of every block
+    private long[] nonces = new long[16];
+    // the difficulty of every block
+    private int[] difficulties = new int[16];
+    // the version of every block
+    private byte[] versions = new byte[16];
+    // the previous hash of every block, 32 bytes each
+    private byte[] previousHashes = new byte[16 * Hash.SIZE];
+    // the last verified hash of every block, 32 bytes each, all zero if it never was verified
+    private byte[] verifiedHashes = new byte[16 * Hash.SIZE];
+    // the Merkle root of every block, 32 bytes each, unused for LEGACY blocks
+    private byte[] merkleRoots = new byte[16 * Hash.SIZE];
+    // the position of the data of every block in the arena
+    private long[] dataPositions = new long[16];
+    // the length of the data of every block, -1 for an empty position
+    private int[] dataLengths = new int[16];
+    // the chunks of the data arena
+    private final ArrayList<byte[]> chunks = new ArrayList<>();
+    // the bytes used in the last chunk
+    private int chunkUsed;
+
+    /**
+     * Constructor to create an empty storage.
+     */
+    public ColumnarBlockStorage() {
+    }
+
+    /**
+     * Get the number of positions, empty ones included.
+     *
+     * @return The number of blocks of the chain.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * A view is built from several arrays, which needs the read lock.
+     *
+     * @param position The position of the block.
+     * @return null.
+     */
+    @Override
+    public Block peek(int position) {
+        return null;
+    }
+
+    /**
+     * Build a new view of the block at a position. It is not attached to the chain yet.
+     *
+     * @param position The position of the block, below `size()`.
+     * @return The view, or null if the position is empty.
+     */
+    @Override
+    public Block get(int position) {
+        if (dataLengths[position] < 0) {
+            return null;
+        }
+        int version = versions[position];
+        Block block = new Block(indexes[position], BlockHeader.timestamp(timestamps[position]), data(position),
+                difficulties[position], version);
+        int offset = position * Hash.SIZE;
+        block.setPreviousHash(Hash.of(previousHashes, offset));
+        block.setNonce(BigInteger.valueOf(nonces[position]));
+        if (version != Block.LEGACY) {
+            block.setMerkleRoot(Hash.of(merkleRoots, offset));
+        }
+        Hash verified = Hash.of(verifiedHashes, offset);
+        if (!verified.equals(Hash.ZERO)) {
+            block.markVerified(verified);
+        }
+        return block;
+    }
+
+    /**
+     * Add a block after the last position, copying its fields into the arrays.
+     *
+     * @param block The block.
+     */
+    @Override
+    public void add(Block block) {
+        grow(size + 1);
+        size++;
+        update(size - 1, block);
+    }
+
+    /**
+     * Add empty positions after the last position.
+     *
+     * @param count The number of positions.
+     */
+    @Override
+    public void addEmpty(int count) {
+        grow(size + count);
+        Arrays.fill(dataLengths, size, size + count, -1);
+        size += count;
+    }
+
+    /**
+     * Fill an empty position, copying the fields of the block into the arrays.
+     *
+     * @param position The position.
+     * @param block The block.
+     */
+    @Override
+    public void set(int position, Block block) {
+        update(position, block);
+    }
+
+    /**
+     * Copy the fields of a block into the arrays. The data is only appended to the arena if it changed.
+     *
+     * @param position The position of the block.
+     * @param block The block.
+     */
+    @Override
+    public void update(int position, Block block) {
+        indexes[position] = block.getIndex();
+        timestamps[position] = BlockHeader.epochNanos(block.getTimestamp());
+        BigInteger nonce = block.getNonce();
+        nonces[position] = nonce == null ? 0 : nonce.longValue();
+        difficulties[position] = block.getDifficulty();
+        versions[position] = (byte) block.getVersion();
+        int offset = position * Hash.SIZE;
+        block.getPreviousHash().writeTo(previousHashes, offset);
+        Hash verified = block.getVerifiedHash();
+        (verified == null ? Hash.ZERO : verified).writeTo(verifiedHashes, offset);
+        if (block.getVersion() != Block.LEGACY) {
+            block.getMerkleRoot().writeTo(merkleRoots, offset);
+        }
+        byte[] data = block.getData().getBytes(StandardCharsets.UTF_8);
+        if (!hasData(position, data)) {
+            putData(position, data);
+        }
+    }
+
+    /**
+     * Drop the blocks from a position on. Their data stays in the arena unused, like changed data.
+     *
+     * @param size The number of blocks to keep.
+     */
+    @Override
+    public void truncate(int size) {
+        this.size = Math.min(size, this.size);
+    }
+
+    /**
+     * Decode the data of a block from the arena.
+     *
+     * @param position The position of the block.
+     * @return The data.
+     */
+    private String data(int position) {
+        long p = dataPositions[position];
+        return new String(chunks.get((int) (p >>> 32)), (int) p, dataLengths[position], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Check whether the arena already holds the given data for a block.
+     *
+     * @param position The position of the block.
+     * @param data The data, as UTF-8.
+     * @return true if the data of the block is those bytes.
+     */
+    private boolean hasData(int position, byte[] data) {
+        if (dataLengths[position] != data.length) {
+            return false;
+        }
+        long p = dataPositions[position];
+        int from = (int) p;
+        return Arrays.equals(chunks.get((int) (p >>> 32)), from, from + data.length, data, 0, data.length);
+    }
+
+    /**
+     * Append the data of a block to the arena, starting a new chunk if the last one is full.
+     *
+     * @param position The position of the block.
+     * @param data The data, as UTF-8.
+     */
+    private void putData(int position, byte[] data) {
+        byte[] chunk = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+        if (chunk == null || chunkUsed + data.length > chunk.length) {
+            int next = chunk == null ? FIRST_CHUNK_SIZE : Math.min(CHUNK_SIZE, chunk.length * 2);
+            chunk = new byte[Math.max(next, data.length)];
+            chunks.add(chunk);
+            chunkUsed = 0;
+        }
+        System.arraycopy(data, 0, chunk, chunkUsed, data.length);
+        dataPositions[position] = (long) (chunks.size() - 1) << 32 | chunkUsed;
+        dataLengths[position] = data.length;
+        chunkUsed += data.length;
+    }
+
+    /**
+     * Make room for the given number of positions in every array, doubling them.
+     *
+     * @param capacity The number of positions needed.
+     */
+    private void grow(int capacity) {
+        if (capacity <= indexes.length) {
+            return;
+        }
+        int n = Math.max(capacity, indexes.length * 2);
+        indexes = Arrays.copyOf(indexes, n);
+        timestamps = Arrays.copyOf(timestamps, n);
+        nonces = Arrays.copyOf(nonces, n);
+        difficulties = Arrays.copyOf(difficulties, n);
+        versions = Arrays.copyOf(versions, n);
+        previousHashes = Arrays.copyOf(previousHashes, n * Hash.SIZE);
+        verifiedHashes = Arrays.copyOf(verifiedHashes, n * Hash.SIZE);
+        merkleRoots = Arrays.copyOf(merkleRoots, n * Hash.SIZE);
+        dataPositions = Arrays.copyOf(dataPositions, n);
+        dataLengths = Arrays.copyOf(dataLengths, n);
+    }
+}
@@ -0,0 +1,559 @@
+/**
+ * Author: Yi Guo (Andrew ID:yiguo)
+ * Last Modified: Oct 27th, 2023
+ * EchoClientTCP Class Documentation
+ * The `EchoClientTCP` class represents a TCP client application that interacts with a server to perform blockchain-related actions.
+ * Client side enters inputs and get responses from the server about details of the blockchain. Then it displays the result
+ * to the console.
+ * Actions can be performed are:
+ * 0. View basic blockchain status
+ * 1. Add a transaction to the blockchain
+ * 2. Verify the blockchain
+ * 3. View the blockchain
+ * 4. Corrupt the chain
+ * 5. Hide the corruption by repairing the chain
+ * 6. Exit
+ * 7. View a mining job
+ * 8. Cancel a mining job
+ * 9. Submit a transaction to the mempool
+ * 10. View a mempool transaction
+ * 11. Verify that a mempool transaction is in its block
+ * 12. Find a block by its hash
+ * 13. Search the transactions
+ * 14. Verify the whole blockchain from the Genesis block
+ * 15. View the mining pool workers
+ *
+ * Started with `--worker host:port [threads] [name]`, the client has no menu: it is a `PoolWorker` that mines for the
+ * `MiningPool` of the server at that address until it is stopped.
+ *
+ * Started with `--load host:port [options]`, the client has no menu either: it is a `LoadGenerator` that sends a mix
+ * of requests to the server on several connections and writes a JSON report of their latency percentiles, throughput
+ * and errors. The options are `--connections N`, `--rate REQUESTS_PER_SECOND` (0 for as fast as the server answers),
+ * `--warmup SECONDS`, `--duration SECONDS`, `--mix view=60,add=30,verify=5,chain=5`, `--reconnect` to open a
+ * connection for every request (always the case with several connections, since the server answers one connection at
+ * a time), `--seed N` and `--report FILE` (the report is printed otherwise).
+ */
+
+package ds.project3task1;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+
+public class EchoClientTCP {
+    public static int serverPort;
+    public static Socket clientSocket;
+    static RequestMessage request;
+    static ResponseMessage response;
+    // the number of blocks requested at a time when viewing the blockchain
+    static final int PAGE_SIZE = 100;
+    // the time between two looks at a mining job, in milliseconds
+    static final long POLL_MILLIS = 500;
+    // how long to follow a mining job before leaving it to the background, in milliseconds
+    static final long FOLLOW_MILLIS = 30000;
+
+    /**
+     * The `main` method serves as the entry point for the EchoClientTCP application.
+     * It establishes a connection to a blockchain server and allows the user to interact with the blockchain by sending requests and receiving responses.
+     * - It initializes the client by creating a socket and connecting to the server running on the local host at a specified port (default: 6789).
+     * - It presents a menu of options to the user, enabling various actions related to the blockchain.
+     * - It sends requests to the server in the form of JSON-serialized messages and receives responses.
+     * - Depending on the user's choice, it performs actions such as viewing the blockchain status, adding transactions, verifying the blockchain, and more.
+     * - It displays the results of these actions, including blockchain statistics and execution times.
+     * - The user can choose to exit the application, closing the client socket if necessary.
+     * @param args Command-line arguments: an optional server port, to reach one of several replicated servers, or
+     *             `--worker` followed by the host:port of a mining pool, and optionally the number of threads and
+     *             the worker's name, to mine for that pool instead, or `--load` followed by the host:port of a
+     *             server and the options of the load, to load test that server instead.
+     * @throws IOException if an I/O error occurs during socket initialization or communication with the server.
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available to a worker.
+     * @throws InterruptedException if the load test is interrupted.
+     */
+    public static void main(String args[]) throws IOException, NoSuchAlgorithmException, InterruptedException {
+
+        // Mine for the pool of a server instead of showing the menu.
+        if (args.length > 0 && args[0].equals("--worker")) {
+            runWorker(args);
+            return;
+        }
+        // Load test a server instead of showing the menu.
+        if (args.length > 0 && args[0].equals("--load")) {
+            runLoad(args);
+            return;
+        }
+
+        // Set the server port and create a socket to connect to the server.
+        serverPort = args.length > 0 ? Integer.parseInt(args[0]) : 6789;
+        clientSocket = new Socket("localhost", serverPort);
+        // Create a scanner for user input.
+        Scanner s = new Scanner(System.in);
+        // Flag to control the application loop.
+        boolean exit = false;
+
+        while (!exit) {
+            // Display the menu to the user and initialize request and response objects.
+            getMenu();
+            request = new RequestMessage();
+            response = new ResponseMessage();
+            // Read the user's choice.
+            int choice = s.nextInt();
+            request.choice = Integer.toString(choice);
+
+            switch (choice) {
+                case 0 -> {
+                    // Request blockchain status and display relevant information.
+                    getResult(request.toJSON());
+                    System.out.println("Current Size of chain: " + response.size);
+                    System.out.println("Difficulty of most recent block: " + response.recentDifficulty);
+                    System.out.println("Total difficulty for all blocks: " + response.totalDifficulty
+                            + " leading zero bits");
+                    System.out.println("Approximate hashes per second on this machine: " + response.hashPerSecond
+                            + " (" + response.threads + " threads, " + response.hashPerSecondPerThread + " per thread,"
+                            + " measured at " + response.calibratedAt + ")");
+                    System.out.println("Expected total hashes required for the whole chain: " + response.totalExpectedHashes);
+                    System.out.println("Blocks by leading zero bits: " + response.histogram);
+                    System.out.println("Average time between blocks: " + response.averageBlockTime + " milliseconds");
+                    System.out.println("Time spent mining since the server started: " + response.miningTime + " milliseconds");
+                    if (response.nextDifficulty != null) {
+                        System.out.println("Difficulty of the next block: " + response.nextDifficulty + " bits, for "
+                                + response.targetBlockTime + " milliseconds per block (last retarget window: "
+                                + response.observedBlockTime + " milliseconds per block)");
+                    }
+                    System.out.println("Nonce for the most recent block: " + response.nonce);
+                    System.out.println("Chain hash: " + response.chainHash);
+                }
+                case 1 -> {
+                    // Add a new transaction to the blockchain.
+                    // ask for the difficulty from the user
+                    System.out.println("Enter difficulty > 0");
+                    int difficulty = s.nextInt();
+                    request.difficulty = Integer.toString(difficulty);
+
+                    // ask for the transaction data from the user
+                    System.out.println("Enter transaction");
+                    s.nextLine();
+                    request.data = s.nextLine();
+
+                    // Send the request, receive the job number and follow the mining until it ends.
+                    getResult(request.toJSON());
+                    if (response.difficulty != null) {
+                        System.out.println("The server retargets: this block is mined at difficulty "
+                                + response.difficulty + " bits");
+                    }
+                    System.out.println("Expected time to mine this block is " + response.estimatedTime + " milliseconds");
+                    followJob(response.jobId);
+
+                }
+                case 2, 14 -> {
+                    // Verify the blockchain and display the verification result and execution time.
+                    // Choice 14 is a verification that ignores the checkpoints and starts from the Genesis block.
+                    if (choice == 14) {
+                        request.choice = "2";
+                        request.full = "true";
+                    }
+                    getResult(request.toJSON());
+                    if (response.checkpoint != null) {
+                        System.out.println("Verified from the checkpoint at block " + response.checkpoint);
+                    }
+                    System.out.println("Chain verification: " + response.verification);
+                    System.out.println("Total execution time to verify the chain was " + response.time + " milliseconds");
+                }
+                case 3 -> {
+                    // View the blockchain and display its content, one page of blocks at a time.
+                    System.out.println("View the blockchain");
+                    request.pageSize = Integer.toString(PAGE_SIZE);
+                    JsonObject page = null;
+                    int from = 0;
+                    do {
+                        request.from = Integer.toString(from);
+                        getResult(request.toJSON());
+                        if (response.chain == null) {
+                            System.out.println("The server could not send the blockchain: " + response.error);
+                            page = null;
+                            break;
+                        }
+                        page = response.chain.getAsJsonObject();
+                        for (JsonElement block : page.getAsJsonArray("ds_chain")) {
+                            System.out.println(block);
+                        }
+                        from = page.has("next") ? page.get("next").getAsInt() : -1;
+                    } while (from >= 0);
+                    if (page != null) {
+                        System.out.println("Chain hash: " + page.get("chainHash").getAsString());
+                    }
+                }
+                case 4 -> {
+                    // Corrupt the blockchain by modifying a specific block's data.
+                    // Ask for the index of the block to corrupt
+                    System.out.println("corrupt the Blockchain");
+                    System.out.println("Enter block ID of block to corrupt");
+                    int id = s.nextInt();
+                    request.index = Integer.toString(id);
+                    // Ask for the new data from user
+                    System.out.println("Enter new data for block " + id);
+                    s.nextLine();
+                    request.data = s.nextLine();
+
+                    // Send the request, receive the response, and inform the user about the updated block data.
+                    getResult(request.toJSON());
+                    System.out.println("Block " + id + " now holds " + request.data);
+
+                }
+                case 5 -> {
+                    // Repair the blockchain and display the execution time.
+                    getResult(request.toJSON());
+                    System.out.println("Total execution time required to repair the chain was " + response.time + " milliseconds");
+                }
+                case 6 -> {
+                    // Exit the application and close the client socket.
+                    exit = true;
+                    clientSocket.close();
+                    clientSocket = null;
+                }
+                case 7 -> {
+                    // View the progress of a mining job.
+                    System.out.println("Enter job ID");
+                    request.jobId = Integer.toString(s.nextInt());
+                    getResult(request.toJSON());
+                    printJob(request.jobId);
+                }
+                case 8 -> {
+                    // Cancel a mining job.
+                    System.out.println("Enter job ID");
+                    request.jobId = Integer.toString(s.nextInt());
+                    getResult(request.toJSON());
+                    printJob(request.jobId);
+                }
+                case 9 -> {
+                    // Submit a transaction to the mempool, without waiting for it to be mined.
+                    System.out.println("Enter transaction");
+                    s.nextLine();
+                    request.data = s.nextLine();
+                    getResult(request.toJSON());
+                    System.out.println("Transaction " + response.txId + " is pending (" + response.pending
+                            + " transactions waiting for a block)");
+                }
+                case 10 -> {
+                    // View whether a mempool transaction was included in a block.
+                    System.out.println("Enter transaction ID");
+                    request.txId = Long.toString(s.nextLong());
+                    getResult(request.toJSON());
+                    if (response.state == null) {
+                        System.out.println("There is no transaction " + request.txId + ".");
+                    } else if (response.state.equals("INCLUDED")) {
+                        System.out.println("Transaction " + request.txId + " is in block " + response.index
+                                + " at position " + response.position);
+                    } else {
+                        System.out.println("Transaction " + request.txId + " is pending (" + response.pending
+                                + " transactions waiting for a block)");
+                    }
+                }
+                case 11 -> {
+                    // Ask for the inclusion proof of a mempool transaction and check it here.
+                    System.out.println("Enter transaction ID");
+                    request.txId = Long.toString(s.nextLong());
+                    getResult(request.toJSON());
+                    if (response.proof == null) {
+                        System.out.println("Transaction " + request.txId + " is not in a block yet.");
+                    } else {
+                        System.out.println("Transaction " + request.txId + " (" + response.transaction + ") in block "
+                                + response.index + ": " + (verifyProof() ? "proof verified" : "PROOF INVALID"));
+                    }
+                }
+                case 12 -> {
+                    // Find a block by its hash; the server answers with a page holding only that block.
+                    System.out.println("Enter block hash");
+                    s.nextLine();
+                    request.data = s.nextLine();
+                    getResult(request.toJSON());
+                    if (response.chain == null) {
+                        System.out.println("No block has hash " + request.data);
+                    } else {
+                        JsonObject page = response.chain.getAsJsonObject();
+                        System.out.println("Block " + page.get("from").getAsInt() + ": "
+                                + page.getAsJsonArray("ds_chain").get(0));
+                    }
+                }
+                case 13 -> {
+                    // Search the transactions of the blockchain for blocks holding all the given words.
+                    System.out.println("Enter words to search for");
+                    s.nextLine();
+                    request.data = s.nextLine();
+                    getResult(request.toJSON());
+                    System.out.println("Blocks holding " + request.data + ": " + response.matches);
+                }
+                case 15 -> {
+                    // View the hash rate and shares of every worker of the server's mining pool.
+                    getResult(request.toJSON());
+                    printWorkers();
+                }
+                default -> System.out.println("Wrong choice.");
+            }
+        }
+
+    }
+
+    /**
+     * Send a request packet to the server and receive the response.
+     * Read the reply into the ResponseMessage object in the client.
+     *
+     * @param packetString The request packet in JSON format.
+     * @throws IOException if an I/O error occurs during communication with the server.
+     */
+    public static void getResult(String packetString) throws IOException {
+        // create input and output streams for communication with the server
+        BufferedReader in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(clientSocket.getOutputStream())));
+
+        // send the request to the server
+        out.println(packetString);
+        out.flush();
+        // receive and process the server's response
+        String replyString = in.readLine();
+        // read the reply into the ResponseMessage object in the client
+        response.fromJSON(replyString);
+    }
+
+    /**
+     * Follow a mining job until it ends, showing its progress. A job still running after `FOLLOW_MILLIS`
+     * is left to mine in the background.
+     *
+     * @param jobId The number of the job.
+     * @throws IOException if an I/O error occurs during communication with the server.
+     */
+    public static void followJob(String jobId) throws IOException {
+        long end = System.currentTimeMillis() + FOLLOW_MILLIS;
+        RequestMessage poll = new RequestMessage("7", null, null, null);
+        poll.jobId = jobId;
+        while (true) {
+            getResult(poll.toJSON());
+            printJob(jobId);
+            if (isEnded(response.state)) {
+                return;
+            }
+            if (System.currentTimeMillis() >= end) {
+                System.out.println("Job " + jobId + " goes on in the background; use 7 to view it or 8 to cancel it.");
+                return;
+            }
+            try {
+                Thread.sleep(POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Display the state of a mining job from the last response.
+     *
+     * @param jobId The number of the job.
+     */
+    public static void printJob(String jobId) {
+        if (response.state == null) {
+            System.out.println("There is no job " + jobId + ".");
+        } else if (response.state.equals("DONE")) {
+            System.out.println("Block " + response.index + " was added with nonce " + response.nonce);
+            System.out.println("Total execution time to add this block was " + response.time + " milliseconds");
+        } else if (isEnded(response.state)) {
+            System.out.println("Job " + jobId + " ended: " + response.state + " after " + response.noncesTried
+                    + " nonces");
+        } else {
+            System.out.println("Job " + jobId + " " + response.state + ": " + response.noncesTried + " nonces tried in "
+                    + response.time + " milliseconds, about " + response.remainingTime + " milliseconds remaining");
+        }
+    }
+
+    /**
+     * Start a `PoolWorker` from the command line: `--worker host:port [threads] [name]`. It uses one thread per
+     * processor and is named after this computer and process unless told otherwise.
+     *
+     * @param args The command-line arguments, starting with `--worker`.
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    public static void runWorker(String args[]) throws NoSuchAlgorithmException {
+        if (args.length < 2 || args[1].lastIndexOf(':') <= 0) {
+            System.out.println("Usage: EchoClientTCP --worker host:port [threads] [name]");
+            return;
+        }
+        String address = args[1];
+        int colon = address.lastIndexOf(':');
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        String name;
+        if (args.length > 3) {
+            name = args[3];
+        } else {
+            String host;
+            try {
+                host = InetAddress.getLocalHost().getHostName();
+            } catch (IOException e) {
+                host = "worker";
+            }
+            name = host + "-" + ProcessHandle.current().pid();
+        }
+        new PoolWorker(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1)), name, threads)
+                .run();
+    }
+
+    /**
+     * Start a `LoadGenerator` from the command line: `--load host:port [options]`, with the options described in the
+     * class documentation, and write its report.
+     *
+     * @param args The command-line arguments, starting with `--load`.
+     * @throws IOException if the report can not be written.
+     * @throws InterruptedException if the load test is interrupted.
+     */
+    public static void runLoad(String args[]) throws IOException, InterruptedException {
+        if (args.length < 2 || args[1].lastIndexOf(':') <= 0) {
+            System.out.println("Usage: EchoClientTCP --load host:port [--connections N] [--rate REQUESTS_PER_SECOND]"
+                    + " [--warmup SECONDS] [--duration SECONDS] [--mix " + LoadGenerator.DEFAULT_MIX + "]"
+                    + " [--reconnect] [--seed N] [--report FILE]");
+            return;
+        }
+        String address = args[1];
+        int colon = address.lastIndexOf(':');
+        int connections = 4;
+        double rate = 0;
+        long warmup = 5;
+        long duration = 30;
+        String mix = LoadGenerator.DEFAULT_MIX;
+        boolean reconnect = false;
+        long seed = 1;
+        String report = null;
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "--connections" -> connections = Integer.parseInt(args[++i]);
+                case "--rate" -> rate = Double.parseDouble(args[++i]);
+                case "--warmup" -> warmup = Long.parseLong(args[++i]);
+                case "--duration" -> duration = Long.parseLong(args[++i]);
+                case "--mix" -> mix = args[++i];
+                case "--reconnect" -> reconnect = true;
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--report" -> report = args[++i];
+                default -> throw new IllegalArgumentException("Unknown load option: " + args[i]);
+            }
+        }
+        LoadGenerator load = new LoadGenerator(address.substring(0, colon),
+                Integer.parseInt(address.substring(colon + 1)), connections, rate, LoadGenerator.parseMix(mix));
+        load.setWarmup(warmup, TimeUnit.SECONDS);
+        load.setDuration(duration, TimeUnit.SECONDS);
+        if (reconnect) {
+            load.setReconnect(true);
+        }
+        load.setSeed(seed);
+        System.out.println("Loading " + address + " with " + connections + " connections for " + warmup + " + "
+                + duration + " seconds" + (reconnect || connections > 1 ? ", reconnecting for every request" : ""));
+        String json = new GsonBuilder().setPrettyPrinting().create().toJson(load.run());
+        if (report == null) {
+            System.out.println(json);
+        } else {
+            Files.write(Paths.get(report), (json + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+            System.out.println("Load report written to " + report);
+        }
+    }
+
+    /**
+     * Display the statistics of the workers of the mining pool from the last response, one line per worker.
+     */
+    public static void printWorkers() {
+        if (response.workers == null || response.workers.getAsJsonArray().isEmpty()) {
+            System.out.println("The server has no mining pool workers.");
+            return;
+        }
+        for (JsonElement element : response.workers.getAsJsonArray()) {
+            JsonObject w = element.getAsJsonObject();
+            System.out.println(w.get("name").getAsString() + " (" + w.get("address").getAsString() + ", "
+                    + w.get("threads").getAsInt() + " threads, "
+                    + (w.get("connections").getAsInt() > 0 ? "connected" : "gone") + "): "
+                    + w.get("hashesPerSecond").getAsLong() + " hashes per second, "
+                    + w.get("noncesTried").getAsLong() + " nonces in " + w.get("rangesDone").getAsLong() + " ranges ("
+                    + w.get("rangesTimedOut").getAsLong() + " timed out), shares "
+                    + w.get("sharesAccepted").getAsLong() + " accepted / " + w.get("sharesRejected").getAsLong()
+                    + " rejected / " + w.get("sharesStale").getAsLong() + " stale, "
+                    + w.get("blocksFound").getAsLong() + " blocks found");
+        }
+    }
+
+    /**
+     * Check whether a mining job state is final.
+     *
+     * @param state The state of the job.
+     * @return true if the job ended.
+     */
+    public static boolean isEnded(String state) {
+        return state == null || !(state.equals("QUEUED") || state.equals("MINING"));
+    }
+
+    /**
+     * Verify the inclusion proof in the last response without trusting the server: the Merkle path must lead from
+     * the transaction to the Merkle root of the block header, and the header must hash to the block hash with the
+     * leading zeroes required by its difficulty, in bits for a header of version `Block.TARGET`.
+     *
+     * @return true if the transaction is proved to be in the block.
+     */
+    public static boolean verifyProof() {
+        MerkleTree.Proof proof = new Gson().fromJson(response.proof, MerkleTree.Proof.class);
+        try {
+            Hash root = Hash.fromHex(response.merkleRoot);
+            if (!MerkleTree.verify(response.transaction, proof, root)) {
+                return false;
+            }
+            byte[] hash;
+            int zeroBits;
+            if (response.header != null) {
+                // a binary header is hashed as it is, and the root, version and difficulty are read from it
+                byte[] header = BlockHasher.fromHex(response.header);
+                if (header.length != BlockHeader.SIZE
+                        || !root.equals(header, BlockHeader.ROOT_OFFSET)) {
+                    return false;
+                }
+                hash = MessageDigest.getInstance("SHA-256").digest(header);
+                zeroBits = Block.zeroBits(header[0], header[BlockHeader.DIFFICULTY_OFFSET] & 0xFF);
+            } else {
+                // the header is hashed like a Merkle block: its root stands for its transactions
+                String header = response.index + "," + response.timestamp + "," + response.merkleRoot + ","
+                        + response.previousHash + "," + response.nonce + "," + response.difficulty;
+                hash = MessageDigest.getInstance("SHA-256").digest(header.getBytes());
+                zeroBits = Block.zeroBits(Block.MERKLE, Integer.parseInt(response.difficulty));
+            }
+            return Hash.fromHex(response.blockHash).equals(hash, 0) && BlockHasher.hasLeadingZeroBits(hash, 0, zeroBits);
+        } catch (NoSuchAlgorithmException | NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Display the menu of available actions.
+     */
+    public static void getMenu() {
+        // print the menu options
+        System.out.println("0. View basic blockchain status.");
+        System.out.println("1. Add a transaction to the blockchain.");
+        System.out.println("2. Verify the blockchain.");
+        System.out.println("3. View the blockchain.");
+        System.out.println("4. Corrupt the chain.");
+        System.out.println("5. Hide the corruption by repairing the chain.");
+        System.out.println("6. Exit");
+        System.out.println("7. View a mining job.");
+        System.out.println("8. Cancel a mining job.");
+        System.out.println("9. Submit a transaction to the mempool.");
+        System.out.println("10. View a mempool transaction.");
+        System.out.println("11. Verify that a mempool transaction is in its block.");
+        System.out.println("12. Find a block by its hash.");
+        System.out.println("13. Search the transactions.");
+        System.out.println("14. Verify the whole blockchain from the Genesis block.");
+        System.out.println("15. View the mining pool workers.");
+    }
+
+}
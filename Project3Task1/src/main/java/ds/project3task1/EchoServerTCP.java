@@ -0,0 +1,498 @@
+/**
+ * Author: Yi Guo (Andrew ID:yiguo)
+ * Last Modified: Oct 27th, 2023
+ * The `EchoServerTCP` class represents a blockchain server that listens for incoming client connections
+ * and handles blockchain-related requests. It serves as the core component of the blockchain network,
+ * allowing clients to interact with the blockchain by sending and receiving messages.
+ *
+ * This class initializes a server socket, accepts client connections, and communicates with clients using
+ * the TCP (Transmission Control Protocol) network protocol. It handles various client requests for viewing,
+ * adding, updating, and verifying the blockchain, and continuously accepts new client connections to maintain server
+ * operation.
+ *
+ * New blocks are mined in the background by the blockchain's block producer, so a block of high difficulty does not
+ * stop the server from answering; the client follows the mining job (choice 7) and may cancel it (choice 8).
+ * Transactions can also go through the mempool (choice 9): they are acknowledged at once and mined in batches,
+ * and the client asks whether one was included and at which height (choice 10), and for the proof that it is in
+ * its block (choice 11): the block header and the transaction's Merkle path, which the client checks on its own.
+ * Blocks can be found by their hash (choice 12), and by the words of their transactions (choice 13), through the
+ * indexes the blockchain keeps as blocks are added and repaired.
+ * The blockchain records a trusted checkpoint every `CHECKPOINT_BLOCKS` blocks or `CHECKPOINT_MINUTES` minutes, and a
+ * verification (choice 2) only checks the blocks since the last checkpoint, unless the client asks for a full one.
+ * New blocks are `Block.BINARY` blocks, hashed as a fixed binary `BlockHeader`; the blocks of a chain loaded from
+ * disk keep the version they were mined with. Started with `--difficulty-bits`, the server makes `Block.TARGET`
+ * blocks instead, whose difficulty counts leading zero bits, so that one step of difficulty doubles the work instead
+ * of multiplying it by 16. Started with `--retarget` followed by a number of blocks and a number of seconds, it also
+ * lets a `RetargetPolicy` choose their difficulty, again after every such number of blocks, so that a block takes
+ * about that many seconds to mine; the difficulty a client asks for is then ignored.
+ *
+ * Several servers can replicate one blockchain: started with `--peer-port` and `--peers`, a server runs a `PeerNode`
+ * that gossips every new block to the other servers and takes their heavier chain, and catches up with them when it
+ * starts, before it would mine a Genesis block of its own. On one computer, every server needs its own client port
+ * (`--port`), peer port and directory, e.g.
+ * `EchoServerTCP node1 --port 6789 --peer-port 7001 --peers localhost:7002,localhost:7003`.
+ *
+ * Blocks can also be mined by a pool of idle client processes: started with `--pool-port`, a server runs a
+ * `MiningPool` that hands out ranges of nonces to the clients started as workers
+ * (`EchoClientTCP --worker localhost:7100`), and mines on its own threads while no worker is connected. The client
+ * shows the hash rate and shares of every worker (choice 15).
+ *
+ * The server runs indefinitely, waiting for client connections and processing requests as they arrive. It serves one
+ * connection at a time, and closes the connection of a client that exits before it accepts the next one.
+ *
+ **/
+
+package ds.project3task1;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Paths;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+
+public class EchoServerTCP {
+    public static int serverPort;
+    public static Socket clientSocket;
+
+    static RequestMessage request;
+    static ResponseMessage response;
+    static Scanner in;
+    static PrintWriter out;
+    // the mining jobs of the added blocks, until the client saw them end
+    static Map<Long, MiningJob> jobs = new HashMap<>();
+    // the time a mining job may take
+    static final long MINING_TIMEOUT_MINUTES = 10;
+    // the largest number of mempool transactions in a block
+    static final int BATCH_SIZE = 100;
+    // how long a batch of mempool transactions waits for more after its first one, in milliseconds
+    static final long BATCH_MILLIS = 1000;
+    // the difficulty of the blocks made from mempool transactions
+    static final int BATCH_DIFFICULTY = 3;
+    // the largest number of blocks returned by a transaction search
+    static final int SEARCH_LIMIT = 100;
+    // the number of blocks after which the blockchain records a checkpoint
+    static final int CHECKPOINT_BLOCKS = 100;
+    // the time after which the blockchain records a checkpoint, in minutes
+    static final long CHECKPOINT_MINUTES = 10;
+
+    /**
+     * Main method for the Blockchain server. This method initializes the server, sets up a connection with a client,
+     * and handles client requests for viewing, adding, updating, verifying, repairing the blockchain.
+     * It also maintains the server operation by continuously accepting new client connections.
+     *
+     * @param args Command-line arguments: an optional directory where the blockchain is stored across restarts,
+     *             `--port` followed by the client port, `--peer-port` followed by the port to listen to other
+     *             servers on, `--peers` followed by their comma-separated host:port addresses, and
+     *             `--pool-port` followed by the port to listen to mining workers on, `--difficulty-bits` to
+     *             count the difficulty of new blocks in bits, and `--retarget` followed by a number of blocks and
+     *             a block time in seconds to choose it automatically.
+     * @throws NoSuchAlgorithmException if there's an issue with cryptographic algorithms.
+     * @throws IOException if the stored blockchain can not be opened.
+     */
+    public static void main(String args[]) throws NoSuchAlgorithmException, IOException {
+        System.out.println("Blockchain server running");
+        clientSocket = null;
+        serverPort = 6789;
+        String directory = null;
+        int peerPort = 0;
+        String peers = "";
+        int poolPort = 0;
+        int blockVersion = Block.BINARY;
+        int retargetBlocks = 0;
+        long retargetSeconds = 0;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port" -> serverPort = Integer.parseInt(args[++i]);
+                case "--peer-port" -> peerPort = Integer.parseInt(args[++i]);
+                case "--peers" -> peers = args[++i];
+                case "--pool-port" -> poolPort = Integer.parseInt(args[++i]);
+                case "--difficulty-bits" -> blockVersion = Block.TARGET;
+                case "--retarget" -> {
+                    retargetBlocks = Integer.parseInt(args[++i]);
+                    retargetSeconds = Long.parseLong(args[++i]);
+                    blockVersion = Block.TARGET;
+                }
+                default -> directory = args[i];
+            }
+        }
+
+        // Continue the stored blockchain if a directory is given, otherwise create a new one in memory.
+        BlockChain bc = directory != null ? BlockChain.open(Paths.get(directory)) : new BlockChain();
+        // Mine on every core; the lowest valid nonce wins so blocks are the same as with one thread.
+        ParallelMiner miner = new ParallelMiner(Runtime.getRuntime().availableProcessors(), true);
+        bc.setMiner(miner);
+        // Lend the proof of work to the workers of the pool, mining on the threads above while there is none.
+        MiningPool pool = null;
+        if (poolPort > 0) {
+            pool = new MiningPool(poolPort, miner);
+            pool.start();
+            bc.setMiner(pool);
+        }
+        // Record trusted checkpoints, so a verification does not start from the Genesis block every time.
+        bc.setCheckpointPolicy(new CheckpointPolicy(CHECKPOINT_BLOCKS, CHECKPOINT_MINUTES, TimeUnit.MINUTES));
+        // Replicate the blockchain with the other servers, taking their blocks before mining a Genesis block.
+        if (peerPort > 0) {
+            new PeerNode(bc, peerPort, PeerNode.parsePeers(peers)).start();
+        }
+        // Generate the genesis block of a new blockchain.
+        if (bc.getChainSize() == 0) {
+            Block genesis = new Block(0, bc.getTime(), "Genesis", 2, Block.BINARY);
+            bc.addBlock(genesis);
+        }
+
+        // Measure the hash speed of the local computer for the miner's threads, and again every 10 minutes.
+        HashrateCalibrator calibrator = new HashrateCalibrator(miner.getThreads());
+        calibrator.calibrate();
+        calibrator.start(10, TimeUnit.MINUTES);
+        // Choose the difficulty of new blocks for the block time, starting from the measured hash speed.
+        if (retargetBlocks > 0) {
+            bc.setRetargetPolicy(new RetargetPolicy(retargetBlocks, retargetSeconds, TimeUnit.SECONDS, calibrator));
+        }
+
+        // Put the transactions of the mempool into blocks in the background, many transactions per block.
+        Mempool mempool = new Mempool();
+        // The transactions of blocks dropped for a peer's fork wait for a new block.
+        bc.addDropListener(mempool::dropFrom);
+        // BATCH_DIFFICULTY counts hex zeroes, 4 bits each for blocks whose difficulty counts bits.
+        int batchDifficulty = blockVersion == Block.TARGET
+                ? Block.zeroBits(Block.BINARY, BATCH_DIFFICULTY) : BATCH_DIFFICULTY;
+        new BlockProducer(bc, mempool, BATCH_SIZE, BATCH_MILLIS, batchDifficulty, blockVersion).start();
+
+        // create a ServerSocket to listen for incoming connections
+        try (ServerSocket listenSocket = new ServerSocket(serverPort)) {
+            while (true) {
+                // serve one client until it exits, then close its connection and accept the next one
+                try (Socket socket = listenSocket.accept();
+                     Scanner input = new Scanner(socket.getInputStream());
+                     PrintWriter output = new PrintWriter(
+                             new BufferedWriter(new OutputStreamWriter(socket.getOutputStream())))) {
+                    clientSocket = socket;
+                    in = input;
+                    out = output;
+
+                    while (in.hasNextLine()) {
+
+                        // Initialize request and response objects.
+                        request = new RequestMessage();
+                        response = new ResponseMessage();
+
+                        // Receive the client's request and parse it.
+                        receive();
+
+                        // Process the client's request based on their choice.
+                        switch (Integer.parseInt(request.choice)) {
+                            case 0 -> {
+                                // Handle request to view blockchain status.
+                                // Populate the response with blockchain information.
+                                // The size, the latest block and the chain hash are read together, even while a block
+                                // is added.
+                                BlockChain.Head head = bc.getHead();
+                                response.size = Integer.toString(head.getSize());
+                                response.recentDifficulty = Integer.toString(head.getLatestBlock().getDifficulty());
+                                response.totalDifficulty = Integer.toString(bc.getTotalDifficulty());
+                                response.hashPerSecond = Long.toString(Math.round(calibrator.getHashesPerSecond()));
+                                response.hashPerSecondPerThread =
+                                        Long.toString(Math.round(calibrator.getHashesPerSecondPerThread()));
+                                response.threads = Integer.toString(calibrator.getThreads());
+                                response.calibratedAt = new java.sql.Timestamp(calibrator.getCalibratedAt()).toString();
+                                response.totalExpectedHashes = Double.toString(bc.getTotalExpectedHashes());
+                                response.histogram = new Gson().toJsonTree(bc.getDifficultyHistogram());
+                                response.averageBlockTime = Long.toString(Math.round(bc.getAverageBlockMillis()));
+                                response.miningTime = Long.toString(bc.getMiningMillis());
+                                response.nonce = head.getLatestBlock().getNonce().toString();
+                                response.chainHash = head.getChainHash().toString();
+                                RetargetPolicy retarget = bc.getRetargetPolicy();
+                                if (retarget != null) {
+                                    response.nextDifficulty = Integer.toString(retarget.getDifficulty());
+                                    response.targetBlockTime = Long.toString(retarget.getTargetMillis());
+                                    response.observedBlockTime =
+                                            Long.toString(Math.round(retarget.getObservedMillis()));
+                                }
+                            }
+                            case 1 -> {
+                                // Handle request to add a transaction to the blockchain.
+                                // Estimate the mining time from the last calibration before mining starts.
+                                // A retargeting chain mines at the difficulty of its policy instead of the one asked
+                                // for.
+                                int difficulty = Integer.parseInt(request.difficulty);
+                                RetargetPolicy retarget = bc.getRetargetPolicy();
+                                if (retarget != null) {
+                                    difficulty = retarget.getDifficulty();
+                                    response.difficulty = Integer.toString(difficulty);
+                                }
+                                double estimate = calibrator.estimateMillis(blockVersion, difficulty);
+                                response.estimatedTime = Long.toString(Math.round(estimate));
+                                System.out.println("Expected time to mine at difficulty " + difficulty
+                                        + (blockVersion == Block.TARGET ? " bits: " : ": ")
+                                        + response.estimatedTime + " milliseconds");
+                                // Mine in the background so the server keeps answering; the client follows the job with
+                                // choice 7.
+                                Block newBlock = new Block(bc.getChainSize(), bc.getTime(), request.data, difficulty,
+                                        blockVersion);
+                                MiningJob job = bc.addBlockAsync(newBlock, MINING_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+                                jobs.put(job.getId(), job);
+                                describeJob(job);
+                            }
+                            case 2 -> {
+                                // Handle request to verify the blockchain.
+                                // Measure the execution time and populate the response with verification result.
+                                // Only the blocks since the last checkpoint are hashed again, unless a full check is
+                                // asked for.
+                                boolean full = "true".equals(request.full);
+                                Checkpoints.Checkpoint checkpoint = bc.getCheckpoints().latestBelow(bc.getChainSize());
+                                if (!full && checkpoint != null) {
+                                    response.checkpoint = Integer.toString(checkpoint.getHeight());
+                                }
+                                java.sql.Timestamp t = bc.getTime();
+                                response.verification =
+                                        bc.isChainValid(full ? ValidationMode.FULL : ValidationMode.CHECKPOINT);
+                                java.sql.Timestamp t1 = bc.getTime();
+                                long time = t1.getTime() - t.getTime();
+                                response.time = Long.toString(time);
+                            }
+                            case 3 -> {
+                                // Handle request to view the blockchain.
+                                // Stream the requested page of blocks to the client; by default the whole chain in one
+                                // page.
+                                // The page is checked before anything is written, and a bad one gets an error instead.
+                                int from;
+                                int pageSize;
+                                try {
+                                    from = request.from == null ? 0 : Integer.parseInt(request.from);
+                                    pageSize = request.pageSize == null
+                                            ? Math.max(1, bc.getChainSize()) : Integer.parseInt(request.pageSize);
+                                } catch (NumberFormatException e) {
+                                    from = -1;
+                                    pageSize = 0;
+                                }
+                                if (from < 0 || pageSize < 1) {
+                                    response.error =
+                                            "A page starts at a position of at least 0 and holds at least 1 block";
+                                } else {
+                                    sendChain(new ChainWriter(bc), from, pageSize);
+                                    continue;
+                                }
+                            }
+                            case 4 -> {
+                                // Handle request to corrupt the blockchain by modifying a block's data.
+                                // get the index and new data from client request and modify the data in blockchain.
+                                bc.getBlock(Integer.parseInt(request.index)).setData(request.data);
+                            }
+                            case 5 -> {
+                                // Handle request to repair the blockchain.
+                                // Only the blocks from the first invalid one are mined again.
+                                // Measure the execution time and populate the response.
+                                java.sql.Timestamp t = bc.getTime();
+                                MiningProgress progress = new MiningProgress();
+                                int repaired = bc.repairFromFirstFault(progress);
+                                System.out.println("Repaired " + repaired + " blocks, " + progress.getNoncesTried()
+                                        + " nonces tried");
+                                java.sql.Timestamp t1 = bc.getTime();
+                                long time = t1.getTime() - t.getTime();
+                                response.time = Long.toString(time);
+                            }
+                            case 6 -> {
+                                // Handle the exit request.
+                            }
+                            case 7 -> {
+                                // Handle request to view a mining job.
+                                // A job that has ended is forgotten once its end was reported.
+                                MiningJob job = jobs.get(Long.parseLong(request.jobId));
+                                if (job != null) {
+                                    describeJob(job);
+                                    if (job.isDone()) {
+                                        jobs.remove(job.getId());
+                                    }
+                                }
+                            }
+                            case 8 -> {
+                                // Handle request to cancel a mining job.
+                                MiningJob job = jobs.get(Long.parseLong(request.jobId));
+                                if (job != null) {
+                                    job.cancel();
+                                    describeJob(job);
+                                }
+                            }
+                            case 9 -> {
+                                // Handle request to submit a transaction to the mempool.
+                                // It is acknowledged at once and mined later with a batch of other transactions.
+                                response.txId = Long.toString(mempool.submit(request.data));
+                                response.state = "PENDING";
+                                response.pending = Integer.toString(mempool.size());
+                            }
+                            case 10 -> {
+                                // Handle request to view a transaction of the mempool.
+                                Mempool.Transaction tx = mempool.getTransaction(Long.parseLong(request.txId));
+                                if (tx != null) {
+                                    response.txId = Long.toString(tx.getId());
+                                    response.state = includingBlock(bc, tx) != null ? "INCLUDED" : "PENDING";
+                                    response.index = Integer.toString(tx.getHeight());
+                                    response.position = Integer.toString(tx.getPosition());
+                                }
+                                response.pending = Integer.toString(mempool.size());
+                            }
+                            case 11 -> {
+                                // Handle request to prove that a mempool transaction is in its block.
+                                // Only the block header and the Merkle path are sent, not the other transactions.
+                                Mempool.Transaction tx = mempool.getTransaction(Long.parseLong(request.txId));
+                                Block block = tx == null ? null : includingBlock(bc, tx);
+                                if (block != null) {
+                                    response.txId = Long.toString(tx.getId());
+                                    response.transaction = tx.getData();
+                                    response.proof = new Gson().toJsonTree(block.proveTransaction(tx.getPosition()));
+                                    response.index = Integer.toString(block.getIndex());
+                                    response.timestamp = block.getTimestamp().toString();
+                                    response.merkleRoot = block.getMerkleRoot().toString();
+                                    response.previousHash = block.getPreviousHash().toString();
+                                    response.nonce = block.getNonce().toString();
+                                    response.difficulty = Integer.toString(block.getDifficulty());
+                                    response.blockHash = block.calculateHash().toString();
+                                    response.version = Integer.toString(block.getVersion());
+                                    if (block.isBinary()) {
+                                        // the exact bytes that were hashed, so the client needs no knowledge of the
+                                        // encoding
+                                        response.header = BlockHasher.toHex(BlockHeader.encode(block));
+                                    }
+                                }
+                            }
+                            case 12 -> {
+                                // Handle request to find a block by its hash.
+                                // The hash index answers without scanning the chain; the block is sent as a page of one
+                                // block.
+                                int height;
+                                try {
+                                    height = bc.findBlock(Hash.fromHex(request.data.trim()));
+                                } catch (NumberFormatException e) {
+                                    height = -1;
+                                }
+                                if (height >= 0) {
+                                    sendChain(new ChainWriter(bc), height, 1);
+                                    continue;
+                                }
+                            }
+                            case 13 -> {
+                                // Handle request to search the transactions of the blockchain.
+                                // The inverted index gives the blocks holding every word of the query.
+                                response.matches =
+                                        new Gson().toJsonTree(bc.searchTransactions(request.data, SEARCH_LIMIT));
+                            }
+                            case 15 -> {
+                                // Handle request to view the workers of the mining pool.
+                                response.workers = new Gson().toJsonTree(pool == null ? List.of() : pool.getWorkers());
+                            }
+                            default -> System.out.println("Wrong choice.");
+                        }
+
+                        // Send the response to the client.
+                        send(response.toJSON());
+
+                    }
+                }
+            }
+            // Handle exceptions
+        } catch (IOException e) {
+            System.out.println("IO Exception:" + e.getMessage());
+        }
+    }
+
+    /**
+     * The `receive` method is responsible for receiving a JSON request message from the client.
+     * It reads the message from the input stream and deserializes it into a RequestMessage object.
+     */
+    public static void receive() {
+        System.out.println("We have a visitor");
+        // receive request message from client
+        String requestMessage = in.nextLine();
+        System.out.println("JSON REQUEST MESSAGE:" + requestMessage);
+        // deserializes it into a RequestMessage object
+        request.fromJSON(requestMessage);
+    }
+
+    /**
+     * The `includingBlock` method gets the block a mempool transaction was included in, after checking that the
+     * block at its height still holds it at its position: a peer's fork may have just replaced that block, before
+     * the mempool put the transaction back.
+     *
+     * @param bc The blockchain.
+     * @param tx The transaction.
+     * @return The block, or null if the transaction is not in a block of the chain.
+     */
+    public static Block includingBlock(BlockChain bc, Mempool.Transaction tx) {
+        int height = tx.getHeight();
+        int position = tx.getPosition();
+        if (height < 0 || position < 0) {
+            return null;
+        }
+        try {
+            Block block = bc.getBlock(height);
+            List<String> transactions = block.getTransactions();
+            return position < transactions.size() && transactions.get(position).equals(tx.getData()) ? block : null;
+        } catch (IndexOutOfBoundsException e) {
+            // the chain got shorter
+            return null;
+        }
+    }
+
+    /**
+     * The `describeJob` method populates the response with the state and the progress of a mining job.
+     *
+     * @param job The mining job.
+     */
+    public static void describeJob(MiningJob job) {
+        response.jobId = Long.toString(job.getId());
+        response.state = job.getState().toString();
+        response.noncesTried = Long.toString(job.getNoncesTried());
+        response.time = Long.toString(job.getElapsedMillis());
+        response.remainingTime = Long.toString(job.getEstimatedRemainingMillis());
+        if (job.getState() == MiningJob.State.DONE) {
+            response.index = Integer.toString(job.getHeight());
+            response.nonce = job.getBlock().getNonce().toString();
+            response.chainHash = job.getFuture().join().toString();
+        }
+    }
+
+    /**
+     * The `sendChain` method sends a page of the blockchain to the client. The response message is written
+     * straight to the output stream block by block, so a long chain is never held in memory as a string.
+     * A page past the end of the chain, which may have lost its last blocks to a peer's fork since the client read
+     * its size, is the empty page at the end.
+     *
+     * @param writer The writer of the blockchain.
+     * @param from The position of the first block of the page, at least 0.
+     * @param pageSize The largest number of blocks in the page, at least 1.
+     * @throws IOException if the response can not be written.
+     */
+    public static void sendChain(ChainWriter writer, int from, int pageSize) throws IOException {
+        System.out.println("JSON RESPONSE MESSAGE: up to " + pageSize + " blocks from block " + from);
+        JsonWriter json = new JsonWriter(out);
+        json.beginObject();
+        json.name("chain");
+        writer.writePage(json, from, pageSize);
+        json.endObject();
+        json.flush();
+        out.println();
+        out.flush();
+    }
+
+    /**
+     * The `send` method is responsible for sending a JSON response message to the client.
+     * It takes a message as input, serializes it into a JSON string, and sends it through the output stream to the client.
+     * @param message The message to be sent as a JSON response.
+     */
+    public static void send(String message) {
+        // send response message to the client
+        System.out.println("JSON RESPONSE MESSAGE:" + message.replace("\\", ""));
+        out.println(message);
+        out.flush();
+    }
+}
@@ -0,0 +1,265 @@
+/**
+ * Hash Class Documentation
+ *
+ * The `Hash` class is an immutable SHA-256 hash: the hash of a block, the previous hash of a block, the chain hash
+ * and a Merkle root. The 32 bytes are held in four longs, so a hash takes 48 bytes of heap instead of the 100 to 150
+ * of a 64-character hex string and its array, and `equals` compares four longs instead of 64 characters. Hashes are
+ * only converted to hexadecimal at the edges: in `toString()`, for the JSON sent to clients and for the string
+ * message hashed by `Block.LEGACY` and `Block.MERKLE` blocks.
+ *
+ * `ZERO`, the hash with all bytes zero, stands for the missing previous hash of a genesis block. Its hexadecimal form
+ * is the empty string, as the previous hash of a genesis block always was, and in a binary header it is 32 zero bytes.
+ *
+ * Class Fields:
+ * - `w0`, `w1`, `w2`, `w3` (long): The bytes of the hash, big-endian, 8 per long.
+ *
+ * Methods:
+ * - `of(byte[] bytes)`, `of(byte[] bytes, int offset)`: Get the hash held in 32 bytes.
+ * - `read(ByteBuffer buffer)`: Read a hash from a buffer.
+ * - `fromHex(String hex)`: Parse the hexadecimal form of a hash.
+ * - `writeTo(byte[] output, int offset)`, `writeTo(ByteBuffer buffer)`: Write the 32 bytes of the hash.
+ * - `toBytes()`: Get the 32 bytes of the hash.
+ * - `equals(byte[] bytes, int offset)`: Compare the hash with 32 bytes of an array.
+ * - `leadingZeroBits()`: Count the leading zero bits.
+ * - `hasLeadingZeroes(int zeroes)`: Check the number of leading hex zeroes.
+ * - `equals(Object o)`, `hashCode()`: Compare hashes by value.
+ * - `toString()`: Get the uppercase hexadecimal form, empty for `ZERO`.
+ */
+
+package ds.project3task1;
+
+import java.nio.ByteBuffer;
+
+public final class Hash {
+    // the length of a hash in bytes
+    public static final int SIZE = 32;
+    // the previous hash of a genesis block
+    public static final Hash ZERO = new Hash(0, 0, 0, 0);
+    // the characters used for hexadecimal strings, uppercase like the hashes always were
+    private static final char[] HEX_ARRAY = "0123456789ABCDEF".toCharArray();
+
+    // bytes 0 to 7, big-endian
+    private final long w0;
+    // bytes 8 to 15
+    private final long w1;
+    // bytes 16 to 23
+    private final long w2;
+    // bytes 24 to 31
+    private final long w3;
+
+    /**
+     * Constructor used by the factory methods.
+     *
+     * @param w0 Bytes 0 to 7.
+     * @param w1 Bytes 8 to 15.
+     * @param w2 Bytes 16 to 23.
+     * @param w3 Bytes 24 to 31.
+     */
+    private Hash(long w0, long w1, long w2, long w3) {
+        this.w0 = w0;
+        this.w1 = w1;
+        this.w2 = w2;
+        this.w3 = w3;
+    }
+
+    /**
+     * Get the hash held in 32 bytes, such as a digest.
+     *
+     * @param bytes The 32 bytes of the hash.
+     * @return The hash.
+     */
+    public static Hash of(byte[] bytes) {
+        if (bytes.length != SIZE) {
+            throw new IllegalArgumentException("A hash has 32 bytes, not " + bytes.length);
+        }
+        return of(bytes, 0);
+    }
+
+    /**
+     * Get the hash held in 32 bytes of an array.
+     *
+     * @param bytes The array holding the hash.
+     * @param offset The position of the first byte of the hash.
+     * @return The hash.
+     */
+    public static Hash of(byte[] bytes, int offset) {
+        return new Hash(getLong(bytes, offset), getLong(bytes, offset + 8),
+                getLong(bytes, offset + 16), getLong(bytes, offset + 24));
+    }
+
+    /**
+     * Read a hash from a buffer.
+     *
+     * @param buffer The buffer, positioned at the first byte of the hash; it is left after the hash.
+     * @return The hash.
+     */
+    public static Hash read(ByteBuffer buffer) {
+        return new Hash(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong());
+    }
+
+    /**
+     * Parse the hexadecimal form of a hash, in either case. The empty string is `ZERO`.
+     *
+     * @param hex 64 hexadecimal digits, or the empty string.
+     * @return The hash.
+     * @throws NumberFormatException if the string is not the hexadecimal form of a hash.
+     */
+    public static Hash fromHex(String hex) {
+        if (hex.isEmpty()) {
+            return ZERO;
+        }
+        if (hex.length() != SIZE * 2) {
+            throw new NumberFormatException("A hash has 64 hex digits: " + hex);
+        }
+        return of(BlockHasher.fromHex(hex), 0);
+    }
+
+    /**
+     * Write the 32 bytes of the hash into an array.
+     *
+     * @param output The array to write to.
+     * @param offset The position of the first byte of the hash.
+     */
+    public void writeTo(byte[] output, int offset) {
+        putLong(w0, output, offset);
+        putLong(w1, output, offset + 8);
+        putLong(w2, output, offset + 16);
+        putLong(w3, output, offset + 24);
+    }
+
+    /**
+     * Write the 32 bytes of the hash into a buffer.
+     *
+     * @param buffer The buffer; it is left after the hash.
+     */
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putLong(w0).putLong(w1).putLong(w2).putLong(w3);
+    }
+
+    /**
+     * Get the 32 bytes of the hash.
+     *
+     * @return A new array.
+     */
+    public byte[] toBytes() {
+        byte[] bytes = new byte[SIZE];
+        writeTo(bytes, 0);
+        return bytes;
+    }
+
+    /**
+     * Compare the hash with 32 bytes of an array, such as a digest written by `BlockHasher.hashBlock`,
+     * without making a hash of them.
+     *
+     * @param bytes The array holding the other hash.
+     * @param offset The position of its first byte.
+     * @return true if the bytes are this hash.
+     */
+    public boolean equals(byte[] bytes, int offset) {
+        return w0 == getLong(bytes, offset) && w1 == getLong(bytes, offset + 8)
+                && w2 == getLong(bytes, offset + 16) && w3 == getLong(bytes, offset + 24);
+    }
+
+    /**
+     * Count the leading zero bits of the hash.
+     *
+     * @return The number of zero bits before the first one bit, 256 for `ZERO`.
+     */
+    public int leadingZeroBits() {
+        if (w0 != 0) {
+            return Long.numberOfLeadingZeros(w0);
+        }
+        if (w1 != 0) {
+            return 64 + Long.numberOfLeadingZeros(w1);
+        }
+        if (w2 != 0) {
+            return 128 + Long.numberOfLeadingZeros(w2);
+        }
+        return 192 + Long.numberOfLeadingZeros(w3);
+    }
+
+    /**
+     * Check that the hash starts with the given number of hex zeroes, like `BlockHasher.hasLeadingZeroes`.
+     *
+     * @param zeroes The number of leading hex zeroes required.
+     * @return true if the hash has at least that many leading hex zeroes.
+     */
+    public boolean hasLeadingZeroes(int zeroes) {
+        return zeroes <= SIZE * 2 && leadingZeroBits() >= zeroes * 4;
+    }
+
+    /**
+     * Compare two hashes by value.
+     *
+     * @param o The other object.
+     * @return true if it is a hash with the same bytes.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Hash)) {
+            return false;
+        }
+        Hash h = (Hash) o;
+        return w0 == h.w0 && w1 == h.w1 && w2 == h.w2 && w3 == h.w3;
+    }
+
+    /**
+     * Get a hash code from the last bytes: the proof of work makes the first bytes zero, the last ones are random.
+     *
+     * @return The hash code.
+     */
+    @Override
+    public int hashCode() {
+        return Long.hashCode(w3);
+    }
+
+    /**
+     * Get the uppercase hexadecimal form of the hash, as sent to clients and hashed by string-hashed blocks.
+     *
+     * @return 64 hexadecimal digits, or the empty string for `ZERO`.
+     */
+    @Override
+    public String toString() {
+        if (equals(ZERO)) {
+            return "";
+        }
+        char[] hexChars = new char[SIZE * 2];
+        long[] words = {w0, w1, w2, w3};
+        for (int i = 0; i < hexChars.length; i++) {
+            hexChars[i] = HEX_ARRAY[(int) (words[i / 16] >>> (60 - (i % 16) * 4)) & 0x0F];
+        }
+        return new String(hexChars);
+    }
+
+    /**
+     * Read 8 bytes of an array as a big-endian long.
+     *
+     * @param bytes The array.
+     * @param offset The position of the first byte.
+     * @return The long.
+     */
+    private static long getLong(byte[] bytes, int offset) {
+        long v = 0;
+        for (int i = 0; i < 8; i++) {
+            v = v << 8 | (bytes[offset + i] & 0xFF);
+        }
+        return v;
+    }
+
+    /**
+     * Write a long into 8 bytes of an array, big-endian.
+     *
+     * @param v The long.
+     * @param bytes The array.
+     * @param offset The position of the first byte.
+     */
+    private static void putLong(long v, byte[] bytes, int offset) {
+        for (int i = offset + 7; i >= offset; i--) {
+            bytes[i] = (byte) v;
+            v >>>= 8;
+        }
+    }
+}
@@ -0,0 +1,283 @@
+/**
+ * HashrateCalibrator Class Documentation
+ *
+ * The `HashrateCalibrator` class measures how many block hashes per second this computer can try while mining.
+ * Unlike `BlockChain.computeHashesPerSecond()`, which times a cold loop over a constant 8-byte input on one thread,
+ * it hashes a real `Block.BINARY` block through the `NonceScanner` the miners use, as chosen by `MiningEngine`, so
+ * that the vector engine is measured whenever it mines. It warms the JIT up before timing, and measures both one
+ * thread alone and all the mining threads at once. Calibration can be repeated periodically on a background thread
+ * so that the numbers follow changes in load, and the last numbers are used to estimate how long a block of a given
+ * difficulty takes to mine.
+ *
+ * Class Fields:
+ * - `threads` (int): The number of threads measured together, normally the miner's thread count.
+ * - `measureMillis` (long): How long each measurement runs.
+ * - `workers` (ExecutorService): The threads hashing during the all-core measurement.
+ * - `scheduler` (ScheduledExecutorService): The background thread recalibrating periodically, created on `start`.
+ * - `perThread` (double): The hashes per second of a single thread, from the last calibration.
+ * - `allThreads` (double): The hashes per second of all threads together, from the last calibration.
+ * - `calibratedAt` (long): The time of the last calibration, in milliseconds since the epoch.
+ *
+ * Constructors:
+ * - `HashrateCalibrator(int threads)`: Creates a calibrator measuring the given number of threads.
+ * - `HashrateCalibrator(int threads, long measureMillis)`: Creates a calibrator with a given measurement time.
+ *
+ * Methods:
+ * - `calibrate()`: Warm up, then measure the per-thread and all-thread hash rates.
+ * - `start(long period, TimeUnit unit)`: Recalibrate periodically in the background.
+ * - `getHashesPerSecondPerThread()`: Get the hash rate of one thread.
+ * - `getHashesPerSecond()`: Get the hash rate of all threads together.
+ * - `getCalibratedAt()`: Get the time of the last calibration.
+ * - `getThreads()`: Get the number of threads measured together.
+ * - `estimateMillis(int difficulty)`: Estimate the time to mine a block of the given difficulty.
+ * - `estimateMillis(int version, int difficulty)`: Estimate the time for a block of the given version and difficulty.
+ * - `shutdown()`: Stop the background and worker threads.
+ */
+
+package ds.project3task1;
+
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class HashrateCalibrator {
+    // the default length of one measurement
+    private static final long DEFAULT_MEASURE_MILLIS = 500;
+    // the nonces tried between two looks at the clock, a multiple of the lanes of any vector scanner
+    private static final int BATCH = 1024;
+    // the most warm-up rounds; the vector engine takes more than one measurement to be compiled
+    private static final int MAX_WARMUPS = 5;
+
+    // the number of threads measured together
+    private final int threads;
+    // how long each measurement runs
+    private final long measureMillis;
+    // the threads hashing during the all-core measurement
+    private final ExecutorService workers;
+    // the background thread recalibrating periodically, null until started
+    private ScheduledExecutorService scheduler;
+    // the hashes per second of a single thread
+    private volatile double perThread;
+    // the hashes per second of all threads together
+    private volatile double allThreads;
+    // the time of the last calibration, 0 if there was none
+    private volatile long calibratedAt;
+
+    /**
+     * Constructor to create a calibrator with the default measurement time.
+     *
+     * @param threads The number of threads measured together (at least 1).
+     */
+    public HashrateCalibrator(int threads) {
+        this(threads, DEFAULT_MEASURE_MILLIS);
+    }
+
+    /**
+     * Constructor to create a calibrator.
+     *
+     * @param threads The number of threads measured together (at least 1).
+     * @param measureMillis How long each measurement runs, in milliseconds (at least 1).
+     */
+    public HashrateCalibrator(int threads, long measureMillis) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1");
+        }
+        if (measureMillis < 1) {
+            throw new IllegalArgumentException("measureMillis must be at least 1");
+        }
+        this.threads = threads;
+        this.measureMillis = measureMillis;
+        // daemon threads so an idle calibrator never keeps the JVM alive
+        this.workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "calibrator");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Warm up, then measure the hash rate of one thread alone and of all threads together.
+     * The warm-up runs the measurement on every thread and throws the result away, again while the rate still
+     * grows by more than 10%, so that the hashing code is compiled before it is timed.
+     *
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    public synchronized void calibrate() throws NoSuchAlgorithmException {
+        double warm = measureOn(threads);
+        for (int i = 1; i < MAX_WARMUPS; i++) {
+            double rate = measureOn(threads);
+            if (rate < warm * 1.1) {
+                break;
+            }
+            warm = rate;
+        }
+        double single = measureOn(1);
+        double all = threads == 1 ? single : measureOn(threads);
+        perThread = single;
+        allThreads = all;
+        calibratedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Measure the hash rate of the calling thread, mining a typical block until `measureMillis` have passed.
+     *
+     * @return The hashes per second.
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    private double measure() throws NoSuchAlgorithmException {
+        // a block like the ones the server mines: a binary header with a full previous hash; the difficulty
+        // is too high to ever be met, so every nonce is tried exactly as in a real search
+        Block block = new Block(1, new Timestamp(System.currentTimeMillis()),
+                "Transaction: calibration pays the miner 1 DSCoin", 64, Block.BINARY);
+        block.setPreviousHash(Hash.fromHex("1".repeat(64)));
+        NonceScanner scanner = MiningEngine.forCurrentThread();
+        scanner.reset(block);
+
+        long start = System.nanoTime();
+        long end = start + measureMillis * 1000000;
+        long nonce = 0;
+        long now;
+        do {
+            scanner.scan(nonce, nonce + BATCH);
+            nonce += BATCH;
+            now = System.nanoTime();
+        } while (now < end);
+        return nonce * 1e9 / (now - start);
+    }
+
+    /**
+     * Measure a number of worker threads hashing at the same time. Even one thread alone is measured on a worker
+     * thread, like the miners, rather than on the calling thread, where the vector engine was seen to run slower.
+     *
+     * @param count The number of threads, at most `threads`.
+     * @return The sum of the hashes per second of the threads.
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    private double measureOn(int count) throws NoSuchAlgorithmException {
+        List<Callable<Double>> tasks = new ArrayList<>();
+        for (int k = 0; k < count; k++) {
+            tasks.add(this::measure);
+        }
+        double total = 0;
+        try {
+            for (Future<Double> f : workers.invokeAll(tasks)) {
+                total += f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("calibration interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof NoSuchAlgorithmException) {
+                throw (NoSuchAlgorithmException) e.getCause();
+            }
+            throw new IllegalStateException("calibration failed", e.getCause());
+        }
+        return total;
+    }
+
+    /**
+     * Recalibrate periodically on a background thread, the first time after one period.
+     * A calibration that fails keeps the previous numbers.
+     *
+     * @param period The time between two calibrations.
+     * @param unit The unit of the period.
+     */
+    public synchronized void start(long period, TimeUnit unit) {
+        if (scheduler != null) {
+            throw new IllegalStateException("calibration already started");
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "calibration");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                calibrate();
+            } catch (NoSuchAlgorithmException | RuntimeException e) {
+                System.out.println("Calibration failed: " + e);
+            }
+        }, period, period, unit);
+    }
+
+    /**
+     * Get the hash rate of a single thread, from the last calibration.
+     *
+     * @return The hashes per second, 0 before the first calibration.
+     */
+    public double getHashesPerSecondPerThread() {
+        return perThread;
+    }
+
+    /**
+     * Get the hash rate of all threads hashing together, from the last calibration.
+     *
+     * @return The hashes per second, 0 before the first calibration.
+     */
+    public double getHashesPerSecond() {
+        return allThreads;
+    }
+
+    /**
+     * Get the time of the last calibration.
+     *
+     * @return The time in milliseconds since the epoch, 0 before the first calibration.
+     */
+    public long getCalibratedAt() {
+        return calibratedAt;
+    }
+
+    /**
+     * Get the number of threads measured together.
+     *
+     * @return The number of threads.
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Estimate the time to mine a block of the given difficulty with all threads: on average 16^difficulty
+     * hashes are needed to find a hash with that many leading hex zeroes.
+     *
+     * @param difficulty The number of leading hex zeroes required.
+     * @return The expected time in milliseconds, or -1 before the first calibration.
+     */
+    public double estimateMillis(int difficulty) {
+        return estimateMillis(Block.BINARY, difficulty);
+    }
+
+    /**
+     * Estimate the time to mine a block of the given version and difficulty with all threads: on average 2^bits
+     * hashes are needed, bits being the difficulty of a `Block.TARGET` block and 4 bits per hex zero otherwise.
+     *
+     * @param version The version of the block.
+     * @param difficulty The difficulty of the block.
+     * @return The expected time in milliseconds, or -1 before the first calibration.
+     */
+    public double estimateMillis(int version, int difficulty) {
+        double rate = allThreads;
+        if (rate <= 0) {
+            return -1;
+        }
+        return Block.expectedHashes(version, difficulty) / rate * 1000;
+    }
+
+    /**
+     * Stop the background and worker threads. The calibrator can not be used afterwards.
+     */
+    public synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        workers.shutdownNow();
+    }
+}
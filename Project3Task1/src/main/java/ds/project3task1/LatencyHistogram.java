@@ -0,0 +1,175 @@
+/**
+ * LatencyHistogram Class Documentation
+ *
+ * The `LatencyHistogram` class counts latencies in nanoseconds so that their percentiles can be read without keeping
+ * every value. Values below 64 have a bucket each; above, every power of two is split into 64 buckets, so a
+ * percentile is within 1/64 (1.6%) of the true value whatever its magnitude, from nanoseconds to minutes, in a fixed
+ * array of counts. A histogram is not thread-safe: each thread records into its own, and they are merged at the end.
+ *
+ * Class Fields:
+ * - `counts` (long[]): The number of values in each bucket.
+ * - `count` (long): The number of values recorded.
+ * - `sum` (long): Their sum.
+ * - `min` (long): The smallest value recorded.
+ * - `max` (long): The largest value recorded.
+ *
+ * Constructors:
+ * - `LatencyHistogram()`: Creates an empty histogram.
+ *
+ * Methods:
+ * - `record(long nanos)`: Count a value.
+ * - `add(LatencyHistogram other)`: Count the values of another histogram too.
+ * - `percentile(double percent)`: Get the value below which a percentage of the values lie.
+ * - `getCount()`: Get the number of values recorded.
+ * - `getMean()`: Get the mean of the values.
+ * - `getMin()`: Get the smallest value.
+ * - `getMax()`: Get the largest value.
+ * - `bucketOf(long value)`: Get the bucket of a value.
+ * - `highestInBucket(int bucket)`: Get the largest value of a bucket.
+ */
+
+package ds.project3task1;
+
+public class LatencyHistogram {
+    // the bits of a value kept below its highest bit: 2^SUB_BITS buckets per power of two
+    static final int SUB_BITS = 6;
+    // the number of buckets per power of two
+    static final int SUB_BUCKETS = 1 << SUB_BITS;
+    // enough buckets for any positive long
+    static final int BUCKETS = (63 - SUB_BITS + 1) * SUB_BUCKETS;
+
+    // the number of values in each bucket
+    private final long[] counts = new long[BUCKETS];
+    // the number of values recorded
+    private long count;
+    // their sum
+    private long sum;
+    // the smallest value recorded
+    private long min = Long.MAX_VALUE;
+    // the largest value recorded
+    private long max;
+
+    /**
+     * Constructor to create an empty histogram.
+     */
+    public LatencyHistogram() {
+    }
+
+    /**
+     * Count a value. A negative value is counted as 0.
+     *
+     * @param nanos The latency in nanoseconds.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[bucketOf(value)]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Count the values of another histogram too.
+     *
+     * @param other The histogram to merge into this one.
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Get the value below which a percentage of the values lie, as the largest value of the bucket holding it, or
+     * the largest value recorded if it is smaller.
+     *
+     * @param percent The percentage, e.g. 99.9.
+     * @return The value in nanoseconds, 0 if no value was recorded.
+     */
+    public long percentile(double percent) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percent / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestInBucket(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Get the number of values recorded.
+     *
+     * @return The number of values.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Get the mean of the values.
+     *
+     * @return The mean in nanoseconds, 0 if no value was recorded.
+     */
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Get the smallest value recorded.
+     *
+     * @return The value in nanoseconds, 0 if no value was recorded.
+     */
+    public long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    /**
+     * Get the largest value recorded.
+     *
+     * @return The value in nanoseconds.
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Get the bucket of a value: the value itself below `SUB_BUCKETS`, otherwise its power of two and the
+     * `SUB_BITS` bits below its highest bit.
+     *
+     * @param value The value, not negative.
+     * @return The index of the bucket.
+     */
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int highest = 63 - Long.numberOfLeadingZeros(value);
+        int shift = highest - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    /**
+     * Get the largest value of a bucket.
+     *
+     * @param bucket The index of the bucket.
+     * @return The largest value counted in it.
+     */
+    static long highestInBucket(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long top = SUB_BUCKETS + bucket % SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+}
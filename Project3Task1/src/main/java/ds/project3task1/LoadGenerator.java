@@ -0,0 +1,495 @@
+/**
+ * LoadGenerator Class Documentation
+ *
+ * The `LoadGenerator` class load tests an `EchoServerTCP` without the menu of the client: it opens a number of
+ * connections, each on its own thread, and sends them a random mix of requests — viewing the status (choice 0),
+ * adding a transaction through the mempool (choice 9), verifying the chain (choice 2) and viewing the whole chain
+ * (choice 3) — for a given time, after a warm-up that is not measured. It records the latency of every operation in a
+ * `LatencyHistogram`, and counts the errors: requests that fail, time out or get an answer that is not JSON. A failed
+ * connection is opened again for the next request, after `ERROR_PAUSE_MILLIS`.
+ *
+ * At a target rate, the requests are sent on a fixed schedule, spread evenly over the connections, and a latency is
+ * measured from the time the request was due, not from the time it was sent: a server that falls behind makes the
+ * next requests wait, and that wait is part of their latency instead of silently lowering the rate. Without a target
+ * rate, every connection sends its next request as soon as the last one is answered. No request is sent after the
+ * end of the measurement: the requests that were due by then but still waiting are counted as skipped.
+ *
+ * The server answers one connection at a time, until it is closed. With several connections that stay open, all but
+ * the first would wait for the whole load, so several connections always open a connection for every request, and
+ * the concurrent requests are answered in turn. A single connection stays open unless `setReconnect(true)`. The
+ * connections of a load are therefore served one after another by `EchoServerTCP`, not in parallel: their latencies
+ * include the wait for the requests of the other connections, and their throughput is that of a single connection.
+ *
+ * The report is a JSON object: the settings and the requests skipped, then for every operation the requests
+ * answered, the errors, the throughput, and the minimum, mean, 50th, 90th, 99th and 99.9th percentiles and maximum
+ * of the latency in microseconds. The same settings and seed send the same sequence of requests, so the reports of
+ * two builds can be compared line by line.
+ *
+ * Class Fields:
+ * - `host` (String): The host of the server.
+ * - `port` (int): The port of the server.
+ * - `connections` (int): The number of connections sending requests at the same time.
+ * - `rate` (double): The requests per second of all connections together, 0 for as fast as the server answers.
+ * - `mix` (Map<Operation, Integer>): The weight of every operation in the mix.
+ * - `warmupNanos` (long): How long requests are sent before they are measured.
+ * - `durationNanos` (long): How long requests are measured.
+ * - `reconnect` (boolean): Whether every request opens its own connection.
+ * - `seed` (long): The seed of the random choice of operations.
+ *
+ * Constructors:
+ * - `LoadGenerator(String host, int port, int connections, double rate, Map<Operation, Integer> mix)`: Creates a
+ *   generator with a 5 second warm-up and a 30 second measurement, reconnecting for every request if there are
+ *   several connections.
+ *
+ * Methods:
+ * - `setWarmup(long time, TimeUnit unit)`: Set how long requests are sent before they are measured.
+ * - `setDuration(long time, TimeUnit unit)`: Set how long requests are measured.
+ * - `setReconnect(boolean reconnect)`: Set whether every request opens its own connection.
+ * - `setSeed(long seed)`: Set the seed of the random choice of operations.
+ * - `run()`: Send the requests and build the report.
+ * - `parseMix(String mix)`: Read a mix such as "view=60,add=30,verify=5,chain=5".
+ */
+
+package ds.project3task1;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+public class LoadGenerator {
+    // the mix used when none is given
+    public static final String DEFAULT_MIX = "view=60,add=30,verify=5,chain=5";
+    // how long connecting to the server may take
+    static final int CONNECT_TIMEOUT_MILLIS = 2000;
+    // how long the server may take to answer
+    static final int READ_TIMEOUT_MILLIS = 30000;
+    // the wait after an error, so that a server that is down is not asked in a tight loop
+    static final long ERROR_PAUSE_MILLIS = 100;
+
+    /**
+     * The requests of the mix, with their name in the mix and the report and the choice of the client menu they
+     * send.
+     */
+    public enum Operation {
+        VIEW("view", "0"),
+        ADD("add", "9"),
+        VERIFY("verify", "2"),
+        CHAIN("chain", "3");
+
+        // the name of the operation in the mix and the report
+        final String label;
+        // the choice sent to the server
+        final String choice;
+
+        Operation(String label, String choice) {
+            this.label = label;
+            this.choice = choice;
+        }
+    }
+
+    // the host of the server
+    private final String host;
+    // the port of the server
+    private final int port;
+    // the number of connections sending requests at the same time
+    private final int connections;
+    // the requests per second of all connections together, 0 for as fast as the server answers
+    private final double rate;
+    // the weight of every operation in the mix
+    private final Map<Operation, Integer> mix;
+    // how long requests are sent before they are measured
+    private long warmupNanos = TimeUnit.SECONDS.toNanos(5);
+    // how long requests are measured
+    private long durationNanos = TimeUnit.SECONDS.toNanos(30);
+    // whether every request opens its own connection
+    private boolean reconnect;
+    // the seed of the random choice of operations
+    private long seed = 1;
+
+    /**
+     * Constructor to create a generator with a 5 second warm-up and a 30 second measurement. Several connections open
+     * a connection for every request, since the server would answer only the first of several that stay open.
+     *
+     * @param host The host of the server.
+     * @param port The port of the server.
+     * @param connections The number of connections sending requests at the same time (at least 1).
+     * @param rate The requests per second of all connections together, 0 for as fast as the server answers.
+     * @param mix The weight of every operation in the mix; operations missing from it are not sent.
+     */
+    public LoadGenerator(String host, int port, int connections, double rate, Map<Operation, Integer> mix) {
+        int total = 0;
+        for (int weight : mix.values()) {
+            if (weight < 0) {
+                throw new IllegalArgumentException("A weight of the mix is negative");
+            }
+            total += weight;
+        }
+        if (connections < 1 || rate < 0 || total == 0) {
+            throw new IllegalArgumentException("A load needs a connection, a rate of at least 0 and an operation");
+        }
+        this.host = host;
+        this.port = port;
+        this.connections = connections;
+        this.rate = rate;
+        this.mix = new EnumMap<>(mix);
+        this.reconnect = connections > 1;
+    }
+
+    /**
+     * Set how long requests are sent before they are measured, so that the server and the JIT warm up.
+     *
+     * @param time The warm-up time, 0 for none.
+     * @param unit The unit of the time.
+     */
+    public void setWarmup(long time, TimeUnit unit) {
+        warmupNanos = unit.toNanos(time);
+    }
+
+    /**
+     * Set how long requests are measured.
+     *
+     * @param time The measurement time.
+     * @param unit The unit of the time.
+     */
+    public void setDuration(long time, TimeUnit unit) {
+        durationNanos = unit.toNanos(time);
+    }
+
+    /**
+     * Set whether every request opens its own connection, which the server answers in turn with the others, instead
+     * of every connection staying open. Only a single connection can stay open.
+     *
+     * @param reconnect true to open a connection for every request.
+     * @throws IllegalArgumentException if several connections would stay open.
+     */
+    public void setReconnect(boolean reconnect) {
+        if (!reconnect && connections > 1) {
+            throw new IllegalArgumentException("The server answers only one of several connections that stay open");
+        }
+        this.reconnect = reconnect;
+    }
+
+    /**
+     * Set the seed of the random choice of operations; connection i uses seed + i.
+     *
+     * @param seed The seed.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Send the requests on every connection until the warm-up and the measurement are over, then merge the
+     * histograms and the error counts of the connections into the report.
+     *
+     * @return The report.
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the connections.
+     */
+    public JsonObject run() throws InterruptedException {
+        long measureFrom = System.nanoTime() + warmupNanos;
+        long end = measureFrom + durationNanos;
+        Connection[] senders = new Connection[connections];
+        Thread[] threads = new Thread[connections];
+        for (int i = 0; i < connections; i++) {
+            senders[i] = new Connection(i, measureFrom, end);
+            threads[i] = new Thread(senders[i], "load-" + i);
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+        Map<Operation, Long> errors = new EnumMap<>(Operation.class);
+        Map<String, Long> errorTypes = new TreeMap<>();
+        long skipped = 0;
+        for (Operation op : mix.keySet()) {
+            latencies.put(op, new LatencyHistogram());
+            errors.put(op, 0L);
+        }
+        for (Connection sender : senders) {
+            for (Operation op : mix.keySet()) {
+                latencies.get(op).add(sender.latencies[op.ordinal()]);
+                errors.merge(op, sender.errors[op.ordinal()], Long::sum);
+            }
+            sender.errorTypes.forEach((type, n) -> errorTypes.merge(type, n, Long::sum));
+            skipped += sender.skipped;
+        }
+        return report(latencies, errors, errorTypes, skipped);
+    }
+
+    /**
+     * Build the report of a run.
+     *
+     * @param latencies The latencies of every operation.
+     * @param errors The errors of every operation.
+     * @param errorTypes The errors by the simple name of their exception.
+     * @param skipped The requests that were due to be measured but not sent before the end.
+     * @return The report.
+     */
+    private JsonObject report(Map<Operation, LatencyHistogram> latencies, Map<Operation, Long> errors,
+                              Map<String, Long> errorTypes, long skipped) {
+        double seconds = durationNanos / 1e9;
+        JsonObject report = new JsonObject();
+        report.addProperty("server", host + ":" + port);
+        report.addProperty("connections", connections);
+        report.addProperty("targetRate", rate);
+        report.addProperty("reconnect", reconnect);
+        report.addProperty("seed", seed);
+        report.addProperty("warmupSeconds", warmupNanos / 1e9);
+        report.addProperty("durationSeconds", seconds);
+        JsonObject weights = new JsonObject();
+        mix.forEach((op, weight) -> weights.addProperty(op.label, weight));
+        report.add("mix", weights);
+
+        long requests = 0;
+        long failed = 0;
+        JsonObject operations = new JsonObject();
+        for (Operation op : mix.keySet()) {
+            LatencyHistogram h = latencies.get(op);
+            requests += h.getCount();
+            failed += errors.get(op);
+            JsonObject latency = new JsonObject();
+            latency.addProperty("min", h.getMin() / 1000);
+            latency.addProperty("mean", Math.round(h.getMean() / 1000));
+            latency.addProperty("p50", h.percentile(50) / 1000);
+            latency.addProperty("p90", h.percentile(90) / 1000);
+            latency.addProperty("p99", h.percentile(99) / 1000);
+            latency.addProperty("p999", h.percentile(99.9) / 1000);
+            latency.addProperty("max", h.getMax() / 1000);
+            JsonObject operation = new JsonObject();
+            operation.addProperty("requests", h.getCount());
+            operation.addProperty("errors", errors.get(op));
+            operation.addProperty("throughput", Math.round(h.getCount() / seconds * 10) / 10.0);
+            operation.add("latencyMicros", latency);
+            operations.add(op.label, operation);
+        }
+        report.addProperty("requests", requests);
+        report.addProperty("errors", failed);
+        report.addProperty("skipped", skipped);
+        report.addProperty("throughput", Math.round(requests / seconds * 10) / 10.0);
+        JsonObject types = new JsonObject();
+        errorTypes.forEach(types::addProperty);
+        report.add("errorTypes", types);
+        report.add("operations", operations);
+        return report;
+    }
+
+    /**
+     * Read a mix of operations, such as "view=60,add=30,verify=5,chain=5".
+     *
+     * @param mix The comma-separated operations with their weights.
+     * @return The weight of every operation.
+     * @throws IllegalArgumentException if an operation is unknown or a weight is not a number.
+     */
+    public static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split("=");
+            Operation found = null;
+            for (Operation op : Operation.values()) {
+                if (op.label.equals(pair[0])) {
+                    found = op;
+                }
+            }
+            if (found == null || pair.length != 2) {
+                throw new IllegalArgumentException("Unknown operation in the mix: " + part);
+            }
+            weights.put(found, Integer.parseInt(pair[1]));
+        }
+        return weights;
+    }
+
+    /**
+     * One connection of the load, sending its requests on its own thread and recording their latencies and errors.
+     */
+    private class Connection implements Runnable {
+        // the number of the connection
+        private final int index;
+        // the time from which requests are measured, in System.nanoTime()
+        private final long measureFrom;
+        // the time after which no request is sent
+        private final long end;
+        // the latency of every operation, by ordinal
+        private final LatencyHistogram[] latencies = new LatencyHistogram[Operation.values().length];
+        // the errors of every operation, by ordinal
+        private final long[] errors = new long[Operation.values().length];
+        // the errors by the simple name of their exception
+        private final Map<String, Long> errorTypes = new TreeMap<>();
+        // the measured requests that were due but not sent before the end
+        private long skipped;
+        // the operations of the mix, and their weights
+        private final Operation[] operations = mix.keySet().toArray(new Operation[0]);
+        private final int[] weights = new int[operations.length];
+        // the sum of the weights
+        private int totalWeight;
+
+        private Socket socket;
+        private BufferedReader in;
+        private PrintWriter out;
+
+        /**
+         * Constructor to create a connection, not open yet.
+         *
+         * @param index The number of the connection.
+         * @param measureFrom The time from which requests are measured.
+         * @param end The time after which no request is sent.
+         */
+        Connection(int index, long measureFrom, long end) {
+            this.index = index;
+            this.measureFrom = measureFrom;
+            this.end = end;
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i] = new LatencyHistogram();
+            }
+            for (int i = 0; i < operations.length; i++) {
+                weights[i] = mix.get(operations[i]);
+                totalWeight += weights[i];
+            }
+        }
+
+        /**
+         * Send requests until the end of the load. With a target rate, request k of this connection is due at
+         * start + (k + index / connections) * connections / rate, and a request still waiting at the end is skipped
+         * with the others due before the end.
+         */
+        @Override
+        public void run() {
+            SplittableRandom random = new SplittableRandom(seed + index);
+            long interval = rate > 0 ? Math.round(1e9 * connections / rate) : 0;
+            long due = System.nanoTime() + interval * index / connections;
+            for (long k = 0; ; k++) {
+                long start;
+                if (rate > 0) {
+                    start = due;
+                    due += interval;
+                    for (long wait = start - System.nanoTime(); wait > 0; wait = start - System.nanoTime()) {
+                        LockSupport.parkNanos(wait);
+                    }
+                } else {
+                    start = System.nanoTime();
+                }
+                if (start >= end) {
+                    break;
+                }
+                if (rate > 0 && System.nanoTime() >= end) {
+                    // the server fell behind: count the requests of the measurement that are left
+                    long first = Math.max(start, measureFrom);
+                    first = start + (first - start + interval - 1) / interval * interval;
+                    skipped = first < end ? (end - first + interval - 1) / interval : 0;
+                    break;
+                }
+                Operation op = pick(random);
+                boolean measured = start >= measureFrom;
+                try {
+                    String reply = send(request(op, k));
+                    long latency = System.nanoTime() - start;
+                    // the answer must at least be a JSON object
+                    JsonParser.parseString(reply).getAsJsonObject();
+                    if (measured) {
+                        latencies[op.ordinal()].record(latency);
+                    }
+                    if (reconnect) {
+                        close();
+                    }
+                } catch (IOException | RuntimeException e) {
+                    if (measured) {
+                        errors[op.ordinal()]++;
+                        errorTypes.merge(e.getClass().getSimpleName(), 1L, Long::sum);
+                    }
+                    close();
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(ERROR_PAUSE_MILLIS));
+                }
+            }
+            close();
+        }
+
+        /**
+         * Choose the next operation at random, by the weights of the mix.
+         *
+         * @param random The random numbers of this connection.
+         * @return The operation.
+         */
+        private Operation pick(SplittableRandom random) {
+            int r = random.nextInt(totalWeight);
+            for (int i = 0; i < operations.length; i++) {
+                r -= weights[i];
+                if (r < 0) {
+                    return operations[i];
+                }
+            }
+            return operations[operations.length - 1];
+        }
+
+        /**
+         * Build the request of an operation. A chain view asks for the whole chain in one page, as the server does
+         * by default; a verification checks the blocks since the last checkpoint.
+         *
+         * @param op The operation.
+         * @param k The number of the request on this connection, to make every transaction different.
+         * @return The request in JSON format.
+         */
+        private String request(Operation op, long k) {
+            RequestMessage request = new RequestMessage(op.choice, null, null, null);
+            if (op == Operation.ADD) {
+                request.data = "load " + index + "-" + k;
+            }
+            return request.toJSON();
+        }
+
+        /**
+         * Send a request on the connection, opening it first if needed, and receive the answer.
+         *
+         * @param request The request in JSON format.
+         * @return The answer.
+         * @throws IOException if the connection fails, times out or is closed by the server.
+         */
+        private String send(String request) throws IOException {
+            if (socket == null) {
+                socket = new Socket();
+                socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MILLIS);
+                socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+                socket.setTcpNoDelay(true);
+                in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(),
+                        StandardCharsets.UTF_8)));
+            }
+            out.println(request);
+            out.flush();
+            String line = in.readLine();
+            if (line == null) {
+                throw new IOException("Server closed the connection");
+            }
+            return line;
+        }
+
+        /**
+         * Close the connection, if it is open; the next request opens it again.
+         */
+        private void close() {
+            if (socket == null) {
+                return;
+            }
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // ignore exception on close
+            }
+            socket = null;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/**
+ * Mempool Class Documentation
+ *
+ * The `Mempool` class holds the transactions submitted to the server until a `BlockProducer` puts them into a block.
+ * Submitting a transaction only queues it and returns its pending ID, so it costs no proof of work; the proof of work
+ * is paid once per block for a whole batch of transactions. The pool remembers every transaction it accepted, so a
+ * client can ask whether its transaction was included and at which height. When a peer's fork drops the blocks from
+ * a height on, their transactions are pending again and wait for a new block.
+ *
+ * Class Fields:
+ * - `queue` (LinkedBlockingQueue<Transaction>): The transactions waiting for a block, oldest first.
+ * - `transactions` (ConcurrentHashMap<Long, Transaction>): Every accepted transaction, by pending ID.
+ * - `nextId` (AtomicLong): The pending ID of the next transaction.
+ * - `pending` (AtomicInteger): The number of transactions not yet in a block, including those being mined.
+ * - `blocks` (ConcurrentSkipListMap<Integer, List<Transaction>>): The batch of every block holding transactions, by
+ *   height.
+ *
+ * Nested Classes:
+ * - `Transaction`: A transaction with its pending ID, and its height and position once included.
+ *
+ * Methods:
+ * - `submit(String data)`: Accept a transaction and return its pending ID.
+ * - `getTransaction(long id)`: Get a transaction by its pending ID.
+ * - `size()`: Get the number of transactions not yet in a block.
+ * - `take(int max, long waitMillis, long pollMillis)`: Wait for a batch of transactions for the next block.
+ * - `included(List<Transaction> batch, int height)`: Record that a batch was included in a block.
+ * - `putBack(List<Transaction> batch)`: Return a batch whose block could not be added.
+ * - `dropFrom(int height)`: Make the transactions of the blocks dropped from a height on pending again.
+ */
+
+package ds.project3task1;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class Mempool {
+
+    /**
+     * A transaction of the pool.
+     */
+    public static class Transaction {
+        // the pending ID
+        private final long id;
+        // the transaction itself
+        private final String data;
+        // the height of the block holding the transaction, -1 while pending
+        private volatile int height = -1;
+        // the position of the transaction in the block's batch, -1 while pending
+        private volatile int position = -1;
+
+        /**
+         * Constructor used by `Mempool.submit`.
+         *
+         * @param id The pending ID.
+         * @param data The transaction.
+         */
+        Transaction(long id, String data) {
+            this.id = id;
+            this.data = data;
+        }
+
+        /**
+         * Get the pending ID of the transaction.
+         *
+         * @return The ID.
+         */
+        public long getId() {
+            return id;
+        }
+
+        /**
+         * Get the transaction itself.
+         *
+         * @return The transaction data.
+         */
+        public String getData() {
+            return data;
+        }
+
+        /**
+         * Check whether the transaction is in a block.
+         *
+         * @return true once the block holding it was added to the chain.
+         */
+        public boolean isIncluded() {
+            return height >= 0;
+        }
+
+        /**
+         * Get the height of the block holding the transaction.
+         *
+         * @return The position of the block in the chain, or -1 while the transaction is pending.
+         */
+        public int getHeight() {
+            return height;
+        }
+
+        /**
+         * Get the position of the transaction in the batch of its block.
+         *
+         * @return The position in the block data, or -1 while the transaction is pending.
+         */
+        public int getPosition() {
+            return position;
+        }
+    }
+
+    // the transactions waiting for a block, oldest first
+    private final LinkedBlockingQueue<Transaction> queue = new LinkedBlockingQueue<>();
+    // every accepted transaction, by pending ID
+    private final ConcurrentHashMap<Long, Transaction> transactions = new ConcurrentHashMap<>();
+    // the pending ID of the next transaction
+    private final AtomicLong nextId = new AtomicLong(1);
+    // the number of transactions not yet in a block
+    private final AtomicInteger pending = new AtomicInteger();
+    // the batch of every block holding transactions, by height
+    private final ConcurrentSkipListMap<Integer, List<Transaction>> blocks = new ConcurrentSkipListMap<>();
+
+    /**
+     * Accept a transaction. It waits in the pool until a block producer takes it.
+     *
+     * @param data The transaction.
+     * @return The pending ID of the transaction.
+     */
+    public long submit(String data) {
+        Transaction tx = new Transaction(nextId.getAndIncrement(), data);
+        transactions.put(tx.getId(), tx);
+        pending.incrementAndGet();
+        queue.add(tx);
+        return tx.getId();
+    }
+
+    /**
+     * Get a transaction by its pending ID.
+     *
+     * @param id The pending ID.
+     * @return The transaction, or null if the pool never accepted it.
+     */
+    public Transaction getTransaction(long id) {
+        return transactions.get(id);
+    }
+
+    /**
+     * Get the number of transactions not yet in a block, including those of the block being mined.
+     *
+     * @return The number of pending transactions.
+     */
+    public int size() {
+        return pending.get();
+    }
+
+    /**
+     * Wait for a batch of transactions for the next block: wait up to `pollMillis` for a first transaction, then
+     * keep collecting until the batch has `max` transactions or `waitMillis` have passed since the first one.
+     *
+     * @param max The largest number of transactions in the batch (at least 1).
+     * @param waitMillis How long to wait for more transactions after the first one.
+     * @param pollMillis How long to wait for a first transaction.
+     * @return The batch, oldest first; empty if no transaction arrived within `pollMillis`.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public List<Transaction> take(int max, long waitMillis, long pollMillis) throws InterruptedException {
+        List<Transaction> batch = new ArrayList<>();
+        Transaction first = queue.poll(pollMillis, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return batch;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMillis);
+        while (batch.size() < max) {
+            // take what is already there without waiting, then wait for the rest until the deadline
+            if (queue.drainTo(batch, max - batch.size()) == 0) {
+                long remaining = deadline - System.nanoTime();
+                Transaction tx = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                if (tx == null) {
+                    break;
+                }
+                batch.add(tx);
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Record that a batch was included in a block.
+     *
+     * @param batch The transactions, in the order of the block data.
+     * @param height The position of the block in the chain.
+     */
+    public void included(List<Transaction> batch, int height) {
+        for (int i = 0; i < batch.size(); i++) {
+            Transaction tx = batch.get(i);
+            tx.position = i;
+            tx.height = height;
+        }
+        blocks.put(height, batch);
+        pending.addAndGet(-batch.size());
+    }
+
+    /**
+     * Return a batch whose block could not be added. The transactions wait for the next block again,
+     * behind the ones already in the pool.
+     *
+     * @param batch The transactions.
+     */
+    public void putBack(List<Transaction> batch) {
+        queue.addAll(batch);
+    }
+
+    /**
+     * Make the transactions of the blocks dropped from a height on pending again, when a peer's fork replaced them.
+     * They wait for the next block again, behind the ones already in the pool.
+     *
+     * @param height The position of the first dropped block.
+     */
+    public void dropFrom(int height) {
+        List<Transaction> dropped = new ArrayList<>();
+        Iterator<List<Transaction>> it = blocks.tailMap(height).values().iterator();
+        while (it.hasNext()) {
+            for (Transaction tx : it.next()) {
+                tx.height = -1;
+                tx.position = -1;
+                dropped.add(tx);
+            }
+            it.remove();
+        }
+        if (!dropped.isEmpty()) {
+            pending.addAndGet(dropped.size());
+            putBack(dropped);
+        }
+    }
+}
@@ -0,0 +1,267 @@
+/**
+ * MerkleTree Class Documentation
+ *
+ * The `MerkleTree` class commits to the list of transactions of a block with a single 32-byte root, and proves that
+ * one transaction is in that list with O(log n) hashes instead of the whole block. A block of version `Block.MERKLE` or
+ * `Block.BINARY` hashes this root in its header in place of its data, so the proof of work covers every transaction while each
+ * mining attempt hashes a short, fixed-size header.
+ *
+ * The tree is built bottom-up with SHA-256:
+ * - a leaf is SHA-256(0x00 || the UTF-8 bytes of the transaction);
+ * - an inner node is SHA-256(0x01 || left child || right child);
+ * - a node without a sibling at the end of an odd level moves up unchanged (it is not paired with itself).
+ * The different prefixes of leaves and inner nodes keep a leaf from being passed off as an inner node, and not
+ * duplicating the last node keeps two different transaction lists from having the same root.
+ * The root of an empty list is SHA-256 of no bytes. The hashes of a proof are uppercase hex, as they are sent to clients.
+ *
+ * Nested Classes:
+ * - `Proof`: The path from a transaction to the root: its position, the number of transactions and the siblings.
+ * - `Step`: One sibling hash of a proof and the side it is on.
+ *
+ * Methods:
+ * - `root(List<String> transactions)`: Compute the root of a list of transactions.
+ * - `prove(List<String> transactions, int position)`: Build the inclusion proof of one transaction.
+ * - `verify(String transaction, Proof proof, Hash root)`: Check an inclusion proof against a root.
+ */
+
+package ds.project3task1;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class MerkleTree {
+    // the prefix of the hashed bytes of a leaf
+    private static final byte LEAF = 0x00;
+    // the prefix of the hashed bytes of an inner node
+    private static final byte NODE = 0x01;
+
+    /**
+     * One sibling hash on the path from a transaction to the root.
+     */
+    public static class Step {
+        // the sibling hash, uppercase hex
+        String hash;
+        // true if the sibling is the left child, so it is hashed before the running hash
+        boolean left;
+
+        /**
+         * Constructor to create a step.
+         *
+         * @param hash The sibling hash, uppercase hex.
+         * @param left true if the sibling is the left child.
+         */
+        Step(String hash, boolean left) {
+            this.hash = hash;
+            this.left = left;
+        }
+    }
+
+    /**
+     * The inclusion proof of a transaction. Its fields are serialized as they are with Gson.
+     */
+    public static class Proof {
+        // the position of the transaction in the block
+        int position;
+        // the number of transactions in the block
+        int size;
+        // the siblings from the leaf up to the root
+        List<Step> path = new ArrayList<>();
+
+        /**
+         * Get the position of the transaction in the block.
+         *
+         * @return The position.
+         */
+        public int getPosition() {
+            return position;
+        }
+
+        /**
+         * Get the number of transactions in the block.
+         *
+         * @return The number of transactions.
+         */
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * Get the number of hashes in the proof.
+         *
+         * @return The length of the path, at most the rounded-up log2 of the size.
+         */
+        public int getLength() {
+            return path.size();
+        }
+    }
+
+    /**
+     * No instances, only static methods.
+     */
+    private MerkleTree() {
+    }
+
+    /**
+     * Compute the root of a list of transactions.
+     *
+     * @param transactions The transactions, in block order.
+     * @return The root.
+     */
+    public static Hash root(List<String> transactions) {
+        MessageDigest md = sha256();
+        if (transactions.isEmpty()) {
+            return Hash.of(md.digest());
+        }
+        byte[][] level = leaves(md, transactions);
+        while (level.length > 1) {
+            level = parents(md, level);
+        }
+        return Hash.of(level[0]);
+    }
+
+    /**
+     * Build the inclusion proof of one transaction: the sibling of every node on the path from its leaf to the root.
+     *
+     * @param transactions The transactions, in block order.
+     * @param position The position of the transaction to prove.
+     * @return The proof.
+     */
+    public static Proof prove(List<String> transactions, int position) {
+        if (position < 0 || position >= transactions.size()) {
+            throw new IndexOutOfBoundsException("Transaction " + position + " out of bounds for length "
+                    + transactions.size());
+        }
+        MessageDigest md = sha256();
+        Proof proof = new Proof();
+        proof.position = position;
+        proof.size = transactions.size();
+
+        byte[][] level = leaves(md, transactions);
+        int i = position;
+        while (level.length > 1) {
+            int sibling = i ^ 1;
+            // the last node of an odd level has no sibling and moves up unchanged
+            if (sibling < level.length) {
+                proof.path.add(new Step(BlockHasher.toHex(level[sibling]), sibling < i));
+            }
+            level = parents(md, level);
+            i /= 2;
+        }
+        return proof;
+    }
+
+    /**
+     * Check that a transaction is in the list committed to by a root. The sides of the path must also be the ones
+     * given by the position and the size in the proof, so a proof can not be replayed for another position.
+     *
+     * @param transaction The transaction.
+     * @param proof The inclusion proof.
+     * @param root The root, as found in the block header.
+     * @return true if the path leads from the transaction to the root.
+     */
+    public static boolean verify(String transaction, Proof proof, Hash root) {
+        if (proof == null || proof.path == null || proof.position < 0 || proof.position >= proof.size) {
+            return false;
+        }
+        MessageDigest md = sha256();
+        byte[] hash = leaf(md, transaction);
+        int i = proof.position;
+        int width = proof.size;
+        int step = 0;
+        while (width > 1) {
+            int sibling = i ^ 1;
+            if (sibling < width) {
+                if (step == proof.path.size()) {
+                    return false;
+                }
+                Step s = proof.path.get(step++);
+                if (s.left != (sibling < i) || s.hash == null || s.hash.length() != 64) {
+                    return false;
+                }
+                byte[] other;
+                try {
+                    other = BlockHasher.fromHex(s.hash);
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+                hash = s.left ? node(md, other, hash) : node(md, hash, other);
+            }
+            i /= 2;
+            width = (width + 1) / 2;
+        }
+        return step == proof.path.size() && root.equals(hash, 0);
+    }
+
+    /**
+     * Hash every transaction into a leaf.
+     *
+     * @param md The digest to use.
+     * @param transactions The transactions.
+     * @return The leaf hashes, in order.
+     */
+    private static byte[][] leaves(MessageDigest md, List<String> transactions) {
+        byte[][] level = new byte[transactions.size()][];
+        for (int i = 0; i < level.length; i++) {
+            level[i] = leaf(md, transactions.get(i));
+        }
+        return level;
+    }
+
+    /**
+     * Hash the nodes of a level pairwise into the level above.
+     *
+     * @param md The digest to use.
+     * @param level The nodes of a level with at least two nodes.
+     * @return The nodes of the level above.
+     */
+    private static byte[][] parents(MessageDigest md, byte[][] level) {
+        byte[][] up = new byte[(level.length + 1) / 2][];
+        for (int i = 0; i < up.length; i++) {
+            up[i] = 2 * i + 1 < level.length ? node(md, level[2 * i], level[2 * i + 1]) : level[2 * i];
+        }
+        return up;
+    }
+
+    /**
+     * Hash a transaction into a leaf.
+     *
+     * @param md The digest to use.
+     * @param transaction The transaction.
+     * @return The leaf hash.
+     */
+    private static byte[] leaf(MessageDigest md, String transaction) {
+        md.update(LEAF);
+        return md.digest(transaction.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Hash two children into their parent.
+     *
+     * @param md The digest to use.
+     * @param left The left child.
+     * @param right The right child.
+     * @return The parent hash.
+     */
+    private static byte[] node(MessageDigest md, byte[] left, byte[] right) {
+        md.update(NODE);
+        md.update(left);
+        return md.digest(right);
+    }
+
+    /**
+     * Get a SHA-256 digest.
+     *
+     * @return A new digest.
+     */
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
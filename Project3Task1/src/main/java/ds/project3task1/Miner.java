@@ -0,0 +1,30 @@
+/**
+ * Miner Interface Documentation
+ *
+ * The `Miner` interface is how a `BlockChain` does the proof of work of a block when it is not done on the calling
+ * thread. `ParallelMiner` searches the nonces on the threads of this process; `MiningPool` hands ranges of nonces to
+ * worker processes that connect to the server, and falls back to another miner while no worker is connected.
+ *
+ * Methods:
+ * - `mine(Block block, MiningProgress progress)`: Find a valid nonce for the block, store it in the block and return
+ *   the block's hash.
+ */
+
+package ds.project3task1;
+
+import java.security.NoSuchAlgorithmException;
+
+public interface Miner {
+
+    /**
+     * Find a nonce that gives the block's hash the required number of leading hex zeroes, store it in the block and
+     * return the hash.
+     *
+     * @param block The block to mine.
+     * @param progress The progress to report the nonces tried to and check for cancellation, or null.
+     * @return The hash of the mined block.
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     * @throws java.util.concurrent.CancellationException if the progress was cancelled; the block is unchanged.
+     */
+    Hash mine(Block block, MiningProgress progress) throws NoSuchAlgorithmException;
+}
@@ -0,0 +1,129 @@
+/**
+ * MiningEngine Class Documentation
+ *
+ * The `MiningEngine` class chooses the `NonceScanner` the miners search nonces with. When the JVM was started with
+ * `--add-modules jdk.incubator.vector`, it loads the `VectorBlockHasher` by reflection, so that no other class links
+ * against the incubating module, and mines binary blocks `getLanes()` nonces per step. Otherwise, or when the
+ * vector hasher fails its self test, it mines on the scalar `BlockHasher`. Both give the same nonces and hashes.
+ *
+ * The scalar hasher runs on the JIT's SHA-256 intrinsic, which 4 lanes of 128 bits do not beat: the vector hasher
+ * is only chosen with at least `MIN_LANES` lanes (AVX2 or AVX-512). The system property `ds.project3task1.engine`
+ * overrides the choice: `vector` uses any number of lanes, `scalar` never loads the vector hasher.
+ *
+ * The choice is made once, when the class is first used, and printed if the vector module is present but can not
+ * be used.
+ *
+ * Class Fields:
+ * - `CURRENT` (ThreadLocal<NonceScanner>): The scanner of each thread.
+ * - `VECTOR_LANES` (int): The lanes of the vector hasher, 0 if it is not used.
+ *
+ * Methods:
+ * - `forCurrentThread()`: Get the scanner of the calling thread.
+ * - `newVectorScanner()`: Load a vector hasher.
+ * - `isVectorEnabled()`: Check whether the miners use the vector hasher.
+ * - `getName()`: Describe the engine in use.
+ */
+
+package ds.project3task1;
+
+import java.lang.reflect.InvocationTargetException;
+import java.security.NoSuchAlgorithmException;
+
+public final class MiningEngine {
+    // the system property choosing the engine: vector or scalar, instead of the default choice
+    public static final String ENGINE_PROPERTY = "ds.project3task1.engine";
+    // the fewest lanes the vector hasher is chosen with by default
+    static final int MIN_LANES = 8;
+    // the module of the Vector API
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    // the class of the vector hasher, only loaded if the module is present
+    private static final String VECTOR_HASHER = "ds.project3task1.VectorBlockHasher";
+    // the scanner of each vector-mining thread
+    private static final ThreadLocal<NonceScanner> CURRENT = new ThreadLocal<>();
+    // the lanes of the vector hasher, 0 to mine on the scalar hasher
+    private static final int VECTOR_LANES = vectorLanes();
+
+    /**
+     * No instances, only static methods.
+     */
+    private MiningEngine() {
+    }
+
+    /**
+     * Decide whether the vector hasher is used, by loading one.
+     *
+     * @return Its number of lanes, or 0 if it is not used.
+     */
+    private static int vectorLanes() {
+        String engine = System.getProperty(ENGINE_PROPERTY);
+        if ("scalar".equals(engine) || ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            return 0;
+        }
+        try {
+            int lanes = newVectorScanner().getLanes();
+            return lanes >= MIN_LANES || "vector".equals(engine) ? lanes : 0;
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            Throwable cause = e instanceof InvocationTargetException ? e.getCause() : e;
+            System.out.println("Vector mining unavailable, mining one nonce at a time: " + cause);
+            return 0;
+        }
+    }
+
+    /**
+     * Load a vector hasher. Only the JVM started with the Vector API module can do it.
+     *
+     * @return The hasher, with the preferred vector shape of this processor.
+     * @throws ReflectiveOperationException if the hasher can not be loaded, or its constructor fails, for example
+     *                                      because its self test failed.
+     */
+    public static NonceScanner newVectorScanner() throws ReflectiveOperationException {
+        return (NonceScanner) Class.forName(VECTOR_HASHER).getConstructor().newInstance();
+    }
+
+    /**
+     * Get the scanner of the calling thread: its vector hasher if the vector engine is used, otherwise its
+     * `BlockHasher`.
+     *
+     * @return The scanner.
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    public static NonceScanner forCurrentThread() throws NoSuchAlgorithmException {
+        if (VECTOR_LANES == 0) {
+            return BlockHasher.forCurrentThread();
+        }
+        NonceScanner scanner = CURRENT.get();
+        if (scanner == null) {
+            try {
+                scanner = newVectorScanner();
+            } catch (InvocationTargetException e) {
+                if (e.getCause() instanceof NoSuchAlgorithmException) {
+                    throw (NoSuchAlgorithmException) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            } catch (ReflectiveOperationException e) {
+                // it was loaded once already
+                throw new IllegalStateException(e);
+            }
+            CURRENT.set(scanner);
+        }
+        return scanner;
+    }
+
+    /**
+     * Check whether the miners use the vector hasher.
+     *
+     * @return true if they do.
+     */
+    public static boolean isVectorEnabled() {
+        return VECTOR_LANES > 0;
+    }
+
+    /**
+     * Describe the engine in use.
+     *
+     * @return "vector, N lanes" or "scalar".
+     */
+    public static String getName() {
+        return VECTOR_LANES > 0 ? "vector, " + VECTOR_LANES + " lanes" : "scalar";
+    }
+}
@@ -0,0 +1,210 @@
+/**
+ * MiningJob Class Documentation
+ *
+ * The `MiningJob` class is the handle of a block added with `BlockChain.addBlockAsync`. The block is mined on the
+ * chain's block producer thread while the caller goes on; the handle shows the state of the job and its live progress
+ * (nonces tried, elapsed time and estimated remaining time), lets the caller cancel it, and completes a future with
+ * the hash of the block once it is part of the chain.
+ *
+ * Class Fields:
+ * - `id` (long): The number of the job, unique in this JVM.
+ * - `block` (Block): The block being mined.
+ * - `progress` (MiningProgress): The nonces tried, the cancellation flag and the time limit of the job.
+ * - `result` (CompletableFuture<Hash>): Completed with the block hash, or exceptionally if the job did not finish.
+ * - `state` (State): The current state of the job.
+ * - `miningStart` (long): The time mining started, in nanoseconds of `System.nanoTime()`.
+ * - `miningEnd` (long): The time the job ended, in nanoseconds of `System.nanoTime()`.
+ * - `height` (int): The position of the block in the chain once it is added.
+ *
+ * Nested Types:
+ * - `State`: QUEUED, MINING, DONE, CANCELLED, TIMED_OUT or FAILED.
+ *
+ * Methods:
+ * - `getId()`: Get the number of the job.
+ * - `getBlock()`: Get the block being mined.
+ * - `getState()`: Get the current state of the job.
+ * - `isDone()`: Check whether the job has ended, in any way.
+ * - `cancel()`: Stop the job as soon as possible.
+ * - `getFuture()`: Get the future completed with the hash of the block.
+ * - `getHeight()`: Get the position of the block in the chain.
+ * - `getNoncesTried()`: Get the number of nonces tried so far.
+ * - `getElapsedMillis()`: Get the time spent mining so far.
+ * - `getEstimatedRemainingMillis()`: Estimate the time still needed to find a valid nonce.
+ */
+
+package ds.project3task1;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class MiningJob {
+    /**
+     * The states of a job. A job is QUEUED until the producer thread starts it, then MINING, and ends in one
+     * of the other states.
+     */
+    public enum State {
+        QUEUED, MINING, DONE, CANCELLED, TIMED_OUT, FAILED
+    }
+
+    // the number of the next job
+    private static final AtomicLong NEXT_ID = new AtomicLong(1);
+
+    // the number of the job
+    private final long id = NEXT_ID.getAndIncrement();
+    // the block being mined
+    private final Block block;
+    // the nonces tried, the cancellation flag and the time limit
+    private final MiningProgress progress;
+    // completed with the block hash when the block is added
+    private final CompletableFuture<Hash> result = new CompletableFuture<>();
+    // the current state
+    private volatile State state = State.QUEUED;
+    // the time mining started
+    private volatile long miningStart;
+    // the time the job ended, 0 while it runs
+    private volatile long miningEnd;
+    // the position of the block once it is added, -1 before
+    private volatile int height = -1;
+
+    /**
+     * Constructor used by `BlockChain.addBlockAsync`.
+     *
+     * @param block The block to mine.
+     * @param progress The progress of the job, with its time limit if any.
+     */
+    MiningJob(Block block, MiningProgress progress) {
+        this.block = block;
+        this.progress = progress;
+    }
+
+    /**
+     * Get the number of the job.
+     *
+     * @return The job number, unique in this JVM.
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Get the block being mined. Its nonce and hash are only final once the job is DONE.
+     *
+     * @return The block.
+     */
+    public Block getBlock() {
+        return block;
+    }
+
+    /**
+     * Get the current state of the job.
+     *
+     * @return The state.
+     */
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Check whether the job has ended, in any way.
+     *
+     * @return true if the job is DONE, CANCELLED, TIMED_OUT or FAILED.
+     */
+    public boolean isDone() {
+        return result.isDone();
+    }
+
+    /**
+     * Stop the job as soon as possible. A queued job never starts; a running job stops at its next progress report
+     * and its block is not added.
+     */
+    public void cancel() {
+        progress.cancel();
+    }
+
+    /**
+     * Get the future of the job. It is completed with the hash of the block once the block is part of the chain,
+     * with a `CancellationException` if the job was cancelled or timed out, or with the error that stopped it.
+     *
+     * @return The future.
+     */
+    public CompletableFuture<Hash> getFuture() {
+        return result;
+    }
+
+    /**
+     * Get the position of the block in the chain.
+     *
+     * @return The position, or -1 if the block was not added (yet).
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Get the number of nonces tried so far.
+     *
+     * @return The nonces tried, counted at every progress report of the miners.
+     */
+    public long getNoncesTried() {
+        return progress.getNoncesTried();
+    }
+
+    /**
+     * Get the time spent mining so far, not counting the time the job was queued.
+     *
+     * @return The elapsed time in milliseconds, 0 while the job is queued; it stops growing when the job ends.
+     */
+    public long getElapsedMillis() {
+        long start = miningStart;
+        long end = miningEnd;
+        if (start == 0) {
+            return 0;
+        }
+        return ((end == 0 ? System.nanoTime() : end) - start) / 1000000;
+    }
+
+    /**
+     * Estimate the time still needed to find a valid nonce, from the hash rate measured so far. Every nonce has the
+     * same 2^-bits chance to be valid (16^-difficulty for a difficulty in hex zeroes), so the expected number of
+     * nonces still to try is 2^bits however many were tried already.
+     *
+     * @return The estimated time in milliseconds, 0 once the job has ended, or -1 while no rate is known yet.
+     */
+    public long getEstimatedRemainingMillis() {
+        if (isDone()) {
+            return 0;
+        }
+        long tried = getNoncesTried();
+        long elapsed = getElapsedMillis();
+        if (tried == 0 || elapsed == 0) {
+            return -1;
+        }
+        return Math.round(Block.expectedHashes(block.getVersion(), block.getDifficulty()) * elapsed / tried);
+    }
+
+    /**
+     * Run the job on the producer thread: check it was not cancelled while queued, then mine and add the block.
+     *
+     * @param chain The chain the block is added to.
+     */
+    void run(BlockChain chain) {
+        try {
+            progress.checkCancelled();
+            miningStart = System.nanoTime();
+            state = State.MINING;
+            height = chain.addBlock(block, progress, true);
+            miningEnd = System.nanoTime();
+            state = State.DONE;
+            result.complete(block.getVerifiedHash());
+        } catch (CancellationException e) {
+            miningEnd = System.nanoTime();
+            state = progress.isTimedOut() ? State.TIMED_OUT : State.CANCELLED;
+            result.completeExceptionally(e);
+        } catch (Exception | Error e) {
+            miningEnd = System.nanoTime();
+            state = State.FAILED;
+            result.completeExceptionally(e);
+        }
+    }
+}
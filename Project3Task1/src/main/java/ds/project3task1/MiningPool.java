@@ -0,0 +1,580 @@
+/**
+ * MiningPool Class Documentation
+ *
+ * The `MiningPool` class is a `Miner` that lends the proof of work of a chain to idle client processes. A
+ * `PoolWorker` connects to the port of the pool and asks for work; the pool answers with the block being mined as a
+ * template and a range of nonces, the worker searches the range on its own threads and reports the valid nonce if it
+ * found one, or that the range is exhausted, and asks for the next range in the same message. The first valid nonce
+ * reported ends the job, so the pool is not deterministic like a `ParallelMiner`: two pools may mine the same block
+ * with different nonces.
+ *
+ * - Ranges: every job hands out consecutive ranges from nonce 0 on. A range is sized for `RANGE_MILLIS` of the
+ *   worker's measured hash rate, `FIRST_RANGE` nonces while it has none.
+ * - Reassignment: a range not reported within `RANGE_TIMEOUT_MILLIS`, or held by a worker that disconnects, goes back
+ *   to the job and is handed to the next worker that asks, under a new range number. A late report of a timed out
+ *   range is still counted, and its nonce still wins if it is valid.
+ * - Shares: a worker also reports up to `SHARES_PER_RANGE` nonces whose hash has `SHARE_MARGIN_BITS` fewer leading
+ *   zero bits than the block needs. The pool hashes every share and every solution again, so a faulty worker is
+ *   counted as such and can not end a job with an invalid nonce.
+ * - Fallback: while no worker is connected, or when the last one leaves during a job, the block is mined by the
+ *   fallback miner, from nonce 0 again.
+ *
+ * A worker waiting for work is held by the pool for up to `POLL_MILLIS`, so a new job reaches every idle worker at
+ * once. A worker finishes its range even when another worker already solved the job, at most `RANGE_MILLIS` of
+ * wasted work. All the state of the pool is guarded by its monitor.
+ *
+ * Class Fields:
+ * - `port` (int): The port workers connect to.
+ * - `fallback` (Miner): The miner used while no worker is connected, or null to mine on the calling thread.
+ * - `listenSocket` (ServerSocket): The socket accepting the connections of workers, open after `start`.
+ * - `handlers` (ExecutorService): The threads serving the connections of workers, one per connection.
+ * - `reaper` (ScheduledExecutorService): The thread taking back the ranges that timed out.
+ * - `workers` (Map<String, WorkerStats>): The statistics of every worker seen, by name.
+ * - `job` (Job): The job being mined, or null.
+ * - `nextJobId` (long): The number of the next job.
+ * - `nextRangeId` (long): The number of the next range.
+ * - `closed` (boolean): Whether the pool was closed.
+ *
+ * Constructors:
+ * - `MiningPool(int port, Miner fallback)`: Creates a pool, not started yet.
+ *
+ * Methods:
+ * - `start()`: Listen to workers and take back the ranges that time out.
+ * - `mine(Block block, MiningProgress progress)`: Mine the block with the connected workers.
+ * - `getWorkers()`: Get a copy of the statistics of every worker seen.
+ * - `getConnectedWorkers()`: Get the number of workers connected.
+ * - `close()`: Stop listening to workers and hand out no more work.
+ *
+ * Nested Classes:
+ * - `WorkerStats`: The hash rate and share statistics of one worker.
+ */
+
+package ds.project3task1;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.math.BigInteger;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class MiningPool implements Miner, Closeable {
+    // the time a range should take a worker
+    static final long RANGE_MILLIS = 2000;
+    // the size of the first range of a worker, before its hash rate is known
+    static final long FIRST_RANGE = 1 << 16;
+    // the time after which a range not reported is handed to another worker
+    static final long RANGE_TIMEOUT_MILLIS = 10000;
+    // the longest time a worker waits for a job before it is told to ask again
+    static final long POLL_MILLIS = 5000;
+    // the largest number of shares a worker reports for one range
+    static final int SHARES_PER_RANGE = 16;
+    // how many fewer leading zero bits a share has than a solution, 2 hex zeroes
+    static final int SHARE_MARGIN_BITS = 8;
+    // how long a worker connection may stay silent, longer than any range
+    private static final int READ_TIMEOUT_MILLIS = 60000;
+    // how often the job is checked for cancellation while the workers mine
+    private static final long CHECK_MILLIS = 100;
+
+    // the port workers connect to
+    private final int port;
+    // the miner used while no worker is connected, null to mine on the calling thread
+    private final Miner fallback;
+    // the socket accepting the connections of workers
+    private ServerSocket listenSocket;
+    // the threads serving the connections of workers
+    private final ExecutorService handlers;
+    // the thread taking back the ranges that timed out
+    private final ScheduledExecutorService reaper;
+    // the statistics of every worker seen, by name, in the order they first connected
+    private final Map<String, WorkerStats> workers = new LinkedHashMap<>();
+    // the job being mined, null while there is none
+    private Job job;
+    // the number of the next job
+    private long nextJobId = 1;
+    // the number of the next range, unique across jobs so that a late report is never taken for another range
+    private long nextRangeId = 1;
+    // whether the pool was closed
+    private volatile boolean closed;
+
+    /**
+     * The hash rate and share statistics of one worker, across its connections.
+     */
+    static class WorkerStats {
+        String name;
+        // the address it last connected from
+        String address;
+        int threads;
+        // the number of its connections open
+        int connections;
+        long noncesTried;
+        // the time spent on its ranges, as it reported it
+        long millis;
+        long hashesPerSecond;
+        long rangesDone;
+        long rangesTimedOut;
+        long sharesAccepted;
+        long sharesRejected;
+        // shares of a job that had already ended
+        long sharesStale;
+        long blocksFound;
+
+        /**
+         * Copy the statistics, to be read without the pool's monitor.
+         *
+         * @return The copy.
+         */
+        WorkerStats copy() {
+            WorkerStats s = new WorkerStats();
+            s.name = name;
+            s.address = address;
+            s.threads = threads;
+            s.connections = connections;
+            s.noncesTried = noncesTried;
+            s.millis = millis;
+            s.hashesPerSecond = hashesPerSecond;
+            s.rangesDone = rangesDone;
+            s.rangesTimedOut = rangesTimedOut;
+            s.sharesAccepted = sharesAccepted;
+            s.sharesRejected = sharesRejected;
+            s.sharesStale = sharesStale;
+            s.blocksFound = blocksFound;
+            return s;
+        }
+    }
+
+    /**
+     * A block being mined by the workers.
+     */
+    private static class Job {
+        final long id;
+        final Block block;
+        // the block as it is sent to the workers
+        final PeerMessage.PeerBlock template;
+        final int shareDifficulty;
+        final MiningProgress progress;
+        // the first nonce not handed out yet
+        long nextNonce;
+        // the ranges taken back from workers, handed out before new ones
+        final ArrayDeque<Range> returned = new ArrayDeque<>();
+        // the ranges handed out and not reported yet, by number
+        final Map<Long, Range> assigned = new HashMap<>();
+        // the valid nonce found and its hash, null while there is none
+        Long solution;
+        Hash hash;
+
+        Job(long id, Block block, MiningProgress progress) {
+            this.id = id;
+            this.block = block;
+            this.template = PeerMessage.PeerBlock.of(block);
+            this.shareDifficulty = Math.max(0, block.getZeroBits() - SHARE_MARGIN_BITS);
+            this.progress = progress;
+        }
+    }
+
+    /**
+     * A range of nonces of a job, from `start` (included) to `end` (excluded).
+     */
+    private static class Range {
+        final long start;
+        final long end;
+        long id;
+        WorkerStats worker;
+        // when the range is taken back, in nanoseconds of `System.nanoTime()`
+        long deadline;
+
+        Range(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * Constructor to create a pool listening to workers on the given port. It does nothing until `start`.
+     *
+     * @param port The port workers connect to.
+     * @param fallback The miner used while no worker is connected, or null to mine on the calling thread.
+     */
+    public MiningPool(int port, Miner fallback) {
+        this.port = port;
+        this.fallback = fallback;
+        // daemon threads so the pool never keeps the JVM alive
+        this.handlers = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "pool-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        this.reaper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pool-reaper");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Start listening to workers, and take back the ranges that time out every second.
+     *
+     * @throws IOException if the port can not be listened to.
+     */
+    public void start() throws IOException {
+        listenSocket = new ServerSocket(port);
+        Thread acceptor = new Thread(this::accept, "pool-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        reaper.scheduleWithFixedDelay(this::reap, 1, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Accept the connections of workers until the pool is closed, each served on a thread of its own.
+     */
+    private void accept() {
+        while (!closed) {
+            try {
+                Socket socket = listenSocket.accept();
+                handlers.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (!closed) {
+                    System.out.println("Worker connection failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Answer the messages of a worker, one line each, until it disconnects, then take back its ranges.
+     *
+     * @param socket The connection of the worker.
+     */
+    private void serve(Socket socket) {
+        WorkerStats worker = null;
+        try (socket) {
+            socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                    StandardCharsets.UTF_8));
+            PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(),
+                    StandardCharsets.UTF_8)));
+            String line;
+            while ((line = in.readLine()) != null) {
+                PoolMessage message = new PoolMessage();
+                message.fromJSON(line);
+                if (worker == null) {
+                    worker = join(message, socket.getInetAddress().getHostAddress() + ":" + socket.getPort());
+                }
+                if (PoolMessage.RESULT.equals(message.type)) {
+                    report(worker, message);
+                }
+                out.println(next(worker).toJSON());
+                out.flush();
+            }
+        } catch (IOException | NoSuchAlgorithmException | RuntimeException e) {
+            if (!closed) {
+                System.out.println("Worker " + (worker == null ? "" : worker.name + " ") + "failed: " + e.getMessage());
+            }
+        } catch (InterruptedException e) {
+            // the pool is closing
+        } finally {
+            if (worker != null) {
+                leave(worker);
+            }
+        }
+    }
+
+    /**
+     * Record a worker connecting. A worker that connects again under the same name keeps its statistics.
+     *
+     * @param hello The first message of the worker.
+     * @param address The address it connected from.
+     * @return The statistics of the worker.
+     */
+    private synchronized WorkerStats join(PoolMessage hello, String address) {
+        String name = hello.worker == null || hello.worker.isBlank() ? address : hello.worker;
+        WorkerStats worker = workers.computeIfAbsent(name, n -> new WorkerStats());
+        worker.name = name;
+        worker.address = address;
+        worker.threads = hello.threads == null ? 1 : Integer.parseInt(hello.threads);
+        worker.connections++;
+        System.out.println("Worker " + name + " joined from " + address + " with " + worker.threads + " threads");
+        return worker;
+    }
+
+    /**
+     * Record a worker disconnecting, and take back the ranges it holds. A job left without any worker goes on with
+     * the fallback miner.
+     *
+     * @param worker The statistics of the worker.
+     */
+    private synchronized void leave(WorkerStats worker) {
+        worker.connections--;
+        int returned = 0;
+        if (job != null) {
+            for (Iterator<Range> it = job.assigned.values().iterator(); it.hasNext(); ) {
+                Range range = it.next();
+                if (range.worker == worker) {
+                    it.remove();
+                    job.returned.addFirst(range);
+                    returned++;
+                }
+            }
+        }
+        System.out.println("Worker " + worker.name + " left" + (returned > 0 ? ", " + returned
+                + " ranges taken back" : ""));
+        notifyAll();
+    }
+
+    /**
+     * Record the result of a range: the nonces tried, the shares, and the solution if there is one.
+     *
+     * @param worker The worker reporting.
+     * @param result The RESULT message.
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    private void report(WorkerStats worker, PoolMessage result) throws NoSuchAlgorithmException {
+        long tried = Long.parseLong(result.tried);
+        long millis = Long.parseLong(result.millis);
+        long jobId = Long.parseLong(result.jobId);
+        Job current;
+        synchronized (this) {
+            worker.noncesTried += tried;
+            worker.millis += millis;
+            worker.hashesPerSecond = worker.noncesTried * 1000 / Math.max(1, worker.millis);
+            worker.rangesDone++;
+            current = job != null && job.id == jobId ? job : null;
+            if (current != null) {
+                current.assigned.remove(Long.parseLong(result.rangeId));
+                if (current.progress != null) {
+                    current.progress.addNonces(tried);
+                }
+            }
+        }
+        List<String> shares = result.shares == null ? List.of() : result.shares;
+        if (current == null) {
+            synchronized (this) {
+                worker.sharesStale += Math.min(shares.size(), SHARES_PER_RANGE);
+            }
+            return;
+        }
+
+        // hash the shares and the solution again, outside the monitor
+        int accepted = 0;
+        int rejected = 0;
+        Long solution = null;
+        Hash hash = null;
+        BlockHasher hasher = BlockHasher.forCurrentThread();
+        hasher.reset(current.block);
+        for (String share : shares.subList(0, Math.min(shares.size(), SHARES_PER_RANGE))) {
+            long nonce = Long.parseLong(share);
+            if (nonce >= 0) {
+                hasher.tryNonce(nonce);
+            }
+            if (nonce >= 0 && hasher.lastHashHasLeadingZeroBits(current.shareDifficulty)) {
+                accepted++;
+            } else {
+                rejected++;
+            }
+        }
+        if (result.nonce != null) {
+            long nonce = Long.parseLong(result.nonce);
+            if (nonce >= 0 && hasher.tryNonce(nonce)) {
+                solution = nonce;
+                hash = hasher.getHash();
+            } else {
+                rejected++;
+                System.out.println("Worker " + worker.name + " sent an invalid nonce " + result.nonce);
+            }
+        }
+
+        synchronized (this) {
+            worker.sharesAccepted += accepted;
+            worker.sharesRejected += rejected;
+            if (solution != null) {
+                if (current.solution == null) {
+                    current.solution = solution;
+                    current.hash = hash;
+                    worker.blocksFound++;
+                    notifyAll();
+                } else {
+                    worker.sharesStale++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Give a worker its next range, waiting up to `POLL_MILLIS` for a job if there is none.
+     *
+     * @param worker The worker asking.
+     * @return A WORK message, or an IDLE message if there is still no job.
+     * @throws InterruptedException if the pool is closing.
+     */
+    private synchronized PoolMessage next(WorkerStats worker) throws InterruptedException {
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(POLL_MILLIS);
+        while (job == null || job.solution != null) {
+            long left = end - System.nanoTime();
+            if (left <= 0 || closed) {
+                return new PoolMessage(PoolMessage.IDLE);
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, left);
+        }
+
+        Range range = job.returned.poll();
+        if (range == null) {
+            long size = worker.hashesPerSecond == 0 ? FIRST_RANGE
+                    : Math.max(FIRST_RANGE, worker.hashesPerSecond * RANGE_MILLIS / 1000);
+            long start = job.nextNonce;
+            long stop = Long.MAX_VALUE - start < size ? Long.MAX_VALUE : start + size;
+            job.nextNonce = stop;
+            range = new Range(start, stop);
+        }
+        range.id = nextRangeId++;
+        range.worker = worker;
+        range.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(RANGE_TIMEOUT_MILLIS);
+        job.assigned.put(range.id, range);
+
+        PoolMessage work = new PoolMessage(PoolMessage.WORK);
+        work.jobId = Long.toString(job.id);
+        work.rangeId = Long.toString(range.id);
+        work.start = Long.toString(range.start);
+        work.end = Long.toString(range.end);
+        work.shareDifficulty = Integer.toString(job.shareDifficulty);
+        work.block = job.template;
+        return work;
+    }
+
+    /**
+     * Take back the ranges of the job that were not reported in time, to hand them to other workers.
+     */
+    private synchronized void reap() {
+        if (job == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        for (Iterator<Range> it = job.assigned.values().iterator(); it.hasNext(); ) {
+            Range range = it.next();
+            if (now - range.deadline > 0) {
+                it.remove();
+                range.worker.rangesTimedOut++;
+                job.returned.addFirst(range);
+                System.out.println("Range " + range.id + " of worker " + range.worker.name + " timed out");
+            }
+        }
+        notifyAll();
+    }
+
+    /**
+     * Mine the block with the connected workers, or with the fallback miner while there is none. Only one block is
+     * mined at a time; a second call waits for the first.
+     *
+     * @param block The block to mine.
+     * @param progress The progress to report the nonces tried by the workers to and check for cancellation, or null.
+     * @return The hash of the mined block.
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     * @throws CancellationException if the progress was cancelled; the block is unchanged.
+     */
+    @Override
+    public Hash mine(Block block, MiningProgress progress) throws NoSuchAlgorithmException {
+        // fail early, before any worker gets the job
+        MessageDigest.getInstance("SHA-256");
+
+        Job mined;
+        synchronized (this) {
+            try {
+                while (job != null) {
+                    wait();
+                }
+                if (closed || getConnectedWorkers() == 0) {
+                    mined = null;
+                } else {
+                    mined = new Job(nextJobId++, block, progress);
+                    job = mined;
+                    notifyAll();
+                    try {
+                        while (mined.solution == null && !closed && getConnectedWorkers() > 0) {
+                            if (progress != null) {
+                                progress.checkCancelled();
+                            }
+                            wait(CHECK_MILLIS);
+                        }
+                    } finally {
+                        job = null;
+                        notifyAll();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("mining interrupted", e);
+            }
+        }
+
+        if (mined != null && mined.solution != null) {
+            block.setNonce(BigInteger.valueOf(mined.solution));
+            return mined.hash;
+        }
+        if (mined != null) {
+            System.out.println("All workers left, mining block " + block.getIndex() + " here");
+        }
+        return fallback == null ? block.proofOfWork(progress) : fallback.mine(block, progress);
+    }
+
+    /**
+     * Get a copy of the statistics of every worker seen since the pool started, in the order they first connected.
+     *
+     * @return The statistics.
+     */
+    public synchronized List<WorkerStats> getWorkers() {
+        List<WorkerStats> copies = new ArrayList<>();
+        for (WorkerStats worker : workers.values()) {
+            copies.add(worker.copy());
+        }
+        return copies;
+    }
+
+    /**
+     * Get the number of workers connected.
+     *
+     * @return The number of workers.
+     */
+    public synchronized int getConnectedWorkers() {
+        int connected = 0;
+        for (WorkerStats worker : workers.values()) {
+            if (worker.connections > 0) {
+                connected++;
+            }
+        }
+        return connected;
+    }
+
+    /**
+     * Stop listening to workers, hand out no more work and stop the background threads. A job being mined goes on
+     * with the fallback miner.
+     *
+     * @throws IOException if the listening socket can not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        reaper.shutdownNow();
+        handlers.shutdownNow();
+        if (listenSocket != null) {
+            listenSocket.close();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/**
+ * MiningProgress Class Documentation
+ *
+ * The `MiningProgress` class lets a caller follow and cancel a long proof of work, such as the repair of a chain.
+ * Miners add the nonces they tried in batches (every `REPORT_INTERVAL` attempts) so that counting does not slow the
+ * search down, and check for cancellation at the same moments. A cancelled search ends with a `CancellationException`.
+ * A time limit can be given as well: once it has passed, the next check ends the search the same way.
+ *
+ * Class Fields:
+ * - `noncesTried` (AtomicLong): The number of nonces tried so far, by all mining threads.
+ * - `blocksRemaining` (int): The number of blocks still to be mined, including the current one.
+ * - `cancelled` (boolean): Whether the work was cancelled.
+ * - `startTime` (long): The time the work started, in nanoseconds of `System.nanoTime()`.
+ * - `timeoutNanos` (long): The time the work may take, in nanoseconds, or Long.MAX_VALUE.
+ * - `timedOut` (boolean): Whether the work was stopped by its time limit.
+ *
+ * Constructors:
+ * - `MiningProgress()`: Creates a progress without a time limit.
+ * - `MiningProgress(long timeout, TimeUnit unit)`: Creates a progress with a time limit.
+ *
+ * Methods:
+ * - `cancel()`: Ask the miners to stop as soon as possible.
+ * - `isCancelled()`: Check whether the work was cancelled.
+ * - `checkCancelled()`: Throw a `CancellationException` if the work was cancelled or timed out.
+ * - `isTimedOut()`: Check whether the work was stopped by its time limit.
+ * - `addNonces(long count)`: Count nonces tried by a miner.
+ * - `getNoncesTried()`: Get the number of nonces tried so far.
+ * - `setBlocksRemaining(int blocks)`: Set the number of blocks still to be mined.
+ * - `getBlocksRemaining()`: Get the number of blocks still to be mined.
+ * - `getElapsedMillis()`: Get the time since the work started.
+ */
+
+package ds.project3task1;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class MiningProgress {
+    // miners report their attempts and check for cancellation every this many nonces
+    static final int REPORT_INTERVAL = 4096;
+
+    // the number of nonces tried so far, by all mining threads
+    private final AtomicLong noncesTried = new AtomicLong();
+    // the number of blocks still to be mined, including the current one
+    private volatile int blocksRemaining;
+    // whether the work was cancelled
+    private volatile boolean cancelled;
+    // the time the work started
+    private final long startTime = System.nanoTime();
+    // the time the work may take, Long.MAX_VALUE without a time limit
+    private final long timeoutNanos;
+    // whether the work was stopped by its time limit
+    private volatile boolean timedOut;
+
+    /**
+     * Constructor to create a progress without a time limit.
+     */
+    public MiningProgress() {
+        timeoutNanos = Long.MAX_VALUE;
+    }
+
+    /**
+     * Constructor to create a progress with a time limit, counted from now.
+     *
+     * @param timeout The time the work may take.
+     * @param unit The unit of the timeout.
+     */
+    public MiningProgress(long timeout, TimeUnit unit) {
+        timeoutNanos = unit.toNanos(timeout);
+    }
+
+    /**
+     * Ask the miners to stop as soon as possible. They stop at their next report.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Check whether the work was cancelled.
+     *
+     * @return true if `cancel()` was called.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Throw a `CancellationException` if the work was cancelled or its time limit has passed.
+     */
+    public void checkCancelled() {
+        if (cancelled) {
+            throw new CancellationException("mining cancelled");
+        }
+        if (timeoutNanos != Long.MAX_VALUE && System.nanoTime() - startTime > timeoutNanos) {
+            timedOut = true;
+            throw new CancellationException("mining timed out");
+        }
+    }
+
+    /**
+     * Check whether the work was stopped by its time limit.
+     *
+     * @return true if a check found the time limit passed.
+     */
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    /**
+     * Count nonces tried by a miner.
+     *
+     * @param count The number of nonces tried since the miner's last report.
+     */
+    public void addNonces(long count) {
+        noncesTried.addAndGet(count);
+    }
+
+    /**
+     * Get the number of nonces tried so far.
+     *
+     * @return The number of nonces tried by all mining threads, up to the last report of each.
+     */
+    public long getNoncesTried() {
+        return noncesTried.get();
+    }
+
+    /**
+     * Set the number of blocks still to be mined, including the current one.
+     *
+     * @param blocks The number of blocks.
+     */
+    public void setBlocksRemaining(int blocks) {
+        blocksRemaining = blocks;
+    }
+
+    /**
+     * Get the number of blocks still to be mined, including the current one.
+     *
+     * @return The number of blocks.
+     */
+    public int getBlocksRemaining() {
+        return blocksRemaining;
+    }
+
+    /**
+     * Get the time since the work started.
+     *
+     * @return The elapsed time in milliseconds.
+     */
+    public long getElapsedMillis() {
+        return (System.nanoTime() - startTime) / 1000000;
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * NonceScanner Interface Documentation
+ *
+ * The `NonceScanner` interface is how a miner searches a range of nonces of one block for the proof of work. The
+ * scalar `BlockHasher` tries one nonce at a time; the `VectorBlockHasher` tries several nonces per step of the SIMD
+ * units of the processor. `MiningEngine.forCurrentThread()` gives the scanner of the calling thread.
+ *
+ * Whatever the scanner, the nonce found is the lowest valid nonce of the range, and its hash is computed by the
+ * scalar path, so the result is the same as with `Block.calculateHash()`.
+ *
+ * Methods:
+ * - `reset(Block block)`: Prepare the scanner for mining the given block.
+ * - `scan(long from, long to)`: Find the lowest valid nonce of a range.
+ * - `getHash()`: Get the hash of the nonce found by the last scan.
+ * - `getLanes()`: Get the number of nonces tried per step.
+ */
+
+package ds.project3task1;
+
+public interface NonceScanner {
+
+    /**
+     * Prepare the scanner for mining the given block, encoding once the parts of it that do not change with the nonce.
+     *
+     * @param block The block to mine.
+     */
+    void reset(Block block);
+
+    /**
+     * Find the lowest nonce of a range that gives the block's hash the leading zeroes of its difficulty.
+     *
+     * @param from The first nonce to try (not negative).
+     * @param to The nonce after the last one to try.
+     * @return The nonce, or -1 if no nonce of the range is valid.
+     */
+    long scan(long from, long to);
+
+    /**
+     * Get the hash of the nonce found by the last scan that found one.
+     *
+     * @return The hash, as `Block.calculateHash()` returns it.
+     */
+    Hash getHash();
+
+    /**
+     * Get the number of nonces tried per step.
+     *
+     * @return 1 for the scalar scanner, the number of vector lanes otherwise.
+     */
+    int getLanes();
+}
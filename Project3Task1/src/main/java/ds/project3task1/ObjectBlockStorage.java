@@ -0,0 +1,134 @@
+/**
+ * ObjectBlockStorage Class Documentation
+ *
+ * The `ObjectBlockStorage` class is the default `BlockStorage` of a `BlockChain`: an array of `Block` objects. A block
+ * is the same object at every read, so changes are made to it in place and `update` has nothing to do, and a read
+ * needs no lock at all. The array only grows, by copying it, so a reader still holding the old array sees the same
+ * blocks.
+ *
+ * Class Fields:
+ * - `blocks` (Block[]): The blocks, the first `size` are used; null for an empty position.
+ * - `size` (int): The number of positions.
+ *
+ * Constructors:
+ * - `ObjectBlockStorage()`: Creates an empty storage.
+ */
+
+package ds.project3task1;
+
+import java.util.Arrays;
+
+public class ObjectBlockStorage implements BlockStorage {
+    // the blocks, null for a stored block not read yet
+    private Block[] blocks = new Block[16];
+    // the number of positions
+    private int size;
+
+    /**
+     * Constructor to create an empty storage.
+     */
+    public ObjectBlockStorage() {
+    }
+
+    /**
+     * Get the number of positions, empty ones included.
+     *
+     * @return The number of blocks of the chain.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the block at a position without any lock.
+     *
+     * @param position The position of the block.
+     * @return The block, or null if the position is empty.
+     */
+    @Override
+    public Block peek(int position) {
+        // the array and the size may be from two moments, the bounds of both are checked
+        Block[] b = blocks;
+        return position >= 0 && position < b.length ? b[position] : null;
+    }
+
+    /**
+     * Get the block at a position.
+     *
+     * @param position The position of the block, below `size()`.
+     * @return The block, or null if the position is empty.
+     */
+    @Override
+    public Block get(int position) {
+        return blocks[position];
+    }
+
+    /**
+     * Add a block after the last position.
+     *
+     * @param block The block.
+     */
+    @Override
+    public void add(Block block) {
+        grow(size + 1);
+        blocks[size++] = block;
+    }
+
+    /**
+     * Add empty positions after the last position.
+     *
+     * @param count The number of positions.
+     */
+    @Override
+    public void addEmpty(int count) {
+        grow(size + count);
+        size += count;
+    }
+
+    /**
+     * Fill an empty position.
+     *
+     * @param position The position.
+     * @param block The block.
+     */
+    @Override
+    public void set(int position, Block block) {
+        blocks[position] = block;
+    }
+
+    /**
+     * Nothing to record: the changes were made to the stored block itself.
+     *
+     * @param position The position of the block.
+     * @param block The block.
+     */
+    @Override
+    public void update(int position, Block block) {
+        // the block is the stored object itself
+    }
+
+    /**
+     * Drop the blocks from a position on. A reader still holding the array may see a dropped block.
+     *
+     * @param size The number of blocks to keep.
+     */
+    @Override
+    public void truncate(int size) {
+        if (size < this.size) {
+            Arrays.fill(blocks, size, this.size, null);
+            this.size = size;
+        }
+    }
+
+    /**
+     * Make room for the given number of positions, doubling the array.
+     *
+     * @param capacity The number of positions needed.
+     */
+    private void grow(int capacity) {
+        if (capacity > blocks.length) {
+            blocks = Arrays.copyOf(blocks, Math.max(capacity, blocks.length * 2));
+        }
+    }
+}
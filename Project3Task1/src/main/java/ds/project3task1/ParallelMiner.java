@@ -0,0 +1,219 @@
+/**
+ * ParallelMiner Class Documentation
+ *
+ * The `ParallelMiner` class performs the proof of work of a `Block` on several threads at once.
+ * The nonce space is split between the worker threads by stride, in batches of `BATCH` nonces: worker k searches the
+ * batches k, k + threads, k + 2 * threads, ... so no nonce is tried twice and no coordination is needed while
+ * searching. A batch is searched with the `NonceScanner` of the worker's thread, several nonces per step when
+ * `MiningEngine` uses the Vector API, and gives its lowest valid nonce.
+ * As soon as a worker finds a nonce that gives a hash with the required number of leading hex zeroes,
+ * the other workers stop. It is the `Miner` of a chain whose blocks are mined on the server itself.
+ *
+ * Class Fields:
+ * - `threads` (int): The number of worker threads used to search the nonce space.
+ * - `deterministic` (boolean): If true, the lowest valid nonce always wins so the mined chain is reproducible.
+ * - `pool` (ExecutorService): The dedicated pool running the worker threads.
+ *
+ * Constructors:
+ * - `ParallelMiner()`: Creates a deterministic miner using one thread per available processor.
+ * - `ParallelMiner(int threads, boolean deterministic)`: Creates a miner with the given thread count and mode.
+ *
+ * Methods:
+ * - `mine(Block block)`: Find a valid nonce for the block, store it in the block and return the block's hash.
+ * - `mine(Block block, MiningProgress progress)`: Mine the block, reporting the nonces tried and stopping when cancelled.
+ * - `getThreads()`: Get the number of worker threads.
+ * - `isDeterministic()`: Check whether the lowest valid nonce always wins.
+ * - `shutdown()`: Stop the worker threads of this miner.
+ */
+
+package ds.project3task1;
+
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ParallelMiner implements Miner {
+    // the number of consecutive nonces a worker searches before it looks at the other workers again
+    static final int BATCH = MiningProgress.REPORT_INTERVAL;
+    // the number of worker threads used to search the nonce space
+    private final int threads;
+    // if true, the lowest valid nonce wins, otherwise the first nonce found wins
+    private final boolean deterministic;
+    // the dedicated pool running the workers
+    private final ExecutorService pool;
+
+    /**
+     * Constructor to create a deterministic miner with one thread per available processor.
+     */
+    public ParallelMiner() {
+        this(Runtime.getRuntime().availableProcessors(), true);
+    }
+
+    /**
+     * Constructor to create a miner with the specified thread count and mode.
+     *
+     * @param threads The number of worker threads to search with (at least 1).
+     * @param deterministic If true the lowest valid nonce wins, so chain contents are reproducible.
+     */
+    public ParallelMiner(int threads, boolean deterministic) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1");
+        }
+        this.threads = threads;
+        this.deterministic = deterministic;
+        // daemon threads so an idle miner never keeps the JVM alive
+        this.pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "miner");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Find a nonce that gives the block a hash with the appropriate number of leading hex zeroes.
+     * The nonce is stored in the block, so afterwards `block.getNonce()` and `block.calculateHash()`
+     * agree with the returned hash, exactly as after `block.proofOfWork()`.
+     *
+     * @param block The block to mine.
+     * @return a hash that has the appropriate number of leading hex zeroes.
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    public Hash mine(Block block) throws NoSuchAlgorithmException {
+        return mine(block, null);
+    }
+
+    /**
+     * Mine the block like `mine(Block)`, reporting the nonces tried by all workers and stopping all of them
+     * when the progress is cancelled.
+     *
+     * @param block The block to mine.
+     * @param progress The progress to report to and check for cancellation, or null.
+     * @return a hash that has the appropriate number of leading hex zeroes.
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     * @throws CancellationException if the progress was cancelled; the block is unchanged.
+     */
+    @Override
+    public Hash mine(Block block, MiningProgress progress) throws NoSuchAlgorithmException {
+        // fail early, before any worker is started
+        MessageDigest.getInstance("SHA-256");
+
+        // the best (lowest) valid nonce found so far, Long.MAX_VALUE while none is found
+        AtomicLong found = new AtomicLong(Long.MAX_VALUE);
+        List<Callable<Void>> workers = new ArrayList<>();
+        for (int k = 0; k < threads; k++) {
+            final long start = k;
+            workers.add(() -> {
+                search(block, start, found, progress);
+                return null;
+            });
+        }
+
+        try {
+            if (threads == 1) {
+                search(block, 0, found, progress);
+            } else {
+                for (Future<Void> f : pool.invokeAll(workers)) {
+                    f.get();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("mining interrupted", e);
+        } catch (ExecutionException e) {
+            // a cancelled worker ends the whole search
+            if (e.getCause() instanceof CancellationException) {
+                throw (CancellationException) e.getCause();
+            }
+            throw new IllegalStateException("mining failed", e.getCause());
+        }
+
+        // store the winning nonce in the block and return its hash;
+        // only this hash is ever made into a Hash
+        long nonce = found.get();
+        BlockHasher hasher = BlockHasher.forCurrentThread();
+        hasher.reset(block);
+        hasher.tryNonce(nonce);
+        block.setNonce(BigInteger.valueOf(nonce));
+        return hasher.getHash();
+    }
+
+    /**
+     * Search the batches start, start + threads, start + 2 * threads, ... until a valid nonce is found
+     * or another worker has found one that makes further searching pointless.
+     *
+     * @param block The block to mine.
+     * @param start The first batch of this worker.
+     * @param found The shared best nonce found so far.
+     * @param progress The progress to report to and check for cancellation, or null.
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    private void search(Block block, long start, AtomicLong found, MiningProgress progress)
+            throws NoSuchAlgorithmException {
+        // each pool thread reuses its own scanner
+        NonceScanner scanner = MiningEngine.forCurrentThread();
+        scanner.reset(block);
+
+        // the nonces tried since the last report
+        long tried = 0;
+        try {
+            for (long batch = start * BATCH; ; batch += (long) threads * BATCH) {
+                long best = found.get();
+                // in deterministic mode only a lower nonce than the best one can still win,
+                // otherwise any nonce found by another worker ends the search
+                if (deterministic ? batch >= best : best != Long.MAX_VALUE) {
+                    return;
+                }
+                long nonce = scanner.scan(batch, batch + BATCH);
+                if (nonce >= 0) {
+                    tried += nonce - batch + 1;
+                    found.accumulateAndGet(nonce, Math::min);
+                    return;
+                }
+                tried += BATCH;
+                if (progress != null) {
+                    progress.addNonces(tried);
+                    tried = 0;
+                    progress.checkCancelled();
+                }
+            }
+        } finally {
+            if (progress != null) {
+                progress.addNonces(tried);
+            }
+        }
+    }
+
+    /**
+     * Get the number of worker threads.
+     *
+     * @return The number of worker threads.
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Check whether the lowest valid nonce always wins.
+     *
+     * @return true if mining is deterministic.
+     */
+    public boolean isDeterministic() {
+        return deterministic;
+    }
+
+    /**
+     * Stop the worker threads of this miner. The miner can not be used afterwards.
+     */
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
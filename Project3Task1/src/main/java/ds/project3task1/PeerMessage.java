@@ -0,0 +1,149 @@
+/**
+ * PeerMessage Class Documentation
+ *
+ * The `PeerMessage` class is a message between two `PeerNode`s, sent as one line of JSON like the messages between
+ * the client and the server. Every request gets one reply of the same type:
+ * - `HEAD`: the sender's head (size, total work, chain hash and peer port), answered with the
+ *   receiver's head.
+ *   A node announces every new head to its peers this way, and asks for their heads the same way.
+ * - `HASHES`: the hashes of `count` blocks from height `from`, answered with `hashes`, to find where two chains fork.
+ * - `BLOCKS`: `count` blocks from height `from`, answered with `blocks`, fewer at the end of the chain.
+ * A request the receiver can not answer gets an `ERROR` reply with the reason in `error`.
+ *
+ * Blocks are sent with their timestamp in nanoseconds since the epoch and their hash, so that the receiver builds the
+ * very same block and checks it against that hash. A `MiningPool` sends the block its workers mine the same way,
+ * without a nonce or a hash.
+ *
+ * Nested Classes:
+ * - `PeerBlock`: A block as it is sent to a peer.
+ */
+
+package ds.project3task1;
+
+import com.google.gson.Gson;
+import java.math.BigInteger;
+import java.util.List;
+
+public class PeerMessage {
+
+    static final String HEAD = "HEAD";
+    static final String HASHES = "HASHES";
+    static final String BLOCKS = "BLOCKS";
+    static final String ERROR = "ERROR";
+
+    // HEAD, HASHES, BLOCKS or ERROR
+    String type;
+    // The port the sender listens to peers on, so that the receiver can ask it back.
+    String port;
+    // The size of the sender's chain.
+    String size;
+    // The total expected hashes of the sender's chain, which decide which chain is heavier.
+    String totalWork;
+    // The chain hash of the sender's chain.
+    String chainHash;
+    // The height of the first block or hash asked for.
+    String from;
+    // The number of blocks or hashes asked for.
+    String count;
+    // The hashes asked for, in hex.
+    List<String> hashes;
+    // The blocks asked for.
+    List<PeerBlock> blocks;
+    // Why a request could not be answered.
+    String error;
+
+    /**
+     * A block as it is sent to a peer: every hashed field, and the hash it was mined with.
+     */
+    static class PeerBlock {
+        int index;
+        // the timestamp, in nanoseconds since the epoch
+        long time;
+        String data;
+        String previousHash;
+        String nonce;
+        int difficulty;
+        int version;
+        String hash;
+
+        /**
+         * Copy the fields of a block, with its nonce and last verified hash if it has them.
+         *
+         * @param block The block.
+         * @return The block to send.
+         */
+        static PeerBlock of(Block block) {
+            PeerBlock b = new PeerBlock();
+            b.index = block.getIndex();
+            b.time = BlockHeader.epochNanos(block.getTimestamp());
+            b.data = block.getData();
+            b.previousHash = block.getPreviousHash().toString();
+            b.nonce = block.getNonce() == null ? null : block.getNonce().toString();
+            b.difficulty = block.getDifficulty();
+            b.version = block.getVersion();
+            b.hash = block.getVerifiedHash() == null ? null : block.getVerifiedHash().toString();
+            return b;
+        }
+
+        /**
+         * Build the block that was sent. It is not verified yet.
+         *
+         * @return The block.
+         */
+        Block toBlock() {
+            Block block = new Block(index, BlockHeader.timestamp(time), data, difficulty, version);
+            block.setPreviousHash(Hash.fromHex(previousHash));
+            if (nonce != null) {
+                block.setNonce(new BigInteger(nonce));
+            }
+            return block;
+        }
+    }
+
+    /**
+     * Default constructor to create an empty `PeerMessage`.
+     */
+    public PeerMessage() {
+    }
+
+    /**
+     * Constructor to create a `PeerMessage` of a given type.
+     *
+     * @param type HEAD, HASHES, BLOCKS or ERROR.
+     */
+    public PeerMessage(String type) {
+        this.type = type;
+    }
+
+    /**
+     * Serialize the `PeerMessage` to JSON format, on one line.
+     *
+     * @return A JSON representation of the message.
+     */
+    public String toJSON() {
+        Gson gson = new Gson();
+        return gson.toJson(this);
+    }
+
+    /**
+     * Deserialize a JSON string into a `PeerMessage` object.
+     *
+     * @param JSON The JSON string to deserialize.
+     */
+    public void fromJSON(String JSON) {
+        Gson gson = new Gson();
+        // deserialize the JSON string
+        PeerMessage m = gson.fromJson(JSON, PeerMessage.class);
+        // assign the values
+        this.type = m.type;
+        this.port = m.port;
+        this.size = m.size;
+        this.totalWork = m.totalWork;
+        this.chainHash = m.chainHash;
+        this.from = m.from;
+        this.count = m.count;
+        this.hashes = m.hashes;
+        this.blocks = m.blocks;
+        this.error = m.error;
+    }
+}
@@ -0,0 +1,535 @@
+/**
+ * PeerNode Class Documentation
+ *
+ * The `PeerNode` class replicates a `BlockChain` between several servers, so that the chain survives the loss of one
+ * of them and blocks can be mined on any of them. Every node listens to its peers on a port of its own and talks to
+ * them with `PeerMessage`s, one request and one reply per line of JSON.
+ *
+ * - Gossip: every new head of the chain (a block mined here, or a fork taken from a peer) is announced to every peer.
+ *   A peer whose chain is lighter asks the announcing node for the blocks it is missing, then announces its new head
+ *   in turn. Heads are also exchanged with every peer every `SYNC_SECONDS` seconds, and once at start.
+ * - Catch-up: a lagging node finds the last block it shares with the peer by comparing block hashes, one hash first
+ *   and twice as many back at every step, then fetches only the blocks after it, `PAGE_SIZE` at a time.
+ * - Validation: every fetched block is checked as it arrives, against the block before it only: its index, its link
+ *   to the previous hash, its proof of work and its hash. The chain never hashes its whole length again for a fork.
+ * - Forks: the chain of greater cumulative work (the expected hashes of its blocks, as reported by
+ *   `getTotalExpectedHashes`) wins, so that blocks whose difficulty counts hex zeroes and blocks whose difficulty
+ *   counts bits weigh what they cost. A heavier fork replaces the blocks after the shared prefix with
+ *   `replaceFrom`; on a tie, the chain a node already has is kept. A head that does not tell its work is never
+ *   heavier.
+ *
+ * Announcements and catch-ups run one at a time on a single background thread; every connection from a peer is
+ * served on a thread of its own. A peer that can not be reached is skipped until the next exchange of heads.
+ *
+ * Class Fields:
+ * - `chain` (BlockChain): The replicated chain.
+ * - `port` (int): The port this node listens to its peers on.
+ * - `peers` (List<InetSocketAddress>): The addresses of the peers.
+ * - `listenSocket` (ServerSocket): The socket accepting the connections of peers, open after `start`.
+ * - `handlers` (ExecutorService): The threads serving the connections of peers, one per connection.
+ * - `syncer` (ScheduledExecutorService): The thread announcing heads and fetching blocks.
+ * - `announcer` (Consumer<BlockChain.Head>): The head listener of the chain, announcing every new head.
+ * - `blocksReceived` (AtomicLong): The number of blocks taken from peers.
+ * - `forksTaken` (AtomicLong): The number of times blocks of this chain were replaced by a heavier fork.
+ * - `closed` (boolean): Whether the node was closed.
+ *
+ * Constructors:
+ * - `PeerNode(BlockChain chain, int port, List<InetSocketAddress> peers)`: Creates a node, not started yet.
+ *
+ * Methods:
+ * - `parsePeers(String list)`: Parse a comma-separated list of host:port addresses.
+ * - `start()`: Listen to peers, catch up with them, then announce every new head.
+ * - `sync(InetSocketAddress peer)`: Catch up with one peer if its chain is heavier.
+ * - `getBlocksReceived()`: Get the number of blocks taken from peers.
+ * - `getForksTaken()`: Get the number of times blocks were replaced by a heavier fork.
+ * - `close()`: Stop listening and stop the background threads.
+ */
+
+package ds.project3task1;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+public class PeerNode implements Closeable {
+    // the largest number of blocks or hashes asked for in one message
+    static final int PAGE_SIZE = 500;
+    // how long connecting to a peer may take
+    static final int CONNECT_TIMEOUT_MILLIS = 2000;
+    // how long a peer may take to answer
+    static final int READ_TIMEOUT_MILLIS = 30000;
+    // how often the heads are exchanged with every peer
+    static final long SYNC_SECONDS = 30;
+    // how many times a catch-up starts again when the chain changed while the blocks were fetched
+    private static final int SYNC_ATTEMPTS = 3;
+
+    // the replicated chain
+    private final BlockChain chain;
+    // the port this node listens to its peers on
+    private final int port;
+    // the addresses of the peers
+    private final List<InetSocketAddress> peers;
+    // the socket accepting the connections of peers
+    private ServerSocket listenSocket;
+    // the threads serving the connections of peers
+    private final ExecutorService handlers;
+    // the thread announcing heads and fetching blocks, one task at a time
+    private final ScheduledExecutorService syncer;
+    // the head listener of the chain; it is called under the chain's monitor, the announcement is sent later
+    private final Consumer<BlockChain.Head> announcer;
+    // the number of blocks taken from peers
+    private final AtomicLong blocksReceived = new AtomicLong();
+    // the number of times blocks of this chain were replaced by a heavier fork
+    private final AtomicLong forksTaken = new AtomicLong();
+    // whether the node was closed
+    private volatile boolean closed;
+
+    /**
+     * Constructor to create a node replicating a chain with the given peers. It does nothing until `start`.
+     *
+     * @param chain The replicated chain.
+     * @param port The port to listen to peers on.
+     * @param peers The addresses of the peers.
+     */
+    public PeerNode(BlockChain chain, int port, List<InetSocketAddress> peers) {
+        this.chain = chain;
+        this.port = port;
+        this.peers = new ArrayList<>(peers);
+        // daemon threads so the node never keeps the JVM alive
+        this.handlers = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "peer-connection");
+            t.setDaemon(true);
+            return t;
+        });
+        this.syncer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "peer-sync");
+            t.setDaemon(true);
+            return t;
+        });
+        this.announcer = head -> syncer.execute(this::announce);
+    }
+
+    /**
+     * Parse a comma-separated list of peer addresses, such as "localhost:7001,localhost:7002".
+     *
+     * @param list The addresses, each a host and a port separated by a colon.
+     * @return The addresses, not resolved yet.
+     */
+    public static List<InetSocketAddress> parsePeers(String list) {
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (String peer : list.split(",")) {
+            peer = peer.trim();
+            if (peer.isEmpty()) {
+                continue;
+            }
+            int colon = peer.lastIndexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException("Peer " + peer + " is not host:port");
+            }
+            addresses.add(InetSocketAddress.createUnresolved(peer.substring(0, colon),
+                    Integer.parseInt(peer.substring(colon + 1))));
+        }
+        return addresses;
+    }
+
+    /**
+     * Start listening to peers and catch up with every reachable peer, then announce every new head of the chain and
+     * exchange heads with every peer every `SYNC_SECONDS` seconds. The catch-up is done before this method returns,
+     * so a node restarted with an empty chain gets the chain of its peers instead of mining a Genesis block of its own.
+     *
+     * @throws IOException if the port can not be listened to.
+     */
+    public void start() throws IOException {
+        listenSocket = new ServerSocket(port);
+        Thread acceptor = new Thread(this::accept, "peer-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        syncAll();
+        chain.addHeadListener(announcer);
+        syncer.scheduleWithFixedDelay(this::syncAll, SYNC_SECONDS, SYNC_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Accept the connections of peers until the node is closed, each served on a thread of its own.
+     */
+    private void accept() {
+        while (!closed) {
+            try {
+                Socket socket = listenSocket.accept();
+                handlers.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (!closed) {
+                    System.out.println("Peer connection failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Answer the requests of a peer, one line each, until it closes the connection.
+     *
+     * @param socket The connection of the peer.
+     */
+    private void serve(Socket socket) {
+        try (socket) {
+            socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                    StandardCharsets.UTF_8));
+            PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(),
+                    StandardCharsets.UTF_8)));
+            String line;
+            while ((line = in.readLine()) != null) {
+                PeerMessage request = new PeerMessage();
+                request.fromJSON(line);
+                out.println(answer(request, socket.getInetAddress()).toJSON());
+                out.flush();
+            }
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Peer request failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Answer one request of a peer. A peer announcing a heavier chain is caught up with in the background.
+     *
+     * @param request The request.
+     * @param address The address the peer connected from.
+     * @return The reply.
+     */
+    private PeerMessage answer(PeerMessage request, InetAddress address) {
+        switch (String.valueOf(request.type)) {
+            case PeerMessage.HEAD -> {
+                if (request.port != null && isHeavier(request)) {
+                    InetSocketAddress sender = new InetSocketAddress(address, Integer.parseInt(request.port));
+                    syncer.execute(() -> trySync(sender));
+                }
+                return head();
+            }
+            case PeerMessage.HASHES -> {
+                int from = Integer.parseInt(request.from);
+                int to = Math.min(chain.getChainSize(), from + Math.min(PAGE_SIZE, Integer.parseInt(request.count)));
+                PeerMessage reply = new PeerMessage(PeerMessage.HASHES);
+                reply.hashes = new ArrayList<>();
+                for (int i = from; i < to; i++) {
+                    reply.hashes.add(chain.getBlock(i).getVerifiedHash().toString());
+                }
+                return reply;
+            }
+            case PeerMessage.BLOCKS -> {
+                int from = Integer.parseInt(request.from);
+                int to = Math.min(chain.getChainSize(), from + Math.min(PAGE_SIZE, Integer.parseInt(request.count)));
+                PeerMessage reply = new PeerMessage(PeerMessage.BLOCKS);
+                reply.blocks = new ArrayList<>();
+                for (int i = from; i < to; i++) {
+                    reply.blocks.add(PeerMessage.PeerBlock.of(chain.getBlock(i)));
+                }
+                return reply;
+            }
+            default -> {
+                PeerMessage reply = new PeerMessage(PeerMessage.ERROR);
+                reply.error = "Unknown request " + request.type;
+                return reply;
+            }
+        }
+    }
+
+    /**
+     * Build a HEAD message with the head of the chain and the port of this node.
+     *
+     * @return The message.
+     */
+    private PeerMessage head() {
+        BlockChain.Head head = chain.getHead();
+        PeerMessage message = new PeerMessage(PeerMessage.HEAD);
+        message.port = Integer.toString(port);
+        message.size = Integer.toString(head.getSize());
+        message.totalWork = Double.toString(chain.getTotalExpectedHashes());
+        message.chainHash = head.getChainHash().toString();
+        return message;
+    }
+
+    /**
+     * Check whether the chain described by a HEAD message is heavier than this chain.
+     *
+     * @param head The HEAD message of a peer.
+     * @return true if its total work is greater, false for a peer that does not send its work.
+     */
+    private boolean isHeavier(PeerMessage head) {
+        return head.totalWork != null && Double.parseDouble(head.totalWork) > chain.getTotalExpectedHashes();
+    }
+
+    /**
+     * Announce the head of the chain to every peer, and catch up with a peer that answers with a heavier chain.
+     */
+    private void announce() {
+        PeerMessage head = head();
+        for (InetSocketAddress peer : peers) {
+            try {
+                if (isHeavier(ask(peer, head))) {
+                    sync(peer);
+                }
+            } catch (IOException e) {
+                System.out.println("Peer " + name(peer) + " unreachable: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Catch up with every peer whose chain is heavier.
+     */
+    private void syncAll() {
+        for (InetSocketAddress peer : peers) {
+            trySync(peer);
+        }
+    }
+
+    /**
+     * Catch up with one peer, reporting a peer that can not be reached instead of failing.
+     *
+     * @param peer The address of the peer.
+     */
+    private void trySync(InetSocketAddress peer) {
+        try {
+            sync(peer);
+        } catch (IOException e) {
+            System.out.println("Peer " + name(peer) + " unreachable: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Catch up with one peer if its chain is heavier: find the last block both chains share, fetch the blocks of the
+     * peer after it, checking each one as it arrives, and put them in place of the blocks of this chain after it if
+     * they are heavier. If the chain changes while the blocks are fetched, the catch-up starts again.
+     *
+     * @param peer The address of the peer.
+     * @return true if blocks of the peer were added to the chain.
+     * @throws IOException if the peer can not be reached or sends an invalid reply.
+     */
+    public boolean sync(InetSocketAddress peer) throws IOException {
+        for (int attempt = 0; attempt < SYNC_ATTEMPTS; attempt++) {
+            PeerMessage theirs = ask(peer, head());
+            if (!isHeavier(theirs)) {
+                return false;
+            }
+            BlockChain.Head ours = chain.getHead();
+            int theirSize = Integer.parseInt(theirs.size);
+            int shared = sharedPrefix(peer, Math.min(ours.getSize(), theirSize));
+
+            // fetch the blocks after the shared prefix, each one checked against the one before it
+            List<Block> blocks = new ArrayList<>();
+            List<Hash> hashes = new ArrayList<>();
+            Hash previous = shared == 0 ? Hash.ZERO : chain.getBlock(shared - 1).getVerifiedHash();
+            double forkWork = 0;
+            int height = shared;
+            while (height < theirSize) {
+                PeerMessage page = ask(peer, range(PeerMessage.BLOCKS, height, theirSize - height));
+                if (page.blocks == null || page.blocks.isEmpty()) {
+                    break;
+                }
+                for (PeerMessage.PeerBlock sent : page.blocks) {
+                    Block block = sent.toBlock();
+                    Hash hash = Hash.fromHex(sent.hash);
+                    String fault = verify(block, hash, height, previous);
+                    if (fault != null) {
+                        System.out.println("Rejected the chain of peer " + name(peer) + ": " + fault);
+                        return false;
+                    }
+                    blocks.add(block);
+                    hashes.add(hash);
+                    forkWork += Block.expectedHashes(block.getVersion(), block.getDifficulty());
+                    previous = hash;
+                    height++;
+                }
+            }
+
+            // the fork wins if it is heavier than the blocks it replaces
+            double replacedWork = 0;
+            for (int i = shared; i < ours.getSize(); i++) {
+                Block replaced = chain.getBlock(i);
+                replacedWork += Block.expectedHashes(replaced.getVersion(), replaced.getDifficulty());
+            }
+            if (blocks.isEmpty() || forkWork <= replacedWork) {
+                return false;
+            }
+            if (chain.replaceFrom(shared, blocks, hashes, ours.getChainHash())) {
+                blocksReceived.addAndGet(blocks.size());
+                if (shared < ours.getSize()) {
+                    forksTaken.incrementAndGet();
+                }
+                System.out.println("Took blocks " + shared + " to " + (height - 1) + " from peer " + name(peer)
+                        + (shared < ours.getSize() ? ", replacing " + (ours.getSize() - shared) + " blocks" : ""));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Find how many blocks, from the Genesis block on, this chain shares with a peer: compare the hash of the last
+     * block below `top` first, then of the 2, 4, 8... blocks below the ones compared, until one matches. A lagging
+     * node on the same chain needs a single hash.
+     *
+     * @param peer The address of the peer.
+     * @param top The number of blocks both chains have.
+     * @return The number of blocks shared.
+     * @throws IOException if the peer can not be reached or sends an invalid reply.
+     */
+    private int sharedPrefix(InetSocketAddress peer, int top) throws IOException {
+        int step = 1;
+        while (top > 0) {
+            int from = Math.max(0, top - step);
+            List<String> theirs = ask(peer, range(PeerMessage.HASHES, from, top - from)).hashes;
+            if (theirs == null) {
+                throw new IOException("Peer " + name(peer) + " sent no hashes");
+            }
+            // the chains share a prefix, so the highest match ends it
+            for (int i = Math.min(top, from + theirs.size()) - 1; i >= from; i--) {
+                if (chain.getBlock(i).getVerifiedHash().equals(Hash.fromHex(theirs.get(i - from)))) {
+                    return i + 1;
+                }
+            }
+            top = from;
+            step = Math.min(step * 2, PAGE_SIZE);
+        }
+        return 0;
+    }
+
+    /**
+     * Check a block of a peer against the block before it.
+     *
+     * @param block The block.
+     * @param hash The hash the peer sent with it.
+     * @param height The position of the block in the chain.
+     * @param previous The hash of the block before it, `Hash.ZERO` for the Genesis block.
+     * @return What is wrong with the block, or null if it is valid.
+     */
+    static String verify(Block block, Hash hash, int height, Hash previous) {
+        if (block.getIndex() != height) {
+            return "Block " + height + " has index " + block.getIndex();
+        }
+        if (!previous.equals(block.getPreviousHash())) {
+            return "Block " + height + " does not link to block " + (height - 1);
+        }
+        if (block.getDifficulty() < 0 || hash.leadingZeroBits() < block.getZeroBits()) {
+            return "Block " + height + " lacks the proof of work of difficulty " + block.getDifficulty();
+        }
+        try {
+            if (!hash.equals(block.calculateHash())) {
+                return "Block " + height + " does not match its hash";
+            }
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        return null;
+    }
+
+    /**
+     * Build a request for a range of hashes or blocks.
+     *
+     * @param type HASHES or BLOCKS.
+     * @param from The height of the first one.
+     * @param count The number asked for; a peer sends at most `PAGE_SIZE`.
+     * @return The request.
+     */
+    private static PeerMessage range(String type, int from, int count) {
+        PeerMessage message = new PeerMessage(type);
+        message.from = Integer.toString(from);
+        message.count = Integer.toString(count);
+        return message;
+    }
+
+    /**
+     * Get the address of a peer as it is written in the list of peers.
+     *
+     * @param peer The address of the peer.
+     * @return The host and the port, separated by a colon.
+     */
+    private static String name(InetSocketAddress peer) {
+        return peer.getHostString() + ":" + peer.getPort();
+    }
+
+    /**
+     * Send one request to a peer on a new connection and read its reply.
+     *
+     * @param peer The address of the peer.
+     * @param request The request.
+     * @return The reply.
+     * @throws IOException if the peer can not be reached, does not answer in time, or answers with an error.
+     */
+    private static PeerMessage ask(InetSocketAddress peer, PeerMessage request) throws IOException {
+        try (Socket socket = new Socket()) {
+            InetSocketAddress address = peer.isUnresolved()
+                    ? new InetSocketAddress(peer.getHostString(), peer.getPort()) : peer;
+            socket.connect(address, CONNECT_TIMEOUT_MILLIS);
+            socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+            PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(),
+                    StandardCharsets.UTF_8)));
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                    StandardCharsets.UTF_8));
+            out.println(request.toJSON());
+            out.flush();
+            String line = in.readLine();
+            if (line == null) {
+                throw new IOException("Peer closed the connection");
+            }
+            PeerMessage reply = new PeerMessage();
+            reply.fromJSON(line);
+            if (PeerMessage.ERROR.equals(reply.type)) {
+                throw new IOException(reply.error);
+            }
+            return reply;
+        }
+    }
+
+    /**
+     * Get the number of blocks taken from peers.
+     *
+     * @return The number of blocks.
+     */
+    public long getBlocksReceived() {
+        return blocksReceived.get();
+    }
+
+    /**
+     * Get the number of times blocks of this chain were replaced by the heavier fork of a peer.
+     *
+     * @return The number of forks taken.
+     */
+    public long getForksTaken() {
+        return forksTaken.get();
+    }
+
+    /**
+     * Stop announcing the heads of the chain, stop listening to peers and stop the background threads.
+     *
+     * @throws IOException if the listening socket can not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        chain.removeHeadListener(announcer);
+        syncer.shutdownNow();
+        handlers.shutdownNow();
+        if (listenSocket != null) {
+            listenSocket.close();
+        }
+    }
+}
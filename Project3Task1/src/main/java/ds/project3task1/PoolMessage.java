@@ -0,0 +1,108 @@
+/**
+ * PoolMessage Class Documentation
+ *
+ * The `PoolMessage` class is a message between a `MiningPool` and a `PoolWorker`, sent as one line of JSON like the
+ * messages between the client and the server. The worker always asks and the pool always answers with the next
+ * thing to do:
+ * - `WORK` from a worker: it is ready for a range (the first message of a connection names the worker and its
+ *   thread count).
+ * - `RESULT` from a worker: it searched the range `rangeId`, tried `tried` nonces in `millis` milliseconds, and
+ *   found the valid `nonce` if there is one, with the `shares` it met on the way.
+ * - `WORK` from the pool: search the nonces from `start` (included) to `end` (excluded) of the `block` of job
+ *   `jobId`, and report the nonces whose hash has `shareDifficulty` leading zero bits as shares.
+ * - `IDLE` from the pool: there is nothing to mine, ask again after `wait` milliseconds.
+ *
+ * The template block is sent like the blocks between peers, without a nonce or a hash. Nonces are decimal strings.
+ */
+
+package ds.project3task1;
+
+import com.google.gson.Gson;
+import java.util.List;
+
+public class PoolMessage {
+
+    static final String WORK = "WORK";
+    static final String RESULT = "RESULT";
+    static final String IDLE = "IDLE";
+
+    // WORK, RESULT or IDLE
+    String type;
+    // The name of the worker.
+    String worker;
+    // The number of threads the worker mines with.
+    String threads;
+    // The number of the job the range belongs to.
+    String jobId;
+    // The number of the range, unique in the pool.
+    String rangeId;
+    // The first nonce of the range.
+    String start;
+    // The nonce after the last one of the range.
+    String end;
+    // The number of leading zero bits of a share.
+    String shareDifficulty;
+    // The block to mine.
+    PeerMessage.PeerBlock block;
+    // The valid nonce found in the range, or null.
+    String nonce;
+    // The nonces of the range whose hash meets the share difficulty.
+    List<String> shares;
+    // The number of nonces tried in the range.
+    String tried;
+    // The time the range took, in milliseconds.
+    String millis;
+    // The time to wait before asking again, in milliseconds.
+    String wait;
+
+    /**
+     * Default constructor to create an empty `PoolMessage`.
+     */
+    public PoolMessage() {
+    }
+
+    /**
+     * Constructor to create a `PoolMessage` of a given type.
+     *
+     * @param type WORK, RESULT or IDLE.
+     */
+    public PoolMessage(String type) {
+        this.type = type;
+    }
+
+    /**
+     * Serialize the `PoolMessage` to JSON format, on one line.
+     *
+     * @return A JSON representation of the message.
+     */
+    public String toJSON() {
+        Gson gson = new Gson();
+        return gson.toJson(this);
+    }
+
+    /**
+     * Deserialize a JSON string into a `PoolMessage` object.
+     *
+     * @param JSON The JSON string to deserialize.
+     */
+    public void fromJSON(String JSON) {
+        Gson gson = new Gson();
+        // deserialize the JSON string
+        PoolMessage m = gson.fromJson(JSON, PoolMessage.class);
+        // assign the values
+        this.type = m.type;
+        this.worker = m.worker;
+        this.threads = m.threads;
+        this.jobId = m.jobId;
+        this.rangeId = m.rangeId;
+        this.start = m.start;
+        this.end = m.end;
+        this.shareDifficulty = m.shareDifficulty;
+        this.block = m.block;
+        this.nonce = m.nonce;
+        this.shares = m.shares;
+        this.tried = m.tried;
+        this.millis = m.millis;
+        this.wait = m.wait;
+    }
+}
@@ -0,0 +1,223 @@
+/**
+ * PoolWorker Class Documentation
+ *
+ * The `PoolWorker` class is the client side of a `MiningPool`: an otherwise idle process that connects to the pool
+ * of a server, asks for work, and searches every range of nonces it is given on its own threads. The range is split
+ * into one consecutive part per thread; every thread hashes the block template with its own `BlockHasher`, and all
+ * of them stop as soon as one finds a valid nonce. The worker then reports the nonce, or that the range is
+ * exhausted, with the nonces tried, the time taken and the shares met on the way, and gets its next range in reply.
+ *
+ * A worker that loses the pool connects again, waiting twice as long after every failed attempt, up to
+ * `MAX_RETRY_MILLIS`.
+ *
+ * Class Fields:
+ * - `host` (String): The host of the pool.
+ * - `port` (int): The port of the pool.
+ * - `name` (String): The name the pool knows this worker by.
+ * - `threads` (int): The number of threads searching a range.
+ * - `pool` (ExecutorService): The threads searching a range.
+ *
+ * Constructors:
+ * - `PoolWorker(String host, int port, String name, int threads)`: Creates a worker, not connected yet.
+ *
+ * Methods:
+ * - `run()`: Mine for the pool until the process ends, connecting again whenever the connection is lost.
+ * - `mine(Socket socket)`: Mine for the pool on one connection until it is lost.
+ * - `search(PoolMessage work)`: Search a range of nonces and build the report.
+ */
+
+package ds.project3task1;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class PoolWorker {
+    // how long connecting to the pool may take
+    static final int CONNECT_TIMEOUT_MILLIS = 2000;
+    // how long the pool may take to answer, longer than it holds a worker waiting for a job
+    static final int READ_TIMEOUT_MILLIS = 30000;
+    // the first wait before connecting again, in milliseconds
+    static final long FIRST_RETRY_MILLIS = 500;
+    // the longest wait before connecting again, in milliseconds
+    static final long MAX_RETRY_MILLIS = 30000;
+
+    // the host of the pool
+    private final String host;
+    // the port of the pool
+    private final int port;
+    // the name the pool knows this worker by
+    private final String name;
+    // the number of threads searching a range
+    private final int threads;
+    // the threads searching a range
+    private final ExecutorService pool;
+
+    /**
+     * Constructor to create a worker for the pool at the given address.
+     *
+     * @param host The host of the pool.
+     * @param port The port of the pool.
+     * @param name The name the pool knows this worker by.
+     * @param threads The number of threads searching a range.
+     */
+    public PoolWorker(String host, int port, String name, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1");
+        }
+        this.host = host;
+        this.port = port;
+        this.name = name;
+        this.threads = threads;
+        this.pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "pool-search");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Mine for the pool until the process ends. A lost connection is opened again, after a wait that doubles with
+     * every failed attempt.
+     *
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    public void run() throws NoSuchAlgorithmException {
+        long retry = FIRST_RETRY_MILLIS;
+        while (true) {
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MILLIS);
+                socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+                System.out.println("Worker " + name + " connected to " + host + ":" + port + " with " + threads
+                        + " threads");
+                retry = FIRST_RETRY_MILLIS;
+                mine(socket);
+            } catch (IOException e) {
+                System.out.println("Pool " + host + ":" + port + " unreachable: " + e.getMessage());
+            }
+            try {
+                Thread.sleep(retry);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            retry = Math.min(retry * 2, MAX_RETRY_MILLIS);
+        }
+    }
+
+    /**
+     * Ask the pool for work and search every range it gives, until the connection is lost.
+     *
+     * @param socket The connection to the pool.
+     * @throws IOException if the connection is lost.
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    public void mine(Socket socket) throws IOException, NoSuchAlgorithmException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                StandardCharsets.UTF_8));
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(),
+                StandardCharsets.UTF_8)));
+        PoolMessage request = new PoolMessage(PoolMessage.WORK);
+        request.worker = name;
+        request.threads = Integer.toString(threads);
+        while (true) {
+            out.println(request.toJSON());
+            out.flush();
+            String line = in.readLine();
+            if (line == null) {
+                throw new IOException("Pool closed the connection");
+            }
+            PoolMessage reply = new PoolMessage();
+            reply.fromJSON(line);
+            // an idle pool is asked again at once: it holds the request until it has a job
+            request = PoolMessage.WORK.equals(reply.type) ? search(reply) : new PoolMessage(PoolMessage.WORK);
+        }
+    }
+
+    /**
+     * Search a range of nonces of the block template on every thread, one consecutive part each, until one thread
+     * finds a valid nonce or the range is exhausted.
+     *
+     * @param work The WORK message of the pool.
+     * @return The RESULT message to send back.
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     */
+    public PoolMessage search(PoolMessage work) throws NoSuchAlgorithmException {
+        Block block = work.block.toBlock();
+        long start = Long.parseLong(work.start);
+        long end = Long.parseLong(work.end);
+        int shareDifficulty = Integer.parseInt(work.shareDifficulty);
+        long startTime = System.nanoTime();
+
+        // the valid nonce found, Long.MAX_VALUE while none is found
+        AtomicLong found = new AtomicLong(Long.MAX_VALUE);
+        AtomicLong tried = new AtomicLong();
+        ConcurrentLinkedQueue<Long> shares = new ConcurrentLinkedQueue<>();
+        AtomicInteger shareCount = new AtomicInteger();
+        long part = (end - start + threads - 1) / threads;
+        List<Callable<Void>> parts = new ArrayList<>();
+        for (int k = 0; k < threads; k++) {
+            long from = start + k * part;
+            long to = Math.min(end, from + part);
+            parts.add(() -> {
+                BlockHasher hasher = BlockHasher.forCurrentThread();
+                hasher.reset(block);
+                long nonce = from;
+                for (; nonce < to && found.get() == Long.MAX_VALUE; nonce++) {
+                    if (hasher.tryNonce(nonce)) {
+                        found.compareAndSet(Long.MAX_VALUE, nonce);
+                        nonce++;
+                        break;
+                    }
+                    // a solution is a share too, but it is reported as the solution
+                    if (hasher.lastHashHasLeadingZeroBits(shareDifficulty)
+                            && shareCount.incrementAndGet() <= MiningPool.SHARES_PER_RANGE) {
+                        shares.add(nonce);
+                    }
+                }
+                tried.addAndGet(Math.max(0, nonce - from));
+                return null;
+            });
+        }
+
+        try {
+            for (Future<Void> f : pool.invokeAll(parts)) {
+                f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("mining interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("mining failed", e.getCause());
+        }
+
+        PoolMessage result = new PoolMessage(PoolMessage.RESULT);
+        result.jobId = work.jobId;
+        result.rangeId = work.rangeId;
+        result.nonce = found.get() == Long.MAX_VALUE ? null : Long.toString(found.get());
+        result.shares = new ArrayList<>();
+        for (long share : shares) {
+            result.shares.add(Long.toString(share));
+        }
+        result.tried = Long.toString(tried.get());
+        result.millis = Long.toString((System.nanoTime() - startTime) / 1_000_000);
+        return result;
+    }
+}
@@ -8,6 +8,8 @@
  * It provides methods for serializing and deserializing the message in JSON format.
  */
 
+package ds.project3task1;
+
 import com.google.gson.Gson;
 
 public class RequestMessage {
@@ -16,6 +18,16 @@ public class RequestMessage {
     String difficulty;
     String data;
     String index;
+    // The position of the first block to view.
+    String from;
+    // The largest number of blocks to view in one response.
+    String pageSize;
+    // The number of the mining job to view or cancel.
+    String jobId;
+    // The pending ID of the transaction to view.
+    String txId;
+    // "true" to verify the whole chain from the Genesis block instead of from the last checkpoint.
+    String full;
 
     /**
      * Default constructor to create an empty `RequestMessage`.
@@ -62,5 +74,10 @@ public class RequestMessage {
         this.difficulty = m.difficulty;
         this.data = m.data;
         this.index = m.index;
+        this.from = m.from;
+        this.pageSize = m.pageSize;
+        this.jobId = m.jobId;
+        this.txId = m.txId;
+        this.full = m.full;
     }
 }
@@ -0,0 +1,200 @@
+/**
+ * Author: Yi Guo (Andrew ID:yiguo)
+ * Last Modified: Oct 27th, 2023
+ * ResponseMessage Class Documentation
+ * The ResponseMessage class represents a message used for communication or data exchange.
+ * It is used for communication between client and server. Server uses it to form JSON string to respond and
+ * Client uses it to decode the JSON string received into variables needed.
+ * It provides methods for serializing and deserializing the message in JSON format.
+ */
+
+package ds.project3task1;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+
+
+public class ResponseMessage {
+
+
+    // The operating time for different functions in the blockchain.
+    String time;
+    // The result to see if the chain is valid.
+    String verification;
+    // A page of the blockchain, as written by `ChainWriter`.
+    JsonElement chain;
+    // The size of the blockchain.
+    String size;
+    // The difficulty of the latest Block.
+    String recentDifficulty;
+    // The total difficulty of the blockchain, in leading zero bits (4 per hex zero).
+    String totalDifficulty;
+    // The hash calculations per second for the local computer.
+    String hashPerSecond;
+    // The hash calculations per second of a single mining thread.
+    String hashPerSecondPerThread;
+    // The number of mining threads.
+    String threads;
+    // The time of the last hash rate calibration.
+    String calibratedAt;
+    // The estimated time to mine the requested block, in milliseconds.
+    String estimatedTime;
+    // The number of the mining job of the requested block.
+    String jobId;
+    // The state of the mining job.
+    String state;
+    // The nonces tried so far by the mining job.
+    String noncesTried;
+    // The estimated time until the mining job finds a valid nonce, in milliseconds.
+    String remainingTime;
+    // The position of the mined block in the chain.
+    String index;
+    // The pending ID of the submitted transaction.
+    String txId;
+    // The position of the transaction in the data of its block.
+    String position;
+    // The number of transactions waiting for a block.
+    String pending;
+    // The transaction whose inclusion is proved.
+    String transaction;
+    // The Merkle path of the transaction, as built by `MerkleTree.prove`.
+    JsonElement proof;
+    // The header of the block holding the transaction: its timestamp, Merkle root, previous hash and difficulty
+    // (with `index` and `nonce` above), and its hash. The difficulty is also the one chosen for a new block on a
+    // server that retargets.
+    String timestamp;
+    String merkleRoot;
+    String previousHash;
+    String difficulty;
+    String blockHash;
+    // The version of that block, and for a `Block.BINARY` or `Block.TARGET` block its whole `BlockHeader` as
+    // hexadecimal.
+    String version;
+    String header;
+    // The positions of the blocks found by a transaction search, as a JSON array.
+    JsonElement matches;
+    // The height of the checkpoint a verification started from, if any.
+    String checkpoint;
+    // The total expected hashes required for the blockchain.
+    String totalExpectedHashes;
+    // The number of blocks of every difficulty in leading zero bits, as a JSON object.
+    JsonElement histogram;
+    // The statistics of every worker of the mining pool, as a JSON array of `MiningPool.WorkerStats`.
+    JsonElement workers;
+    // The average time between two blocks, in milliseconds.
+    String averageBlockTime;
+    // The time spent mining since the server started, in milliseconds.
+    String miningTime;
+    // The difficulty in bits the next block is mined at, on a server that retargets.
+    String nextDifficulty;
+    // The time a block should take to mine on a server that retargets, in milliseconds.
+    String targetBlockTime;
+    // The average time a block of the last retarget window took to mine, in milliseconds.
+    String observedBlockTime;
+    // The nonce value to get a valid hash.
+    String nonce;
+    // The hash of the latest Block.
+    String chainHash;
+    // Why the request could not be answered, such as a page of the blockchain that does not exist.
+    String error;
+
+    /**
+     * Default constructor to create an empty `ResponseMessage`.
+     */
+    public ResponseMessage() {
+
+    }
+
+    /**
+     * Constructor to create a `ResponseMessage` with specific values.
+     *
+     * @param time                The operating time for different functions in the blockchain.
+     * @param verification        The result to see if the chain is valid.
+     * @param chain               A page of the blockchain, as written by `ChainWriter`.
+     * @param size                The size of the blockchain.
+     * @param recentDifficulty    The difficulty of the latest Block.
+     * @param totalDifficulty     The total difficulty of the blockchain.
+     * @param hashPerSecond       The hash calculations per second for the local computer.
+     * @param totalExpectedHashes The total expected hashes required for the blockchain.
+     * @param nonce               The nonce value to get a valid hash.
+     * @param chainHash           The hash of the latest Block.
+     */
+    public ResponseMessage(String time, String verification, JsonElement chain, String size, String recentDifficulty,
+                           String totalDifficulty, String hashPerSecond, String totalExpectedHashes, String nonce, String chainHash) {
+
+        this.time = time;
+        this.verification = verification;
+        this.chain = chain;
+        this.size = size;
+        this.recentDifficulty = recentDifficulty;
+        this.totalDifficulty = totalDifficulty;
+        this.hashPerSecond = hashPerSecond;
+        this.totalExpectedHashes = totalExpectedHashes;
+        this.nonce = nonce;
+        this.chainHash = chainHash;
+    }
+
+    /**
+     * Serialize the `ResponseMessage` to JSON format.
+     *
+     * @return A JSON representation of the message.
+     */
+    public String toJSON() {
+        Gson gson = new Gson();
+        return gson.toJson(this);
+    }
+
+    /**
+     * Deserialize a JSON string into a `ResponseMessage` object.
+     *
+     * @param JSON The JSON string to deserialize.
+     */
+    public void fromJSON(String JSON) {
+        Gson gson = new Gson();
+        // deserialize the JSON string
+        ResponseMessage m = gson.fromJson(JSON, ResponseMessage.class);
+        // assign the values
+        this.time = m.time;
+        this.verification = m.verification;
+        this.chain = m.chain;
+        this.size = m.size;
+        this.recentDifficulty = m.recentDifficulty;
+        this.totalDifficulty = m.totalDifficulty;
+        this.hashPerSecond = m.hashPerSecond;
+        this.hashPerSecondPerThread = m.hashPerSecondPerThread;
+        this.threads = m.threads;
+        this.calibratedAt = m.calibratedAt;
+        this.estimatedTime = m.estimatedTime;
+        this.jobId = m.jobId;
+        this.state = m.state;
+        this.noncesTried = m.noncesTried;
+        this.remainingTime = m.remainingTime;
+        this.index = m.index;
+        this.txId = m.txId;
+        this.position = m.position;
+        this.pending = m.pending;
+        this.transaction = m.transaction;
+        this.proof = m.proof;
+        this.timestamp = m.timestamp;
+        this.merkleRoot = m.merkleRoot;
+        this.previousHash = m.previousHash;
+        this.difficulty = m.difficulty;
+        this.blockHash = m.blockHash;
+        this.version = m.version;
+        this.header = m.header;
+        this.matches = m.matches;
+        this.checkpoint = m.checkpoint;
+        this.totalExpectedHashes = m.totalExpectedHashes;
+        this.histogram = m.histogram;
+        this.workers = m.workers;
+        this.averageBlockTime = m.averageBlockTime;
+        this.miningTime = m.miningTime;
+        this.nextDifficulty = m.nextDifficulty;
+        this.targetBlockTime = m.targetBlockTime;
+        this.observedBlockTime = m.observedBlockTime;
+        this.nonce = m.nonce;
+        this.chainHash = m.chainHash;
+        this.error = m.error;
+    }
+
+}
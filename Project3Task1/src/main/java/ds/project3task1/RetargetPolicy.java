@@ -0,0 +1,206 @@
+/**
+ * RetargetPolicy Class Documentation
+ *
+ * The `RetargetPolicy` class chooses the difficulty of the `Block.TARGET` blocks a `BlockChain` mines, so that a block
+ * takes about `targetMillis` to mine whatever the hash rate of the miner. The difficulty is kept for `everyBlocks`
+ * blocks, then chosen again from that window of blocks: their expected hashes (2^bits each) over the time their proof
+ * of work took is the hash rate the miner showed, and that rate times the target time is the number of hashes a block
+ * should need, 2^bits for the nearest number of bits. One retarget moves the difficulty by at most `MAX_STEP` bits, so
+ * a window of lucky or unlucky blocks can not swing it far. Until the first window is complete, the difficulty comes
+ * the same way from the hash rate measured by a `HashrateCalibrator`, if one is given, or is the initial difficulty.
+ *
+ * The difficulty is a choice of the node that mines, like the difficulty a client asks for: a validator checks that a
+ * block has the proof of work of the difficulty it holds, not how that difficulty was chosen.
+ *
+ * Class Fields:
+ * - `everyBlocks` (int): The number of blocks mined between two retargets.
+ * - `targetMillis` (long): The time a block should take to mine, in milliseconds.
+ * - `calibrator` (HashrateCalibrator): The measured hash rate used before the first retarget, or null.
+ * - `difficulty` (int): The number of leading zero bits of the next blocks.
+ * - `retargets` (int): The number of retargets done.
+ * - `windowBlocks` (int): The number of blocks mined since the last retarget.
+ * - `windowHashes` (double): Their expected hashes.
+ * - `windowNanos` (long): The time their proof of work took, in nanoseconds.
+ * - `observedMillis` (double): The average time a block of the last complete window took.
+ *
+ * Constructors:
+ * - `RetargetPolicy(int everyBlocks, long target, TimeUnit unit, int initialDifficulty)`: Creates a policy starting
+ *   at a given difficulty.
+ * - `RetargetPolicy(int everyBlocks, long target, TimeUnit unit, HashrateCalibrator calibrator)`: Creates a policy
+ *   starting at the difficulty of the measured hash rate.
+ *
+ * Methods:
+ * - `getDifficulty()`: Get the difficulty of the next block.
+ * - `blockMined(int zeroBits, long nanos)`: Count a mined block, and retarget at the end of a window.
+ * - `bitsFor(double hashesPerSecond)`: Get the difficulty that takes the target time at a hash rate.
+ * - `getEveryBlocks()`: Get the number of blocks between two retargets.
+ * - `getTargetMillis()`: Get the time a block should take.
+ * - `getRetargets()`: Get the number of retargets done.
+ * - `getObservedMillis()`: Get the average time a block of the last complete window took.
+ */
+
+package ds.project3task1;
+
+import java.util.concurrent.TimeUnit;
+
+public class RetargetPolicy {
+    // the most bits one retarget moves the difficulty by, a factor of 4 in expected hashes
+    static final int MAX_STEP = 2;
+    // the lowest difficulty chosen
+    static final int MIN_BITS = 1;
+    // the highest difficulty a binary header holds
+    static final int MAX_BITS = 255;
+
+    // the number of blocks mined between two retargets
+    private final int everyBlocks;
+    // the time a block should take to mine
+    private final long targetMillis;
+    // the measured hash rate used before the first retarget, null to start at the initial difficulty
+    private final HashrateCalibrator calibrator;
+    // the number of leading zero bits of the next blocks
+    private int difficulty;
+    // the number of retargets done
+    private int retargets;
+    // the blocks mined since the last retarget
+    private int windowBlocks;
+    // their expected hashes
+    private double windowHashes;
+    // the time their proof of work took
+    private long windowNanos;
+    // the average time a block of the last complete window took, 0 before the first retarget
+    private double observedMillis;
+
+    /**
+     * Constructor to create a policy starting at a given difficulty.
+     *
+     * @param everyBlocks The number of blocks mined between two retargets (at least 1).
+     * @param target The time a block should take to mine.
+     * @param unit The unit of the time.
+     * @param initialDifficulty The number of leading zero bits of the blocks before the first retarget.
+     */
+    public RetargetPolicy(int everyBlocks, long target, TimeUnit unit, int initialDifficulty) {
+        this(everyBlocks, target, unit, null, initialDifficulty);
+    }
+
+    /**
+     * Constructor to create a policy starting at the difficulty that takes the target time at the hash rate measured
+     * by a calibrator, as calibrated when each block before the first retarget starts.
+     *
+     * @param everyBlocks The number of blocks mined between two retargets (at least 1).
+     * @param target The time a block should take to mine.
+     * @param unit The unit of the time.
+     * @param calibrator The calibrator measuring the hash rate of the miner.
+     */
+    public RetargetPolicy(int everyBlocks, long target, TimeUnit unit, HashrateCalibrator calibrator) {
+        this(everyBlocks, target, unit, calibrator, MIN_BITS);
+    }
+
+    /**
+     * Constructor used by the public constructors.
+     *
+     * @param everyBlocks The number of blocks mined between two retargets.
+     * @param target The time a block should take to mine.
+     * @param unit The unit of the time.
+     * @param calibrator The calibrator, or null.
+     * @param initialDifficulty The difficulty before the first retarget, if there is no calibrator.
+     */
+    private RetargetPolicy(int everyBlocks, long target, TimeUnit unit, HashrateCalibrator calibrator,
+                           int initialDifficulty) {
+        if (everyBlocks < 1 || target <= 0) {
+            throw new IllegalArgumentException("A retarget needs at least one block and a positive block time");
+        }
+        this.everyBlocks = everyBlocks;
+        this.targetMillis = unit.toMillis(target);
+        this.calibrator = calibrator;
+        this.difficulty = Math.max(MIN_BITS, Math.min(MAX_BITS, initialDifficulty));
+    }
+
+    /**
+     * Get the difficulty of the next block: the difficulty of the last retarget, or before it the difficulty of the
+     * measured hash rate.
+     *
+     * @return The number of leading zero bits.
+     */
+    public synchronized int getDifficulty() {
+        if (retargets == 0 && calibrator != null && calibrator.getHashesPerSecond() > 0) {
+            difficulty = bitsFor(calibrator.getHashesPerSecond());
+        }
+        return difficulty;
+    }
+
+    /**
+     * Count a block mined at a difficulty chosen by this policy, and retarget once the window is complete: the next
+     * difficulty is the one that takes the target time at the hash rate of the window, at most `MAX_STEP` bits away.
+     *
+     * @param zeroBits The difficulty of the block.
+     * @param nanos The time its proof of work took, in nanoseconds.
+     */
+    public synchronized void blockMined(int zeroBits, long nanos) {
+        windowBlocks++;
+        windowHashes += Math.pow(2, zeroBits);
+        windowNanos += Math.max(1, nanos);
+        if (windowBlocks < everyBlocks) {
+            return;
+        }
+        int current = getDifficulty();
+        int next = bitsFor(windowHashes / (windowNanos / 1e9));
+        difficulty = Math.max(current - MAX_STEP, Math.min(current + MAX_STEP, next));
+        observedMillis = windowNanos / 1e6 / windowBlocks;
+        retargets++;
+        System.out.println("Retarget " + retargets + ": blocks took " + Math.round(observedMillis)
+                + " milliseconds for a target of " + targetMillis + ", difficulty " + current + " -> " + difficulty
+                + " bits");
+        windowBlocks = 0;
+        windowHashes = 0;
+        windowNanos = 0;
+    }
+
+    /**
+     * Get the difficulty whose expected hashes take the target time at a hash rate: the number of bits nearest to
+     * log2(rate * time).
+     *
+     * @param hashesPerSecond The hash rate of the miner.
+     * @return The number of leading zero bits, between `MIN_BITS` and `MAX_BITS`.
+     */
+    public int bitsFor(double hashesPerSecond) {
+        double hashes = hashesPerSecond * targetMillis / 1000;
+        long bits = Math.round(Math.log(hashes) / Math.log(2));
+        return (int) Math.max(MIN_BITS, Math.min(MAX_BITS, bits));
+    }
+
+    /**
+     * Get the number of blocks mined between two retargets.
+     *
+     * @return The number of blocks.
+     */
+    public int getEveryBlocks() {
+        return everyBlocks;
+    }
+
+    /**
+     * Get the time a block should take to mine.
+     *
+     * @return The time in milliseconds.
+     */
+    public long getTargetMillis() {
+        return targetMillis;
+    }
+
+    /**
+     * Get the number of retargets done.
+     *
+     * @return The number of complete windows.
+     */
+    public synchronized int getRetargets() {
+        return retargets;
+    }
+
+    /**
+     * Get the average time a block of the last complete window took to mine.
+     *
+     * @return The time in milliseconds, 0 before the first retarget.
+     */
+    public synchronized double getObservedMillis() {
+        return observedMillis;
+    }
+}
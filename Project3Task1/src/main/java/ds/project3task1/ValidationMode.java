@@ -0,0 +1,21 @@
+/**
+ * ValidationMode Enum Documentation
+ *
+ * The `ValidationMode` enum selects how much of the chain `BlockChain.isChainValid` re-checks.
+ *
+ * Values:
+ * - `FULL`: Hash and check every block from the Genesis block, whatever was verified before.
+ * - `INCREMENTAL`: Only hash and check the blocks changed since they were last mined or verified (the dirty blocks),
+ *   and the links of their successors. Its cost grows with the number of changes instead of the chain length.
+ * - `CHECKPOINT`: Trust the chain up to its last checkpoint and hash and check every block after it, with the dirty
+ *   blocks below it if any. Its cost grows with the number of blocks added since the last checkpoint instead of the
+ *   chain length. A chain without checkpoints is validated from the Genesis block, as in `FULL`.
+ */
+
+package ds.project3task1;
+
+public enum ValidationMode {
+    FULL,
+    INCREMENTAL,
+    CHECKPOINT
+}
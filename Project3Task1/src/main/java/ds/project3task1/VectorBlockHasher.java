@@ -0,0 +1,379 @@
+/**
+ * VectorBlockHasher Class Documentation
+ *
+ * The `VectorBlockHasher` class is a `NonceScanner` that tries several nonces of a `Block.BINARY` or `Block.TARGET`
+ * block at once, one per lane of a SIMD vector, with the SHA-256 compression function written against the incubating
+ * `jdk.incubator.vector` module. It is loaded by `MiningEngine` only when the JVM was started with
+ * `--add-modules jdk.incubator.vector`; no other class refers to it.
+ *
+ * The vectors have the preferred shape of the processor: 4 lanes of 128 bits (SSE, NEON), 8 of 256 bits (AVX2) or 16
+ * of 512 bits (AVX-512), narrowed with `-XX:MaxVectorSize=16` or `32`. The shape is a constant of the class, since
+ * the JIT only compiles vector operations to SIMD instructions when their species is a constant; a species chosen
+ * at run time runs about a hundred times slower than the scalar hasher.
+ *
+ * A binary header is 86 bytes, two SHA-256 blocks once padded. The first block does not hold the nonce, so it is
+ * compressed once per block, on the scalar path, into a midstate. Only the second block changes with the nonce, and
+ * only in its words 3 to 5, so its first 3 rounds and its schedule words 16 and 17 are computed once per block too.
+ * Every step runs the other 61 rounds for `LANES` consecutive nonces, and keeps the lanes whose first word has the
+ * leading zeroes required. Those candidates are hashed again by the scalar `BlockHasher`, lowest nonce first, which
+ * both confirms them against the whole difficulty and gives the hash that is returned. A nonce is only ever accepted,
+ * and a hash only ever returned, by the same code as `calculateHash()`.
+ *
+ * `LEGACY` and `MERKLE` blocks hash a string whose length changes with the number of digits of the nonce; they are
+ * left to the scalar hasher. The constructor compares the vector compression with `MessageDigest` on a test header
+ * and fails if they differ, so a faulty vector path is never used.
+ *
+ * Class Fields:
+ * - `SPECIES` (VectorSpecies<Integer>): The shape of the vectors, one 32-bit word per lane.
+ * - `LANES` (int): The number of nonces tried per step.
+ * - `scalar` (BlockHasher): The hasher confirming candidates, and mining blocks that are not binary.
+ * - `header` (byte[]): The header of the current block.
+ * - `midstate` (int[]): The SHA-256 state after the first block of the header.
+ * - `round3` (int[]): The state after the first 3 rounds of the second block, which do not depend on the nonce.
+ * - `schedule` (int[]): The message schedule of the second block, 64 words of `LANES` lanes each.
+ * - `binary` (boolean): Whether the current block is a binary block, mined on the vector path.
+ * - `zeroBits` (int): The number of leading zero bits the hash must have.
+ * - `nonceWord` (int): The bytes of word 3 that come before the nonce.
+ *
+ * Constructors:
+ * - `VectorBlockHasher()`: Creates a hasher, checked against `MessageDigest`.
+ *
+ * Methods:
+ * - `reset(Block block)`: Prepare the hasher for mining the given block.
+ * - `scan(long from, long to)`: Find the lowest valid nonce of a range, `LANES` nonces per step.
+ * - `getHash()`: Get the hash of the nonce found by the last scan.
+ * - `getLanes()`: Get the number of nonces tried per step.
+ */
+
+package ds.project3task1;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+public class VectorBlockHasher implements NonceScanner {
+    // the SHA-256 round constants
+    private static final int[] K = {
+            0x428a2f98, 0x71374491, 0xb5c0fbcf, 0xe9b5dba5, 0x3956c25b, 0x59f111f1, 0x923f82a4, 0xab1c5ed5,
+            0xd807aa98, 0x12835b01, 0x243185be, 0x550c7dc3, 0x72be5d74, 0x80deb1fe, 0x9bdc06a7, 0xc19bf174,
+            0xe49b69c1, 0xefbe4786, 0x0fc19dc6, 0x240ca1cc, 0x2de92c6f, 0x4a7484aa, 0x5cb0a9dc, 0x76f988da,
+            0x983e5152, 0xa831c66d, 0xb00327c8, 0xbf597fc7, 0xc6e00bf3, 0xd5a79147, 0x06ca6351, 0x14292967,
+            0x27b70a85, 0x2e1b2138, 0x4d2c6dfc, 0x53380d13, 0x650a7354, 0x766a0abb, 0x81c2c92e, 0x92722c85,
+            0xa2bfe8a1, 0xa81a664b, 0xc24b8b70, 0xc76c51a3, 0xd192e819, 0xd6990624, 0xf40e3585, 0x106aa070,
+            0x19a4c116, 0x1e376c08, 0x2748774c, 0x34b0bcb5, 0x391c0cb3, 0x4ed8aa4a, 0x5b9cca4f, 0x682e6ff3,
+            0x748f82ee, 0x78a5636f, 0x84c87814, 0x8cc70208, 0x90befffa, 0xa4506ceb, 0xbef9a3f7, 0xc67178f2};
+    // the SHA-256 initial state
+    private static final int[] IV = {
+            0x6a09e667, 0xbb67ae85, 0x3c6ef372, 0xa54ff53a, 0x510e527f, 0x9b05688c, 0x1f83d9ab, 0x5be0cd19};
+    // the length of the header in bits, the last word of the padded second block
+    private static final int HEADER_BITS = BlockHeader.SIZE * 8;
+
+    // the shape of the vectors, one 32-bit word per lane; a constant, or the vector operations are not compiled
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+    // the number of nonces tried per step
+    private static final int LANES = SPECIES.length();
+    // confirms the candidates and mines the blocks that are not binary
+    private final BlockHasher scalar;
+    // the header of the current block, with nonce 0
+    private final byte[] header = new byte[BlockHeader.SIZE];
+    // the SHA-256 state after the first block of the header
+    private final int[] midstate = new int[8];
+    // the state after the first 3 rounds of the second block, the rounds before the nonce
+    private final int[] round3 = new int[8];
+    // the message schedule of the second block, word t of every lane at t * LANES
+    private final int[] schedule;
+    // whether the current block is mined on the vector path
+    private boolean binary;
+    // the number of leading zero bits the hash must have
+    private int zeroBits;
+    // the two bytes of word 3 before the nonce (the end of the Merkle root and the difficulty)
+    private int nonceWord;
+
+    /**
+     * Constructor to create a hasher, and check its vector compression against `MessageDigest`.
+     *
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     * @throws IllegalStateException if the vector compression does not agree with `MessageDigest`.
+     */
+    public VectorBlockHasher() throws NoSuchAlgorithmException {
+        this.scalar = new BlockHasher();
+        this.schedule = new int[64 * LANES];
+        selfTest();
+    }
+
+    /**
+     * Prepare the hasher for mining the given block: compress the first block of its header into the midstate, and
+     * fill the words of the second block that do not change with the nonce.
+     *
+     * @param block The block to mine.
+     */
+    @Override
+    public void reset(Block block) {
+        scalar.reset(block);
+        binary = block.isBinary();
+        if (!binary) {
+            return;
+        }
+        zeroBits = block.getZeroBits();
+        BlockHeader.encode(block, 0, header, 0);
+
+        int[] words = new int[16];
+        for (int i = 0; i < 16; i++) {
+            words[i] = word(header, i * 4);
+        }
+        System.arraycopy(IV, 0, midstate, 0, 8);
+        compress(midstate, words);
+
+        // the second block: 22 header bytes, the 0x80 padding byte, zeroes, then the length in bits
+        fill(0, word(header, 64));
+        fill(1, word(header, 68));
+        fill(2, word(header, 72));
+        nonceWord = word(header, 76) & 0xFFFF0000;
+        for (int t = 6; t < 15; t++) {
+            fill(t, 0);
+        }
+        fill(15, HEADER_BITS);
+
+        // words 16 and 17 only depend on words before the nonce, and so do the first 3 rounds
+        fill(16, sigma1(0) + schedule[9 * LANES] + sigma0(schedule[LANES]) + schedule[0]);
+        fill(17, sigma1(HEADER_BITS) + schedule[10 * LANES] + sigma0(schedule[2 * LANES]) + schedule[LANES]);
+        System.arraycopy(midstate, 0, round3, 0, 8);
+        for (int t = 0; t < 3; t++) {
+            round(round3, t, schedule[t * LANES]);
+        }
+    }
+
+    /**
+     * Find the lowest valid nonce of a range, `LANES` nonces per step. The nonces left over at the end of the range,
+     * and every nonce of a block that is not binary, are tried by the scalar hasher.
+     *
+     * @param from The first nonce to try (not negative).
+     * @param to The nonce after the last one to try.
+     * @return The nonce, or -1 if no nonce of the range is valid.
+     */
+    @Override
+    public long scan(long from, long to) {
+        // a difficulty of 0 accepts the first nonce, and needs no vector at all
+        if (!binary || zeroBits <= 0) {
+            return scalar.scan(from, to);
+        }
+        // only the first word of the hash is compared; the scalar hasher checks the bits after it
+        int shift = 32 - Math.min(zeroBits, 32);
+        long n = from;
+        for (; to - n >= LANES; n += LANES) {
+            VectorMask<Integer> candidates = compress(n, null).lanewise(VectorOperators.LSHR, shift)
+                    .compare(VectorOperators.EQ, 0);
+            if (candidates.anyTrue()) {
+                for (int i = candidates.firstTrue(); i < LANES; i++) {
+                    if (candidates.laneIsSet(i) && scalar.tryNonce(n + i)) {
+                        return n + i;
+                    }
+                }
+            }
+        }
+        return scalar.scan(n, to);
+    }
+
+    /**
+     * Get the hash of the nonce found by the last scan that found one: the scalar hasher tried that nonce last.
+     *
+     * @return The hash, as `Block.calculateHash()` returns it.
+     */
+    @Override
+    public Hash getHash() {
+        return scalar.getHash();
+    }
+
+    /**
+     * Get the number of nonces tried per step.
+     *
+     * @return The number of lanes.
+     */
+    @Override
+    public int getLanes() {
+        return LANES;
+    }
+
+    /**
+     * Compress the second block of the header for the nonces `base` to `base + LANES - 1`, one per lane.
+     *
+     * @param base The nonce of the first lane.
+     * @param digest An array of `8 * LANES` words to write the whole hash of every lane to, word by word, or null.
+     * @return The first word of the hash of every lane.
+     */
+    private IntVector compress(long base, int[] digest) {
+        // the nonce is the last 2 bytes of word 3, word 4, and the first 2 bytes of word 5 before the padding byte
+        for (int i = 0; i < LANES; i++) {
+            long n = base + i;
+            schedule[3 * LANES + i] = nonceWord | (int) (n >>> 48) & 0xFFFF;
+            schedule[4 * LANES + i] = (int) (n >>> 16);
+            schedule[5 * LANES + i] = (int) n << 16 | 0x8000;
+        }
+        for (int t = 18; t < 64; t++) {
+            IntVector w2 = IntVector.fromArray(SPECIES, schedule, (t - 2) * LANES);
+            IntVector w15 = IntVector.fromArray(SPECIES, schedule, (t - 15) * LANES);
+            IntVector s1 = w2.lanewise(VectorOperators.ROR, 17).lanewise(VectorOperators.XOR,
+                    w2.lanewise(VectorOperators.ROR, 19)).lanewise(VectorOperators.XOR,
+                    w2.lanewise(VectorOperators.LSHR, 10));
+            IntVector s0 = w15.lanewise(VectorOperators.ROR, 7).lanewise(VectorOperators.XOR,
+                    w15.lanewise(VectorOperators.ROR, 18)).lanewise(VectorOperators.XOR,
+                    w15.lanewise(VectorOperators.LSHR, 3));
+            s1.add(IntVector.fromArray(SPECIES, schedule, (t - 7) * LANES)).add(s0)
+                    .add(IntVector.fromArray(SPECIES, schedule, (t - 16) * LANES))
+                    .intoArray(schedule, t * LANES);
+        }
+
+        IntVector a = IntVector.broadcast(SPECIES, round3[0]);
+        IntVector b = IntVector.broadcast(SPECIES, round3[1]);
+        IntVector c = IntVector.broadcast(SPECIES, round3[2]);
+        IntVector d = IntVector.broadcast(SPECIES, round3[3]);
+        IntVector e = IntVector.broadcast(SPECIES, round3[4]);
+        IntVector f = IntVector.broadcast(SPECIES, round3[5]);
+        IntVector g = IntVector.broadcast(SPECIES, round3[6]);
+        IntVector h = IntVector.broadcast(SPECIES, round3[7]);
+        for (int t = 3; t < 64; t++) {
+            IntVector sigma1 = e.lanewise(VectorOperators.ROR, 6).lanewise(VectorOperators.XOR,
+                    e.lanewise(VectorOperators.ROR, 11)).lanewise(VectorOperators.XOR,
+                    e.lanewise(VectorOperators.ROR, 25));
+            // Ch(e, f, g) = g ^ (e & (f ^ g))
+            IntVector ch = g.lanewise(VectorOperators.XOR, e.and(f.lanewise(VectorOperators.XOR, g)));
+            IntVector t1 = h.add(sigma1).add(ch).add(K[t]).add(IntVector.fromArray(SPECIES, schedule, t * LANES));
+            IntVector sigma0 = a.lanewise(VectorOperators.ROR, 2).lanewise(VectorOperators.XOR,
+                    a.lanewise(VectorOperators.ROR, 13)).lanewise(VectorOperators.XOR,
+                    a.lanewise(VectorOperators.ROR, 22));
+            // Maj(a, b, c) = (a & b) | (c & (a | b))
+            IntVector maj = a.and(b).or(c.and(a.or(b)));
+            h = g;
+            g = f;
+            f = e;
+            e = d.add(t1);
+            d = c;
+            c = b;
+            b = a;
+            a = t1.add(sigma0).add(maj);
+        }
+
+        if (digest != null) {
+            IntVector[] state = {a, b, c, d, e, f, g, h};
+            for (int j = 0; j < 8; j++) {
+                state[j].add(midstate[j]).intoArray(digest, j * LANES);
+            }
+        }
+        return a.add(midstate[0]);
+    }
+
+    /**
+     * Set word t of the second block to the same value in every lane.
+     *
+     * @param t The number of the word.
+     * @param value The word.
+     */
+    private void fill(int t, int value) {
+        for (int i = 0; i < LANES; i++) {
+            schedule[t * LANES + i] = value;
+        }
+    }
+
+    /**
+     * Compress one 64-byte block into a SHA-256 state, on the scalar path.
+     *
+     * @param state The state, updated in place.
+     * @param block The 16 words of the block.
+     */
+    static void compress(int[] state, int[] block) {
+        int[] w = new int[64];
+        System.arraycopy(block, 0, w, 0, 16);
+        for (int t = 16; t < 64; t++) {
+            w[t] = sigma1(w[t - 2]) + w[t - 7] + sigma0(w[t - 15]) + w[t - 16];
+        }
+        int[] s = state.clone();
+        for (int t = 0; t < 64; t++) {
+            round(s, t, w[t]);
+        }
+        for (int i = 0; i < 8; i++) {
+            state[i] += s[i];
+        }
+    }
+
+    /**
+     * Run one SHA-256 round on a state, on the scalar path.
+     *
+     * @param s The working variables a to h, updated in place.
+     * @param t The number of the round.
+     * @param w Word t of the message schedule.
+     */
+    private static void round(int[] s, int t, int w) {
+        int a = s[0], b = s[1], c = s[2], e = s[4], f = s[5], g = s[6];
+        int t1 = s[7] + (Integer.rotateRight(e, 6) ^ Integer.rotateRight(e, 11) ^ Integer.rotateRight(e, 25))
+                + (g ^ (e & (f ^ g))) + K[t] + w;
+        int t2 = (Integer.rotateRight(a, 2) ^ Integer.rotateRight(a, 13) ^ Integer.rotateRight(a, 22))
+                + ((a & b) | (c & (a | b)));
+        System.arraycopy(s, 0, s, 1, 7);
+        s[4] += t1;
+        s[0] = t1 + t2;
+    }
+
+    /**
+     * The small sigma 0 function of the SHA-256 message schedule.
+     *
+     * @param x A word.
+     * @return sigma0(x).
+     */
+    private static int sigma0(int x) {
+        return Integer.rotateRight(x, 7) ^ Integer.rotateRight(x, 18) ^ (x >>> 3);
+    }
+
+    /**
+     * The small sigma 1 function of the SHA-256 message schedule.
+     *
+     * @param x A word.
+     * @return sigma1(x).
+     */
+    private static int sigma1(int x) {
+        return Integer.rotateRight(x, 17) ^ Integer.rotateRight(x, 19) ^ (x >>> 10);
+    }
+
+    /**
+     * Read a big-endian word.
+     *
+     * @param bytes The bytes.
+     * @param offset The position of the word.
+     * @return The word.
+     */
+    private static int word(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) << 24 | (bytes[offset + 1] & 0xFF) << 16 | (bytes[offset + 2] & 0xFF) << 8
+                | bytes[offset + 3] & 0xFF;
+    }
+
+    /**
+     * Compare the hash of every lane with `MessageDigest` on a test header, for nonces whose low 16 bits wrap
+     * around within one step.
+     *
+     * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available.
+     * @throws IllegalStateException if a lane differs.
+     */
+    private void selfTest() throws NoSuchAlgorithmException {
+        Block block = new Block(7, new Timestamp(1698364800000L), "[\"vector self test\"]", 5, Block.BINARY);
+        block.setPreviousHash(Hash.fromHex("00B2D1F3C2D4E8AF6E5A6B0E4E2C8D1A9F3B7C6D5E4F3A2B1C0D9E8F7A6B5C4D"));
+        reset(block);
+        long base = 0x1234_5678_FFFFL - LANES / 2;
+        int[] digest = new int[8 * LANES];
+        compress(base, digest);
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        byte[] test = new byte[BlockHeader.SIZE];
+        for (int i = 0; i < LANES; i++) {
+            BlockHeader.encode(block, base + i, test, 0);
+            byte[] expected = md.digest(test);
+            for (int j = 0; j < 8; j++) {
+                if (digest[j * LANES + i] != word(expected, j * 4)) {
+                    throw new IllegalStateException("vector SHA-256 differs from MessageDigest for nonce "
+                            + (base + i));
+                }
+            }
+        }
+    }
+}